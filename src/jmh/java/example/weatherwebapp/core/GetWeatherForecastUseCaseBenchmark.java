@@ -0,0 +1,63 @@
+package example.weatherwebapp.core;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import example.weatherwebapp.shared.Either;
+
+/**
+ * Use case and city name validation, with in-memory repositories: measures the overhead of the core
+ * on top of the repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GetWeatherForecastUseCaseBenchmark {
+
+	private GetWeatherForecastUseCase useCase;
+
+	private CityName cityName;
+
+	@Setup
+	public void setup() {
+		final var city = new City(new Coordinates(45.5467, 11.5475), "Vicenza (IT)");
+		final List<WeatherForecast> forecasts = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			forecasts.add(new WeatherForecast(Instant.ofEpochSecond(1687262400L + i * 10800L), 20 + i % 8,
+					"02d", "few clouds"));
+		}
+		final var immutableForecasts = List.copyOf(forecasts);
+
+		useCase = new GetWeatherForecastUseCase((coordinates, limit) -> immutableForecasts,
+				name -> Optional.of(city), c -> {
+				}, coordinates -> Optional.empty(), 0.01);
+		cityName = new CityName("Vicenza");
+	}
+
+	@Benchmark
+	public Either<GetWeatherForecastUseCase.FailureCause, WeatherReport> get() {
+		return useCase.get(cityName, null);
+	}
+
+	@Benchmark
+	public Either<String, CityName> tryCreateValidCityName() {
+		return CityName.tryCreate(" Vicenza ");
+	}
+
+	@Benchmark
+	public Either<String, CityName> tryCreateBlankCityName() {
+		return CityName.tryCreate("   ");
+	}
+
+}
@@ -0,0 +1,57 @@
+package example.weatherwebapp.infrastructure;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.infrastructure.OpenWeatherMapWeatherForecastRepository.OpenWeather5DaysForecastResponseDTO;
+
+/**
+ * Decoding of the sample 5 days forecast response: binding to the DTOs versus streaming decoding.
+ * Run with the {@code gc} profiler to compare the allocation rate ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ForecastDecodingBenchmark {
+
+	private ObjectMapper objectMapper;
+
+	private byte[] response;
+
+	@Setup
+	public void setup() throws IOException {
+		// as configured by Spring for the RestTemplate message converters
+		objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		try (InputStream in = getClass().getResourceAsStream("/static/sample-weather-forecast.json")) {
+			response = in.readAllBytes();
+		}
+	}
+
+	@Benchmark
+	public List<WeatherForecast> bindToDTOs() throws IOException {
+		final var dto = objectMapper.readValue(new ByteArrayInputStream(response),
+				OpenWeather5DaysForecastResponseDTO.class);
+		return dto.list.stream().map(OpenWeatherMapWeatherForecastRepository::fromDTO).toList();
+	}
+
+	@Benchmark
+	public List<WeatherForecast> streamingDecoder() throws IOException {
+		return OpenWeatherMapForecastDecoder.decode(new ByteArrayInputStream(response));
+	}
+
+}
@@ -0,0 +1,54 @@
+package example.weatherwebapp.infrastructure;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.infrastructure.OpenWeatherMapWeatherForecastRepository.OpenWeather5DaysForecastResponseDTO;
+
+/**
+ * Retained heap of the forecasts of a cached city, measured with JOL on the sample forecast response:
+ * a list of forecast objects, as bound from the DTOs, versus the columnar series of the streaming decoder.
+ * <p>
+ * The size of the series includes its weather conditions, although they are interned and shared by all the cities:
+ * the saving is a lower bound. Run with: {@code ./gradlew forecastFootprint}.
+ */
+public final class ForecastSeriesFootprint {
+
+	private ForecastSeriesFootprint() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		final byte[] response;
+		try (InputStream in = ForecastSeriesFootprint.class.getResourceAsStream("/static/sample-weather-forecast.json")) {
+			response = in.readAllBytes();
+		}
+
+		final var dto = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+				.readValue(response, OpenWeather5DaysForecastResponseDTO.class);
+		final List<WeatherForecast> objects = new ArrayList<>(dto.list.size());
+		dto.list.forEach(forecast -> objects.add(OpenWeatherMapWeatherForecastRepository.fromDTO(forecast)));
+
+		final var series = OpenWeatherMapForecastDecoder.decode(new ByteArrayInputStream(response));
+
+		final var objectsLayout = GraphLayout.parseInstance(objects);
+		final var seriesLayout = GraphLayout.parseInstance(series);
+		final long saved = objectsLayout.totalSize() - seriesLayout.totalSize();
+		System.out.printf("%d forecasts per city%n", series.size());
+		System.out.printf("List of forecasts: %,d bytes%n", objectsLayout.totalSize());
+		System.out.printf("Columnar series:   %,d bytes%n", seriesLayout.totalSize());
+		System.out.printf("Saved per city:    %,d bytes (%.0f%%)%n", saved, 100.0 * saved / objectsLayout.totalSize());
+		System.out.println();
+		System.out.println(objectsLayout.toFootprint());
+		System.out.println(seriesLayout.toFootprint());
+	}
+
+}
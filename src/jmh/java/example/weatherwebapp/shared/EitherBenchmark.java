@@ -0,0 +1,37 @@
+package example.weatherwebapp.shared;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Construction and mapping of {@link Either}, created on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EitherBenchmark {
+
+	private String value = "Vicenza";
+
+	@Benchmark
+	public Either<String, String> left() {
+		return Either.left(value);
+	}
+
+	@Benchmark
+	public Either<String, String> right() {
+		return Either.right(value);
+	}
+
+	@Benchmark
+	public int rightMap() {
+		return Either.<String, String>right(value).map(String::length, String::length);
+	}
+
+}
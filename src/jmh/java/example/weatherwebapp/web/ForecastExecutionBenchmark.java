@@ -0,0 +1,133 @@
+package example.weatherwebapp.web;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.GetWeatherForecastUseCase;
+import example.weatherwebapp.core.SuggestCitiesUseCase;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.web.WeatherExecutionConfiguration.ExecutionMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Execution modes of the forecast endpoint compared: a burst of requests, received by a pool standing for
+ * the servlet threads, each one blocked on an uncached upstream call. Reports the time to answer the whole burst.
+ * <p>
+ * The {@code virtual} mode fails on runtimes older than Java 21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ForecastExecutionBenchmark {
+
+	private static final int SERVLET_THREADS = 16;
+
+	private static final int REQUESTS = 256;
+
+	@Param({ "blocking", "async", "virtual" })
+	public String mode;
+
+	@Param({ "10" })
+	public long upstreamLatencyMillis;
+
+	private ExecutorService servletThreads;
+
+	private Executor forecastExecutor;
+
+	private WeatherWebApis apis;
+
+	private final HttpHeaders headers = new HttpHeaders();
+
+	@Setup
+	public void setup() {
+		final var city = new City(new Coordinates(45.5467, 11.5475), "Vicenza (IT)");
+		final List<WeatherForecast> forecasts = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			forecasts.add(new WeatherForecast(Instant.ofEpochSecond(1687262400L + i * 10800L), 20 + i % 8,
+					"02d", "few clouds"));
+		}
+		final var immutableForecasts = List.copyOf(forecasts);
+
+		final var useCase = new GetWeatherForecastUseCase((coordinates, limit) -> {
+			try {
+				Thread.sleep(upstreamLatencyMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return immutableForecasts;
+		}, name -> Optional.of(city), c -> {
+		}, coordinates -> Optional.empty(), 0.01);
+		final var serializedReportCache = new SerializedReportCache(Jackson2ObjectMapperBuilder.json().build(), 1000,
+				Duration.ofMinutes(10), Clock.systemUTC());
+		final var meterRegistry = new SimpleMeterRegistry();
+
+		final var executionMode = ExecutionMode.valueOf(mode.toUpperCase(Locale.ROOT));
+		// as configured by default
+		forecastExecutor = new WeatherExecutionConfiguration().forecastExecutor(executionMode, 64, 1000);
+		if (forecastExecutor instanceof ThreadPoolTaskExecutor pool)
+			pool.initialize();
+		servletThreads = Executors.newFixedThreadPool(SERVLET_THREADS);
+		apis = new WeatherWebApis(useCase, new SuggestCitiesUseCase((prefix, limit) -> List.of()), forecastExecutor,
+				executionMode, Runnable::run, 100, serializedReportCache,
+				new ForecastStreams(useCase, (coordinates, limit) -> immutableForecasts, serializedReportCache,
+						meterRegistry, Runnable::run, 100, Duration.ofMinutes(30), Duration.ofSeconds(10)),
+				meterRegistry);
+	}
+
+	@TearDown
+	public void tearDown() {
+		servletThreads.shutdownNow();
+		if (forecastExecutor instanceof ThreadPoolTaskExecutor pool)
+			pool.shutdown();
+		else if (forecastExecutor instanceof ExecutorService executor)
+			executor.shutdownNow();
+	}
+
+	/**
+	 * Burst of requests, answered once all their responses, or futures of the asynchronous modes, completed.
+	 */
+	@Benchmark
+	public int burst() throws InterruptedException, ExecutionException {
+		final List<Future<Object>> received = new ArrayList<>(REQUESTS);
+		for (int i = 0; i < REQUESTS; i++) {
+			received.add(servletThreads.submit(() -> apis.getWeatherForecast("Vicenza", null, null, false, headers)));
+		}
+
+		int answered = 0;
+		for (final var request : received) {
+			final var response = request.get();
+			if (response instanceof CompletableFuture<?> future)
+				future.join();
+			answered++;
+		}
+		return answered;
+	}
+
+}
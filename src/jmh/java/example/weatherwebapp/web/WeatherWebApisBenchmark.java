@@ -0,0 +1,134 @@
+package example.weatherwebapp.web;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.GetWeatherForecastUseCase;
+import example.weatherwebapp.core.SuggestCitiesUseCase;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherReport;
+import example.weatherwebapp.web.WeatherExecutionConfiguration.ExecutionMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Forecast endpoint end to end, without the servlet container: controller, use case with in-memory
+ * repositories, and JSON serialization of the {@link WeatherReport} with the object mapper configured
+ * as by Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WeatherWebApisBenchmark {
+
+	private WeatherWebApis apis;
+
+	private ObjectMapper objectMapper;
+
+	private WeatherReport report;
+
+	private final HttpHeaders plainHeaders = new HttpHeaders();
+
+	private final HttpHeaders gzipHeaders = new HttpHeaders();
+
+	private final HttpHeaders cborHeaders = new HttpHeaders();
+
+	private final HttpHeaders notModifiedHeaders = new HttpHeaders();
+
+	@Setup
+	public void setup() {
+		final var city = new City(new Coordinates(45.5467, 11.5475), "Vicenza (IT)");
+		final List<WeatherForecast> forecasts = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			forecasts.add(new WeatherForecast(Instant.ofEpochSecond(1687262400L + i * 10800L), 20 + i % 8,
+					"02d", "few clouds"));
+		}
+		final var immutableForecasts = List.copyOf(forecasts);
+
+		final var useCase = new GetWeatherForecastUseCase((coordinates, limit) -> immutableForecasts,
+				name -> Optional.of(city), c -> {
+				}, coordinates -> Optional.empty(), 0.01);
+		final var suggestCitiesUseCase = new SuggestCitiesUseCase((prefix, limit) -> List.of());
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		final var serializedReportCache = new SerializedReportCache(objectMapper, 1000, Duration.ofMinutes(10),
+				Clock.systemUTC());
+		final var meterRegistry = new SimpleMeterRegistry();
+		final var forecastStreams = new ForecastStreams(useCase, (coordinates, limit) -> immutableForecasts,
+				serializedReportCache, meterRegistry, Runnable::run, 100, Duration.ofMinutes(30),
+				Duration.ofSeconds(10));
+		// direct executors, as in the blocking execution mode
+		apis = new WeatherWebApis(useCase, suggestCitiesUseCase, Runnable::run, ExecutionMode.BLOCKING, Runnable::run,
+				100, serializedReportCache, forecastStreams, meterRegistry);
+		report = new WeatherReport(immutableForecasts, city);
+
+		notModifiedHeaders.setIfNoneMatch(get(plainHeaders).getHeaders().getETag());
+		gzipHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+		cborHeaders.setAccept(List.of(MediaType.APPLICATION_CBOR));
+	}
+
+	/**
+	 * Full JSON response, served from the cached serialization.
+	 */
+	@Benchmark
+	public Object getWeatherForecast() {
+		return get(plainHeaders).getBody();
+	}
+
+	/**
+	 * Full JSON response compressed with gzip, served from the cached compression.
+	 */
+	@Benchmark
+	public Object getWeatherForecastGzip() {
+		return get(gzipHeaders).getBody();
+	}
+
+	/**
+	 * Full CBOR response, served from the cached serialization.
+	 */
+	@Benchmark
+	public Object getWeatherForecastCbor() {
+		return get(cborHeaders).getBody();
+	}
+
+	/**
+	 * Conditional request of a client having the current report.
+	 */
+	@Benchmark
+	public Object getWeatherForecastNotModified() {
+		return get(notModifiedHeaders);
+	}
+
+	/**
+	 * JSON serialization of a report, as done on every request without the cached serialization.
+	 */
+	@Benchmark
+	public byte[] serializeReport() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(report);
+	}
+
+	private ResponseEntity<?> get(HttpHeaders headers) {
+		return (ResponseEntity<?>) apis.getWeatherForecast("Vicenza", null, null, false, headers);
+	}
+
+}
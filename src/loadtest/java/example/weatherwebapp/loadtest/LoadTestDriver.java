@@ -0,0 +1,255 @@
+package example.weatherwebapp.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Closed-loop load test of the {@code /weather/{city}} endpoint of a running webapp.
+ * <p>
+ * A fixed number of workers send requests back to back for a fixed duration, after a warmup whose
+ * requests are not measured. Cities are drawn from a Zipf distribution, so that a few cities get most of
+ * the requests as in real traffic, with a fixed seed so that runs are repeatable.
+ * The report gives the throughput and the latency percentiles of the measured requests.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>{@code --target}: base URL of the webapp (default {@code http://localhost:8080});</li>
+ * <li>{@code --label}: name of the run, printed in the report (e.g. the execution and caching mode);</li>
+ * <li>{@code --concurrency}: number of workers (default {@code 32});</li>
+ * <li>{@code --warmup} and {@code --duration}: default {@code 10s} and {@code 30s};</li>
+ * <li>{@code --cities}: number of distinct synthetic cities (default {@code 1000}), or {@code --cities-file}
+ * with a city name per line;</li>
+ * <li>{@code --zipf}: exponent of the Zipf distribution of the cities, {@code 0} for uniform (default {@code 1});</li>
+ * <li>{@code --forecast-days}: value of the {@code forecaseDays} parameter, if any;</li>
+ * <li>{@code --seed}: seed of the city sequence (default {@code 42}).</li>
+ * </ul>
+ * Being closed-loop, the driver slows down with the server: latencies are those of the requests sent,
+ * not of the requests that a fixed arrival rate would have sent.
+ */
+public final class LoadTestDriver {
+
+	private final HttpClient client;
+
+	private final String target;
+
+	private final String[] cities;
+
+	private final double[] cumulativeProbabilities;
+
+	private final String forecastDays;
+
+	LoadTestDriver(HttpClient client, String target, String[] cities, double zipfExponent, String forecastDays) {
+		this.client = client;
+		this.target = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
+		this.cities = cities;
+		this.cumulativeProbabilities = zipf(cities.length, zipfExponent);
+		this.forecastDays = forecastDays;
+	}
+
+	public static void main(String[] args) throws Exception {
+		final var options = new Options(args);
+		final var cities = options.get("cities-file", null) != null
+				? Files.readAllLines(Path.of(options.get("cities-file", null))).stream()
+						.filter(line -> !line.isBlank())
+						.toArray(String[]::new)
+				: syntheticCities(options.getInt("cities", 1000));
+		final int concurrency = options.getInt("concurrency", 32);
+		final var warmup = options.getDuration("warmup", Duration.ofSeconds(10));
+		final var duration = options.getDuration("duration", Duration.ofSeconds(30));
+		final long seed = options.getLong("seed", 42);
+
+		final var client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		final var driver = new LoadTestDriver(client, options.get("target", "http://localhost:8080"), cities,
+				options.getDouble("zipf", 1), options.get("forecast-days", null));
+
+		System.out.printf("Load test '%s': %d workers, %d cities, warmup %s, duration %s%n",
+				options.get("label", "default"), concurrency, cities.length, warmup, duration);
+
+		final var result = driver.run(concurrency, warmup, duration, seed);
+		result.print(System.out::println);
+	}
+
+	private static String[] syntheticCities(int count) {
+		final var cities = new String[count];
+		for (int i = 0; i < count; i++) {
+			cities[i] = "Loadtest City " + i;
+		}
+		return cities;
+	}
+
+	/**
+	 * Cumulative probabilities of the ranks 1 to n of a Zipf distribution.
+	 */
+	private static double[] zipf(int n, double exponent) {
+		final var cumulative = new double[n];
+		double sum = 0;
+		for (int i = 0; i < n; i++) {
+			sum += 1 / Math.pow(i + 1, exponent);
+			cumulative[i] = sum;
+		}
+		for (int i = 0; i < n; i++) {
+			cumulative[i] /= sum;
+		}
+		return cumulative;
+	}
+
+	Result run(int concurrency, Duration warmup, Duration duration, long seed) throws Exception {
+		final long start = System.nanoTime();
+		final long measureFrom = start + warmup.toNanos();
+		final long end = measureFrom + duration.toNanos();
+
+		final ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+		try {
+			final List<Future<Recorder>> recorders = new ArrayList<>();
+			for (int i = 0; i < concurrency; i++) {
+				final var random = new Random(seed + i);
+				recorders.add(workers.submit(() -> work(random, measureFrom, end)));
+			}
+
+			final var total = new Recorder();
+			for (final var recorder : recorders) {
+				total.merge(recorder.get());
+			}
+			return new Result(total, duration);
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	private Recorder work(Random random, long measureFrom, long end) {
+		final var recorder = new Recorder();
+		long now;
+		while ((now = System.nanoTime()) < end) {
+			final var city = cities[nextCity(random)];
+			int status;
+			try {
+				status = client.send(request(city), HttpResponse.BodyHandlers.discarding()).statusCode();
+			} catch (IOException e) {
+				status = -1;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			if (now >= measureFrom)
+				recorder.record(System.nanoTime() - now, status);
+		}
+		return recorder;
+	}
+
+	private int nextCity(Random random) {
+		final int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+		return Math.min(index >= 0 ? index : -index - 1, cities.length - 1);
+	}
+
+	private HttpRequest request(String city) {
+		var uri = target + "/weather/" + URLEncoder.encode(city, StandardCharsets.UTF_8).replace("+", "%20");
+		if (forecastDays != null)
+			uri += "?forecaseDays=" + forecastDays;
+		return HttpRequest.newBuilder(URI.create(uri))
+				.timeout(Duration.ofSeconds(30))
+				.GET()
+				.build();
+	}
+
+	/**
+	 * Latencies and status codes of the requests of a worker.
+	 */
+	static final class Recorder {
+
+		private long[] latencies = new long[1024];
+
+		private int count;
+
+		private final Map<Integer, Long> statuses = new TreeMap<>();
+
+		void record(long latencyNanos, int status) {
+			if (count == latencies.length)
+				latencies = Arrays.copyOf(latencies, count * 2);
+			latencies[count++] = latencyNanos;
+			statuses.merge(status, 1L, Long::sum);
+		}
+
+		void merge(Recorder other) {
+			if (count + other.count > latencies.length)
+				latencies = Arrays.copyOf(latencies, count + other.count);
+			System.arraycopy(other.latencies, 0, latencies, count, other.count);
+			count += other.count;
+			other.statuses.forEach((status, requests) -> statuses.merge(status, requests, Long::sum));
+		}
+
+	}
+
+	/**
+	 * Throughput and latency percentiles of the measured requests.
+	 */
+	static final class Result {
+
+		private final long[] latencies;
+
+		private final Map<Integer, Long> statuses;
+
+		private final Duration duration;
+
+		Result(Recorder recorder, Duration duration) {
+			this.latencies = Arrays.copyOf(recorder.latencies, recorder.count);
+			Arrays.sort(latencies);
+			this.statuses = recorder.statuses;
+			this.duration = duration;
+		}
+
+		int requests() {
+			return latencies.length;
+		}
+
+		double throughput() {
+			return latencies.length / (duration.toNanos() / 1e9);
+		}
+
+		/**
+		 * Latency percentile, with the nearest-rank method.
+		 * @param percentile Percentile, between 0 and 100.
+		 * @return Latency in nanoseconds, 0 if no request was measured.
+		 */
+		long percentile(double percentile) {
+			if (latencies.length == 0)
+				return 0;
+			final int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+			return latencies[Math.max(rank, 1) - 1];
+		}
+
+		void print(Consumer<String> out) {
+			out.accept(String.format("Requests: %d, throughput: %.1f req/s", requests(), throughput()));
+			out.accept(String.format("Latency (ms): p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f",
+					millis(percentile(50)), millis(percentile(90)), millis(percentile(99)),
+					millis(percentile(99.9)), millis(percentile(100))));
+			out.accept("Status codes (-1 for I/O errors): " + statuses);
+		}
+
+		private static double millis(long nanos) {
+			return nanos / 1e6;
+		}
+
+	}
+
+}
@@ -0,0 +1,175 @@
+package example.weatherwebapp.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in of the OpenWeatherMap APIs used by the webapp, for load tests.
+ * <p>
+ * {@code /data/2.5/forecast} always answers with the forecast fixture. {@code /geo/1.0/direct} answers with the
+ * geocoding fixture, renamed after the requested city and moved to coordinates derived from its name,
+ * so that distinct cities do not share cached forecasts. Cities whose name starts with {@code unknown} are not found.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>{@code --port} (default {@code 8089});</li>
+ * <li>{@code --latency}: mean injected latency (default {@code 50ms});</li>
+ * <li>{@code --latency-jitter}: the latency is uniformly distributed within the mean plus or minus the jitter
+ * (default {@code 20ms});</li>
+ * <li>{@code --error-rate}: fraction of the requests answered with {@code 500} (default {@code 0});</li>
+ * <li>{@code --forecast-fixture} and {@code --geocoding-fixture}: classpath resources, or files if prefixed with
+ * {@code file:}.</li>
+ * </ul>
+ */
+public final class OpenWeatherMapStubServer {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private static final byte[] ERROR_BODY = "{\"cod\":\"500\",\"message\":\"injected error\"}"
+			.getBytes(StandardCharsets.UTF_8);
+
+	private final byte[] forecastFixture;
+
+	private final ObjectNode geocodingFixture;
+
+	private final Duration latency;
+
+	private final Duration latencyJitter;
+
+	private final double errorRate;
+
+	private final AtomicLong forecastRequests = new AtomicLong();
+
+	private final AtomicLong geocodingRequests = new AtomicLong();
+
+	private final AtomicLong injectedErrors = new AtomicLong();
+
+	OpenWeatherMapStubServer(byte[] forecastFixture, ObjectNode geocodingFixture, Duration latency,
+			Duration latencyJitter, double errorRate) {
+		this.forecastFixture = forecastFixture;
+		this.geocodingFixture = geocodingFixture;
+		this.latency = latency;
+		this.latencyJitter = latencyJitter;
+		this.errorRate = errorRate;
+	}
+
+	public static void main(String[] args) throws IOException {
+		final var options = new Options(args);
+		final int port = options.getInt("port", 8089);
+		final var geocodingFixture = (ArrayNode) OBJECT_MAPPER
+				.readTree(fixture(options.get("geocoding-fixture", "/fixtures/geocoding.json")));
+		final var stub = new OpenWeatherMapStubServer(
+				fixture(options.get("forecast-fixture", "/static/sample-weather-forecast.json")),
+				(ObjectNode) geocodingFixture.get(0),
+				options.getDuration("latency", Duration.ofMillis(50)),
+				options.getDuration("latency-jitter", Duration.ofMillis(20)),
+				options.getDouble("error-rate", 0));
+
+		final var server = HttpServer.create(new InetSocketAddress(port), 1024);
+		server.createContext("/data/2.5/forecast", stub::forecast);
+		server.createContext("/geo/1.0/direct", stub::geocoding);
+		// the injected latency blocks a thread per request
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop(0);
+			System.out.printf("Served %d forecast and %d geocoding requests, %d injected errors%n",
+					stub.forecastRequests.get(), stub.geocodingRequests.get(), stub.injectedErrors.get());
+		}));
+		System.out.printf("OpenWeatherMap stub listening on http://localhost:%d (latency %s +/- %s, error rate %s)%n",
+				port, stub.latency, stub.latencyJitter, stub.errorRate);
+	}
+
+	private static byte[] fixture(String location) throws IOException {
+		if (location.startsWith("file:"))
+			return Files.readAllBytes(Path.of(location.substring("file:".length())));
+
+		try (InputStream in = OpenWeatherMapStubServer.class.getResourceAsStream(location)) {
+			if (in == null)
+				throw new IOException("Fixture not found: " + location);
+			return in.readAllBytes();
+		}
+	}
+
+	private void forecast(HttpExchange exchange) throws IOException {
+		forecastRequests.incrementAndGet();
+		respond(exchange, forecastFixture);
+	}
+
+	private void geocoding(HttpExchange exchange) throws IOException {
+		geocodingRequests.incrementAndGet();
+
+		final var city = queryParameter(exchange, "q");
+		final var cities = OBJECT_MAPPER.createArrayNode();
+		if (city != null && !city.toLowerCase(Locale.ROOT).startsWith("unknown")) {
+			// spread the cities over the globe, deterministically
+			final int hash = city.hashCode();
+			cities.add(geocodingFixture.deepCopy()
+					.put("name", city)
+					.put("lat", Math.floorMod(hash, 17_000) / 100.0 - 85)
+					.put("lon", Math.floorMod(hash >>> 8, 36_000) / 100.0 - 180));
+		}
+		respond(exchange, OBJECT_MAPPER.writeValueAsBytes(cities));
+	}
+
+	private void respond(HttpExchange exchange, byte[] body) throws IOException {
+		try (exchange) {
+			final var random = ThreadLocalRandom.current();
+			final long jitterNanos = latencyJitter.toNanos();
+			final long delayNanos = latency.toNanos()
+					+ (jitterNanos > 0 ? random.nextLong(-jitterNanos, jitterNanos + 1) : 0);
+			if (delayNanos > 0)
+				sleep(delayNanos);
+
+			final boolean error = random.nextDouble() < errorRate;
+			if (error) {
+				injectedErrors.incrementAndGet();
+				body = ERROR_BODY;
+			}
+
+			exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+			exchange.sendResponseHeaders(error ? 500 : 200, body.length);
+			exchange.getResponseBody().write(body);
+		}
+	}
+
+	private static String queryParameter(HttpExchange exchange, String name) {
+		final var query = exchange.getRequestURI().getRawQuery();
+		if (query == null)
+			return null;
+
+		for (final var parameter : query.split("&")) {
+			final int separator = parameter.indexOf('=');
+			if (separator > 0 && parameter.substring(0, separator).equals(name))
+				return URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8);
+		}
+		return null;
+	}
+
+	private static void sleep(long nanos) {
+		try {
+			Thread.sleep(Duration.ofNanos(nanos).toMillis());
+		} catch (InterruptedException e) {
+			// the server is stopping: answer without the remaining latency
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package example.weatherwebapp.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Command line options in the {@code --name=value} form.
+ */
+final class Options {
+
+	private final Map<String, String> values = new HashMap<>();
+
+	Options(String[] args) {
+		for (final var arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("="))
+				throw new IllegalArgumentException("Options must be in the --name=value form: " + arg);
+			final int separator = arg.indexOf('=');
+			values.put(arg.substring(2, separator), arg.substring(separator + 1));
+		}
+	}
+
+	String get(String name, String defaultValue) {
+		return values.getOrDefault(name, defaultValue);
+	}
+
+	int getInt(String name, int defaultValue) {
+		return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+	}
+
+	double getDouble(String name, double defaultValue) {
+		return values.containsKey(name) ? Double.parseDouble(values.get(name)) : defaultValue;
+	}
+
+	long getLong(String name, long defaultValue) {
+		return values.containsKey(name) ? Long.parseLong(values.get(name)) : defaultValue;
+	}
+
+	/**
+	 * Get a duration in the Spring Boot format, e.g. {@code 30s} or {@code 250ms}.
+	 */
+	Duration getDuration(String name, Duration defaultValue) {
+		return values.containsKey(name) ? DurationStyle.detectAndParse(values.get(name)) : defaultValue;
+	}
+
+}
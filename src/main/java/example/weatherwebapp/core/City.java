@@ -1,7 +1,33 @@
 package example.weatherwebapp.core;
 
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * City value object
+ *
+ * @param coordinates Coordinates of the city.
+ * @param displayName Name to display to the users.
+ * @param name        Name of the city, may be null.
+ * @param country     Country code of the city, may be null.
+ * @param state       State (or region) of the city, may be null.
+ * @param localNames  Names of the city by language code; not part of the API responses.
  */
-public record City(Coordinates coordinates, String displayName) {
-}
\ No newline at end of file
+public record City(Coordinates coordinates, String displayName, String name, String country, String state,
+		@JsonIgnore Map<String, String> localNames) {
+
+	public City {
+		localNames = localNames == null ? Map.of() : Map.copyOf(localNames);
+	}
+
+	/**
+	 * Create a city with only its coordinates and display name.
+	 * @param coordinates Coordinates of the city.
+	 * @param displayName Name to display to the users.
+	 */
+	public City(Coordinates coordinates, String displayName) {
+		this(coordinates, displayName, null, null, null, Map.of());
+	}
+
+}
@@ -1,5 +1,9 @@
 package example.weatherwebapp.core;
 
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 import example.weatherwebapp.shared.Either;
 
 /**
@@ -7,6 +11,8 @@ import example.weatherwebapp.shared.Either;
  */
 public record CityName(String cityName) {
 
+	private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
 	/**
 	 * Create the value object.
 	 * Throws if invalid name. Use {@link CityName.tryCreate} to handle failures.
@@ -33,4 +39,15 @@ public record CityName(String cityName) {
 		return Either.right(new CityName(city.trim()));
 	}
 
+	/**
+	 * Normalized form of the city name, suitable as a lookup key.
+	 * Names differing only by surrounding or repeated whitespaces, letter case or Unicode composition
+	 * (e.g. "  VICENZA" and "vicenza") share the same normalized form.
+	 * @return Normalized city name.
+	 */
+	public String normalized() {
+		final var composed = Normalizer.normalize(cityName.strip(), Normalizer.Form.NFKC);
+		return WHITESPACES.matcher(composed).replaceAll(" ").toLowerCase(Locale.ROOT);
+	}
+
 }
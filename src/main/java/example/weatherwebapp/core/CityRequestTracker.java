@@ -0,0 +1,12 @@
+package example.weatherwebapp.core;
+
+/**
+ * Tracks which cities the users request forecasts for.
+ */
+public interface CityRequestTracker {
+	/**
+	 * Record a forecast request for a city.
+	 * @param city City the forecasts were requested for.
+	 */
+	void record(City city);
+}
@@ -0,0 +1,12 @@
+package example.weatherwebapp.core;
+
+/**
+ * City suggested while the user types its name.
+ *
+ * @param name        Name of the city.
+ * @param displayName Name to display to the users.
+ * @param country     Country code of the city, may be null.
+ * @param population  Population of the city, 0 if unknown.
+ */
+public record CitySuggestion(String name, String displayName, String country, long population) {
+}
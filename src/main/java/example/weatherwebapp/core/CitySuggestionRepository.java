@@ -0,0 +1,16 @@
+package example.weatherwebapp.core;
+
+import java.util.List;
+
+/**
+ * Repository interface to suggest cities from the first letters of their name.
+ */
+public interface CitySuggestionRepository {
+	/**
+	 * Get the cities whose name (or local name) starts with the prefix, most populated first.
+	 * @param normalizedPrefix Normalized prefix (see {@link CityName#normalized()}).
+	 * @param limit Maximum number of suggestions.
+	 * @return Suggested cities.
+	 */
+	List<CitySuggestion> suggest(String normalizedPrefix, int limit);
+}
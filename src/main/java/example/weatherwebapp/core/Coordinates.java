@@ -1,7 +1,57 @@
 package example.weatherwebapp.core;
 
+import example.weatherwebapp.shared.Either;
+
 /**
  * Record for latitude and longitude
  */
 public record Coordinates(double latitude, double longitude) {
-}
\ No newline at end of file
+
+	/**
+	 * Mean radius of the Earth, in kilometers.
+	 */
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+
+	/**
+	 * Create coordinates if they are on the Earth, or return a left Either otherwise.
+	 * @param latitude  Latitude, between -90 and 90 degrees.
+	 * @param longitude Longitude, between -180 and 180 degrees.
+	 * @return Either with a failure reason or the coordinates.
+	 */
+	public static Either<String, Coordinates> tryCreate(double latitude, double longitude) {
+		if (!(latitude >= -90 && latitude <= 90)) return Either.left("latitude");
+		if (!(longitude >= -180 && longitude <= 180)) return Either.left("longitude");
+
+		return Either.right(new Coordinates(latitude, longitude));
+	}
+
+	/**
+	 * Great-circle distance to other coordinates (haversine formula).
+	 * @param other Other coordinates.
+	 * @return Distance in kilometers.
+	 */
+	public double distanceKm(Coordinates other) {
+		final double deltaLatitude = Math.toRadians(other.latitude - latitude);
+		final double deltaLongitude = Math.toRadians(other.longitude - longitude);
+		final double a = Math.pow(Math.sin(deltaLatitude / 2), 2) + Math.cos(Math.toRadians(latitude))
+				* Math.cos(Math.toRadians(other.latitude)) * Math.pow(Math.sin(deltaLongitude / 2), 2);
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	/**
+	 * Snap the coordinates to the closest point of a grid, so that nearby coordinates share the same value.
+	 * @param gridStep Distance between the grid points, in degrees (e.g. 0.01).
+	 * @return Snapped coordinates.
+	 */
+	public Coordinates snapToGrid(double gridStep) {
+		if (!(gridStep > 0)) {
+			throw new IllegalArgumentException("Grid step must be positive.");
+		}
+		return new Coordinates(snap(latitude, gridStep), snap(longitude, gridStep));
+	}
+
+	private static double snap(double value, double gridStep) {
+		return Math.round(value / gridStep) * gridStep;
+	}
+
+}
@@ -0,0 +1,120 @@
+package example.weatherwebapp.core;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aggregates forecasts into daily summaries, in the local time of the place.
+ * <p>
+ * Forecasts are aggregated in a single pass over the columns of the series, without creating the forecasts:
+ * temperatures are accumulated until the day changes, and the weather conditions are counted in a small array
+ * indexed by the OpenWeatherMap icon code (the two digits of e.g. {@code 10d}).
+ */
+public final class DailyAggregation {
+
+	private static final long SECONDS_PER_DAY = 86_400;
+
+	private static final int ICON_CODES = 100;
+
+	/**
+	 * Local days spanned by the 5 days of 3-hour forecasts of OpenWeatherMap: the first and the last are partial.
+	 */
+	private static final int FORECAST_SPAN_DAYS = 6;
+
+	private static final String[] DAY_ICONS = new String[ICON_CODES];
+
+	static {
+		for (int code = 0; code < ICON_CODES; code++) {
+			DAY_ICONS[code] = String.format("%02dd", code);
+		}
+	}
+
+	private DailyAggregation() {
+	}
+
+	/**
+	 * Summarize the forecasts of the first days.
+	 * The dominant weather of a day is the most frequent one; in case of tie, the one with the highest
+	 * icon code, i.e. the most significant (e.g. rain over clouds). Its day icon is used, even for nights.
+	 *
+	 * @param forecasts Forecasts, the UTC offset of the series defining the days.
+	 * @param days      Maximum number of days, the current one included.
+	 * @return Daily summaries, at most {@code days}.
+	 */
+	public static List<DailyForecast> aggregate(ForecastSeries forecasts, int days) {
+		final List<DailyForecast> summaries = new ArrayList<>(Math.max(0, Math.min(days, FORECAST_SPAN_DAYS)));
+		if (days <= 0)
+			return summaries;
+
+		final int[] iconCounts = new int[ICON_CODES];
+		final String[] iconDescriptions = new String[ICON_CODES];
+		final long offsetSeconds = forecasts.utcOffset().getTotalSeconds();
+
+		long currentDay = 0;
+		int count = 0;
+		double min = 0;
+		double max = 0;
+		double sum = 0;
+
+		for (int i = 0; i < forecasts.size(); i++) {
+			final long day = Math.floorDiv(forecasts.epochSecond(i) + offsetSeconds, SECONDS_PER_DAY);
+
+			if (count > 0 && day != currentDay) {
+				summaries.add(summary(currentDay, min, max, sum, count, iconCounts, iconDescriptions));
+				if (summaries.size() == days)
+					return summaries;
+
+				count = 0;
+				Arrays.fill(iconCounts, 0);
+				Arrays.fill(iconDescriptions, null);
+			}
+
+			final double temperature = forecasts.temperature(i);
+			if (count == 0) {
+				currentDay = day;
+				min = temperature;
+				max = temperature;
+				sum = 0;
+			}
+			min = Math.min(min, temperature);
+			max = Math.max(max, temperature);
+			sum += temperature;
+			count++;
+
+			final int code = iconCode(forecasts.weatherIcon(i));
+			if (code >= 0) {
+				if (iconCounts[code]++ == 0)
+					iconDescriptions[code] = forecasts.weatherDescription(i);
+			}
+		}
+
+		if (count > 0)
+			summaries.add(summary(currentDay, min, max, sum, count, iconCounts, iconDescriptions));
+		return summaries;
+	}
+
+	private static DailyForecast summary(long day, double min, double max, double sum, int count, int[] iconCounts,
+			String[] iconDescriptions) {
+		int dominant = -1;
+		for (int code = 0; code < ICON_CODES; code++) {
+			if (iconCounts[code] > 0 && (dominant < 0 || iconCounts[code] >= iconCounts[dominant]))
+				dominant = code;
+		}
+
+		return new DailyForecast(LocalDate.ofEpochDay(day), min, max, Math.round(sum / count * 100) / 100.0,
+				dominant < 0 ? null : DAY_ICONS[dominant],
+				dominant < 0 ? null : iconDescriptions[dominant]);
+	}
+
+	private static int iconCode(String icon) {
+		if (icon == null || icon.length() < 2)
+			return -1;
+
+		final int tens = Character.digit(icon.charAt(0), 10);
+		final int units = Character.digit(icon.charAt(1), 10);
+		return tens < 0 || units < 0 ? -1 : tens * 10 + units;
+	}
+
+}
@@ -0,0 +1,17 @@
+package example.weatherwebapp.core;
+
+import java.time.LocalDate;
+
+/**
+ * Summary of the forecasts of a day.
+ * 
+ * @param date               Day, in the local time of the place.
+ * @param minTemperature     Minimum forecasted temperature.
+ * @param maxTemperature     Maximum forecasted temperature.
+ * @param meanTemperature    Mean of the forecasted temperatures.
+ * @param weatherIcon        Icon of the dominant weather of the day.
+ * @param weatherDescription Description of the dominant weather of the day.
+ */
+public record DailyForecast(LocalDate date, double minTemperature, double maxTemperature, double meanTemperature,
+		String weatherIcon, String weatherDescription) {
+}
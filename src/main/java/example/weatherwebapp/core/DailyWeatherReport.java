@@ -0,0 +1,38 @@
+package example.weatherwebapp.core;
+
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Daily summaries of the forecasts of a city.
+ */
+public class DailyWeatherReport {
+	private final List<DailyForecast> days;
+
+	private final City city;
+
+	private final ZoneOffset utcOffset;
+
+	public DailyWeatherReport(List<DailyForecast> days, City city, ZoneOffset utcOffset) {
+		this.days = days;
+		this.city = city;
+		this.utcOffset = utcOffset;
+	}
+
+	public List<DailyForecast> getDays() {
+		return days;
+	}
+
+	public City getCity() {
+		return city;
+	}
+
+	/**
+	 * UTC offset the days are computed in.
+	 * @return UTC offset of the city.
+	 */
+	public ZoneOffset getUtcOffset() {
+		return utcOffset;
+	}
+
+}
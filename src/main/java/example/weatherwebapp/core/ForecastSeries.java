@@ -0,0 +1,401 @@
+package example.weatherwebapp.core;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of the forecasts of a place, ordered by time, knowing the UTC offset of the place.
+ * <p>
+ * Forecasts are stored by columns of primitives rather than as objects, as series are kept by the
+ * thousands in the caches: decimal measures are stored in hundredths (the precision of upstream), and
+ * the weather conditions as codes in a table of the distinct, interned, conditions of the series.
+ * {@link #get(int)} creates a view of a forecast; the columns can also be read directly.
+ * <p>
+ * Repositories may return a plain list instead: the place is then assumed to be in UTC.
+ */
+public final class ForecastSeries extends AbstractList<WeatherForecast> implements RandomAccess {
+
+	private static final double HUNDREDTHS = 100.0;
+
+	/**
+	 * Maximum number of distinct weather conditions in a series, as they are coded on a byte.
+	 */
+	private static final int MAXIMUM_CONDITIONS = 256;
+
+	private final long[] epochSeconds;
+
+	private final int[] temperatures;
+
+	private final int[] feelsLikeTemperatures;
+
+	private final short[] humidities;
+
+	private final int[] windSpeeds;
+
+	private final short[] windDirections;
+
+	private final int[] windGusts;
+
+	private final short[] cloudiness;
+
+	private final int[] precipitations;
+
+	private final short[] visibilities;
+
+	private final byte[] conditionCodes;
+
+	private final WeatherCondition[] conditions;
+
+	private final ZoneOffset utcOffset;
+
+	/**
+	 * Create the series.
+	 *
+	 * @param forecasts Forecasts, ordered by time.
+	 * @param utcOffset UTC offset of the place.
+	 */
+	public ForecastSeries(List<WeatherForecast> forecasts, ZoneOffset utcOffset) {
+		this(builder(forecasts.size()).addAll(forecasts), utcOffset);
+	}
+
+	private ForecastSeries(Builder builder, ZoneOffset utcOffset) {
+		final int size = builder.size;
+		this.epochSeconds = Arrays.copyOf(builder.epochSeconds, size);
+		this.temperatures = Arrays.copyOf(builder.temperatures, size);
+		this.feelsLikeTemperatures = Arrays.copyOf(builder.feelsLikeTemperatures, size);
+		this.humidities = Arrays.copyOf(builder.humidities, size);
+		this.windSpeeds = Arrays.copyOf(builder.windSpeeds, size);
+		this.windDirections = Arrays.copyOf(builder.windDirections, size);
+		this.windGusts = Arrays.copyOf(builder.windGusts, size);
+		this.cloudiness = Arrays.copyOf(builder.cloudiness, size);
+		this.precipitations = Arrays.copyOf(builder.precipitations, size);
+		this.visibilities = Arrays.copyOf(builder.visibilities, size);
+		this.conditionCodes = Arrays.copyOf(builder.conditionCodes, size);
+		this.conditions = builder.conditions.toArray(WeatherCondition[]::new);
+		this.utcOffset = Objects.requireNonNull(utcOffset, "UTC offset was null.");
+	}
+
+	/**
+	 * Create a builder of series.
+	 * @param capacity Expected number of forecasts.
+	 * @return Builder.
+	 */
+	public static Builder builder(int capacity) {
+		return new Builder(capacity);
+	}
+
+	/**
+	 * Get a list of forecasts as a series.
+	 * @param forecasts Forecasts, ordered by time.
+	 * @return The series itself, or a series in UTC for any other list.
+	 */
+	public static ForecastSeries of(List<WeatherForecast> forecasts) {
+		return forecasts instanceof ForecastSeries series ? series : new ForecastSeries(forecasts, ZoneOffset.UTC);
+	}
+
+	@Override
+	public WeatherForecast get(int index) {
+		Objects.checkIndex(index, epochSeconds.length);
+		final var condition = conditions[Byte.toUnsignedInt(conditionCodes[index])];
+		return new WeatherForecast(Instant.ofEpochSecond(epochSeconds[index]),
+				temperatures[index] / HUNDREDTHS,
+				feelsLikeTemperatures[index] / HUNDREDTHS,
+				humidities[index],
+				windSpeeds[index] / HUNDREDTHS,
+				windDirections[index],
+				windGusts[index] / HUNDREDTHS,
+				cloudiness[index],
+				precipitations[index] / HUNDREDTHS,
+				visibilities[index],
+				condition.icon(),
+				condition.description());
+	}
+
+	@Override
+	public int size() {
+		return epochSeconds.length;
+	}
+
+	/**
+	 * UTC offset of the place, at the time the forecasts were published.
+	 * @return UTC offset.
+	 */
+	public ZoneOffset utcOffset() {
+		return utcOffset;
+	}
+
+	/**
+	 * Timestamp of a forecast, without creating its view.
+	 * @param index Index of the forecast.
+	 * @return Seconds since the epoch.
+	 */
+	public long epochSecond(int index) {
+		return epochSeconds[index];
+	}
+
+	/**
+	 * Average temperature of a forecast, without creating its view.
+	 * @param index Index of the forecast.
+	 * @return Average temperature.
+	 */
+	public double temperature(int index) {
+		return temperatures[index] / HUNDREDTHS;
+	}
+
+	// the columns as stored, e.g. to encode the series without creating the views of the forecasts
+
+	/**
+	 * Average temperature of a forecast, in hundredths, as stored.
+	 * @param index Index of the forecast.
+	 * @return Average temperature, in hundredths.
+	 */
+	public int temperatureHundredths(int index) {
+		return temperatures[index];
+	}
+
+	/**
+	 * Perceived temperature of a forecast, in hundredths, as stored.
+	 * @param index Index of the forecast.
+	 * @return Perceived temperature, in hundredths.
+	 */
+	public int feelsLikeTemperatureHundredths(int index) {
+		return feelsLikeTemperatures[index];
+	}
+
+	/**
+	 * Humidity of a forecast, as stored.
+	 * @param index Index of the forecast.
+	 * @return Humidity.
+	 */
+	public int humidity(int index) {
+		return humidities[index];
+	}
+
+	/**
+	 * Wind speed of a forecast, in hundredths, as stored.
+	 * @param index Index of the forecast.
+	 * @return Wind speed, in hundredths.
+	 */
+	public int windSpeedHundredths(int index) {
+		return windSpeeds[index];
+	}
+
+	/**
+	 * Wind direction of a forecast, as stored.
+	 * @param index Index of the forecast.
+	 * @return Wind direction.
+	 */
+	public int windDirection(int index) {
+		return windDirections[index];
+	}
+
+	/**
+	 * Wind gust of a forecast, in hundredths, as stored.
+	 * @param index Index of the forecast.
+	 * @return Wind gust, in hundredths.
+	 */
+	public int windGustHundredths(int index) {
+		return windGusts[index];
+	}
+
+	/**
+	 * Cloudiness of a forecast, as stored.
+	 * @param index Index of the forecast.
+	 * @return Cloudiness.
+	 */
+	public int cloudiness(int index) {
+		return cloudiness[index];
+	}
+
+	/**
+	 * Precipitation of a forecast, in hundredths, as stored.
+	 * @param index Index of the forecast.
+	 * @return Precipitation, in hundredths.
+	 */
+	public int precipitationHundredths(int index) {
+		return precipitations[index];
+	}
+
+	/**
+	 * Visibility of a forecast, as stored.
+	 * @param index Index of the forecast.
+	 * @return Visibility.
+	 */
+	public int visibility(int index) {
+		return visibilities[index];
+	}
+
+	/**
+	 * Weather icon of a forecast, without creating its view.
+	 * @param index Index of the forecast.
+	 * @return Icon of the weather.
+	 */
+	public String weatherIcon(int index) {
+		return conditions[Byte.toUnsignedInt(conditionCodes[index])].icon();
+	}
+
+	/**
+	 * Weather description of a forecast, without creating its view.
+	 * @param index Index of the forecast.
+	 * @return Description of the weather.
+	 */
+	public String weatherDescription(int index) {
+		return conditions[Byte.toUnsignedInt(conditionCodes[index])].description();
+	}
+
+	private static int hundredths(double value) {
+		return (int) Math.round(value * HUNDREDTHS);
+	}
+
+	private static short clampToShort(int value) {
+		return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+	}
+
+	/**
+	 * Builder of series, adding the forecasts column by column without creating them.
+	 */
+	public static final class Builder {
+
+		private int size;
+
+		private long[] epochSeconds;
+
+		private int[] temperatures;
+
+		private int[] feelsLikeTemperatures;
+
+		private short[] humidities;
+
+		private int[] windSpeeds;
+
+		private short[] windDirections;
+
+		private int[] windGusts;
+
+		private short[] cloudiness;
+
+		private int[] precipitations;
+
+		private short[] visibilities;
+
+		private byte[] conditionCodes;
+
+		private final List<WeatherCondition> conditions = new ArrayList<>();
+
+		private Builder(int capacity) {
+			final int length = Math.max(capacity, 1);
+			epochSeconds = new long[length];
+			temperatures = new int[length];
+			feelsLikeTemperatures = new int[length];
+			humidities = new short[length];
+			windSpeeds = new int[length];
+			windDirections = new short[length];
+			windGusts = new int[length];
+			cloudiness = new short[length];
+			precipitations = new int[length];
+			visibilities = new short[length];
+			conditionCodes = new byte[length];
+		}
+
+		/**
+		 * Add a forecast, with the same values as {@link WeatherForecast}.
+		 * @return This builder.
+		 * @throws IllegalStateException Thrown if the series has too many distinct weather conditions.
+		 */
+		public Builder add(long epochSecond, double avgTemperature, double feelsLikeTemperature, int humidity,
+				double windSpeed, int windDirection, double windGust, int cloudiness, double precipitation,
+				int visibility, String weatherIcon, String weatherDescription) {
+			return addStored(epochSecond, hundredths(avgTemperature), hundredths(feelsLikeTemperature), humidity,
+					hundredths(windSpeed), windDirection, hundredths(windGust), cloudiness, hundredths(precipitation),
+					visibility, weatherIcon, weatherDescription);
+		}
+
+		/**
+		 * Add a forecast with its decimal measures in hundredths, as read from the series, e.g. when decoding.
+		 * @return This builder.
+		 * @throws IllegalStateException Thrown if the series has too many distinct weather conditions.
+		 */
+		public Builder addStored(long epochSecond, int avgTemperature, int feelsLikeTemperature, int humidity,
+				int windSpeed, int windDirection, int windGust, int cloudiness, int precipitation, int visibility,
+				String weatherIcon, String weatherDescription) {
+			if (size == epochSeconds.length)
+				grow();
+
+			epochSeconds[size] = epochSecond;
+			temperatures[size] = avgTemperature;
+			feelsLikeTemperatures[size] = feelsLikeTemperature;
+			humidities[size] = clampToShort(humidity);
+			windSpeeds[size] = windSpeed;
+			windDirections[size] = clampToShort(windDirection);
+			windGusts[size] = windGust;
+			this.cloudiness[size] = clampToShort(cloudiness);
+			precipitations[size] = precipitation;
+			visibilities[size] = clampToShort(visibility);
+			conditionCodes[size] = (byte) conditionCode(weatherIcon, weatherDescription);
+			size++;
+			return this;
+		}
+
+		/**
+		 * Add forecasts.
+		 * @param forecasts Forecasts, ordered by time.
+		 * @return This builder.
+		 */
+		public Builder addAll(List<WeatherForecast> forecasts) {
+			for (final var forecast : forecasts) {
+				add(forecast.getTimestamp().getEpochSecond(), forecast.getAvgTemperature(),
+						forecast.getFeelsLikeTemperature(), forecast.getHumidity(), forecast.getWindSpeed(),
+						forecast.getWindDirection(), forecast.getWindGust(), forecast.getCloudiness(),
+						forecast.getPrecipitation(), forecast.getVisibility(), forecast.getWeatherIcon(),
+						forecast.getWeatherDescription());
+			}
+			return this;
+		}
+
+		/**
+		 * Build the series.
+		 * @param utcOffset UTC offset of the place.
+		 * @return Series of the forecasts added so far.
+		 */
+		public ForecastSeries build(ZoneOffset utcOffset) {
+			return new ForecastSeries(this, utcOffset);
+		}
+
+		private int conditionCode(String icon, String description) {
+			// a series has a handful of conditions: a linear search is enough
+			for (int code = 0; code < conditions.size(); code++) {
+				final var condition = conditions.get(code);
+				if (Objects.equals(condition.icon(), icon) && Objects.equals(condition.description(), description))
+					return code;
+			}
+			if (conditions.size() == MAXIMUM_CONDITIONS)
+				throw new IllegalStateException("More than " + MAXIMUM_CONDITIONS + " weather conditions in a series");
+
+			conditions.add(WeatherCondition.of(icon, description));
+			return conditions.size() - 1;
+		}
+
+		private void grow() {
+			final int length = epochSeconds.length * 2;
+			epochSeconds = Arrays.copyOf(epochSeconds, length);
+			temperatures = Arrays.copyOf(temperatures, length);
+			feelsLikeTemperatures = Arrays.copyOf(feelsLikeTemperatures, length);
+			humidities = Arrays.copyOf(humidities, length);
+			windSpeeds = Arrays.copyOf(windSpeeds, length);
+			windDirections = Arrays.copyOf(windDirections, length);
+			windGusts = Arrays.copyOf(windGusts, length);
+			cloudiness = Arrays.copyOf(cloudiness, length);
+			precipitations = Arrays.copyOf(precipitations, length);
+			visibilities = Arrays.copyOf(visibilities, length);
+			conditionCodes = Arrays.copyOf(conditionCodes, length);
+		}
+
+	}
+
+}
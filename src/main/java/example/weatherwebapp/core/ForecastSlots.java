@@ -0,0 +1,42 @@
+package example.weatherwebapp.core;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Forecasts are published in fixed 3-hour slots, aligned to midnight UTC.
+ */
+public final class ForecastSlots {
+
+	/**
+	 * Duration of a forecast slot.
+	 */
+	public static final Duration SLOT_DURATION = Duration.ofHours(3);
+
+	private ForecastSlots() {
+	}
+
+	/**
+	 * Get the start of the first slot after the given instant.
+	 * @param instant Instant.
+	 * @return Next slot boundary, always after the instant.
+	 */
+	public static Instant nextBoundary(Instant instant) {
+		final long slotSeconds = SLOT_DURATION.toSeconds();
+		final long currentSlot = Math.floorDiv(instant.getEpochSecond(), slotSeconds);
+		return Instant.ofEpochSecond((currentSlot + 1) * slotSeconds);
+	}
+
+	/**
+	 * Get the first instant after the given one when the forecasts of a new slot are available,
+	 * i.e. the next slot boundary plus the delay the upstream takes to publish them.
+	 * @param instant          Instant.
+	 * @param publicationDelay Delay between a slot boundary and the publication of its forecasts.
+	 * @return Next publication instant, always after the instant.
+	 */
+	public static Instant nextPublication(Instant instant, Duration publicationDelay) {
+		// until the delay has passed, the upstream may still serve the previous slot
+		return nextBoundary(instant.minus(publicationDelay)).plus(publicationDelay);
+	}
+
+}
@@ -0,0 +1,16 @@
+package example.weatherwebapp.core;
+
+/**
+ * Thrown by a {@link WeatherForecastRepository} when the forecasts can not be fetched for now,
+ * e.g. because the upstream is down or overloaded, as opposed to an unexpected error.
+ * Callers may try again later.
+ */
+public class ForecastsUnavailableException extends UpstreamUnavailableException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ForecastsUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -1,37 +1,56 @@
 package example.weatherwebapp.core;
 
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.ZoneOffset;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 
-import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import example.weatherwebapp.shared.Either;
 
-@Component
 public class GetWeatherForecastUseCase {
-	private static final int DEFAULT_FORECAST_DAYS = 5;
+	private static final Logger LOGGER = LoggerFactory.getLogger(GetWeatherForecastUseCase.class);
+
+	/**
+	 * Number of days forecasted when not specified.
+	 */
+	public static final int DEFAULT_FORECAST_DAYS = 5;
 
 	private final WeatherForecastRepository weatherForecastRepository;
 
 	private final CityGeocodingRepository cityGeocodingRepository;
 
+	private final CityRequestTracker cityRequestTracker;
+
+	private final NearestCityRepository nearestCityRepository;
+
+	private final double gridStep;
+
 	/**
 	 * Create the use case.
 	 * 
 	 * @param weatherForecastRepository Repository of the weather forecasts.
 	 * @param cityCoordinatesRepository Repository of the city to coordinates
 	 *                                  mapping.
+	 * @param cityRequestTracker        Tracker of the requested cities.
+	 * @param nearestCityRepository     Repository of the cities nearest to some coordinates.
+	 * @param gridStep                  Grid step (in degrees) the coordinates far from any city are snapped to,
+	 *                                  the one of the forecast cache.
 	 */
 	public GetWeatherForecastUseCase(
 			WeatherForecastRepository weatherForecastRepository,
-			CityGeocodingRepository cityCoordinatesRepository) {
+			CityGeocodingRepository cityCoordinatesRepository,
+			CityRequestTracker cityRequestTracker,
+			NearestCityRepository nearestCityRepository,
+			double gridStep) {
+		if (!(gridStep > 0))
+			throw new IllegalArgumentException("Grid step must be positive.");
 		this.weatherForecastRepository = weatherForecastRepository;
 		this.cityGeocodingRepository = cityCoordinatesRepository;
+		this.cityRequestTracker = cityRequestTracker;
+		this.nearestCityRepository = nearestCityRepository;
+		this.gridStep = gridStep;
 	}
 
 	/**
@@ -43,49 +62,78 @@ public class GetWeatherForecastUseCase {
 	public Either<FailureCause, WeatherReport> get(CityName cityName, Integer forecastDays) {
 		Objects.requireNonNull(cityName, "City was null.");
 		
-		final var maybeCity = cityGeocodingRepository.getCity(cityName);
+		final Optional<City> maybeCity;
+		try {
+			maybeCity = cityGeocodingRepository.getCity(cityName);
+		} catch (UpstreamUnavailableException e) {
+			LOGGER.warn("City {} unavailable: {}", cityName.cityName(), e.getMessage());
+			return Either.left(FailureCause.UPSTREAM_UNAVAILABLE);
+		} catch (Exception e) {
+			LOGGER.error("Could not geocode the city {}", cityName.cityName(), e);
+			return Either.left(FailureCause.INTERNAL_ERROR);
+		}
 
 		if (maybeCity.isEmpty()) return Either.left(FailureCause.CITY_NOT_FOUND);
 
-		final var city = maybeCity.orElseThrow();
+		return report(maybeCity.orElseThrow(), forecastDays);
+	}
+
+	/**
+	 * Get the weather forecasts of some coordinates, without geocoding.
+	 * When a known city is close enough, the report is the one of that city, sharing its cached forecasts;
+	 * otherwise the forecasts are the ones of the coordinates snapped to the grid of the forecast cache,
+	 * and so is the name of the report: nearby GPS fixes share the same report.
+	 * @param coordinates Coordinates, e.g. from the GPS of the user.
+	 * @param forecastDays Number of days to forecast.
+	 * @return Either with a failure cause or a list of forecasts.
+	 */
+	public Either<FailureCause, WeatherReport> getAt(Coordinates coordinates, Integer forecastDays) {
+		Objects.requireNonNull(coordinates, "Coordinates were null.");
+
+		final var city = nearestCityRepository.findNearest(coordinates).orElseGet(() -> {
+			final var snapped = coordinates.snapToGrid(gridStep);
+			return new City(snapped,
+					String.format(Locale.ROOT, "%.4f, %.4f", snapped.latitude(), snapped.longitude()));
+		});
+		return report(city, forecastDays);
+	}
+
+	private Either<FailureCause, WeatherReport> report(City city, Integer forecastDays) {
+		cityRequestTracker.record(city);
 	
-		final int limit = Optional.ofNullable(forecastDays)
-			.filter(i -> i > 0)
-			.orElse(DEFAULT_FORECAST_DAYS);
+		final int limit = forecastDays(forecastDays);
 
 		try {
 			final var cityCoordinates = city.coordinates();
 			final var forecasts = weatherForecastRepository.getWeatherForecastForCity(cityCoordinates, limit);
 
-			// get only the first <limit> forecasts of each day
-			// final var filteredForecasts = extractLimitDaysOnly(forecasts, limit);
-
-
 			final var report = new WeatherReport(forecasts, city);
 			return Either.right(report);
+		} catch (UpstreamUnavailableException e) {
+			LOGGER.warn("Weather forecasts of {} unavailable: {}", city.displayName(), e.getMessage());
+			return Either.left(FailureCause.UPSTREAM_UNAVAILABLE);
 		} catch (Exception e) {
-			// TODO: logging
-			System.err.println(e);
+			LOGGER.error("Could not get the weather forecasts of {}", city.displayName(), e);
 			return Either.left(FailureCause.INTERNAL_ERROR);
 		}
 	}
 
-	private static List<WeatherForecast> extractLimitDaysOnly(List<WeatherForecast> weatherForecasts, int limit) {
-
-		final List<WeatherForecast> result = new ArrayList<>();
-
-        LocalDate currentDate = null;
-
-        for (WeatherForecast wf : weatherForecasts) {
-            LocalDate date = wf.getTimestamp().atZone(ZoneOffset.UTC).toLocalDate();
-
-            if (!date.equals(currentDate)) {
-                result.add(wf);
-                currentDate = date;
-            }
-        }
+	/**
+	 * Summarize the forecasts of a report per day, in the local time of the city.
+	 * @param report       Report of the city.
+	 * @param forecastDays Number of days to summarize, the current one included; default if null.
+	 * @return Daily summaries.
+	 */
+	public static DailyWeatherReport daily(WeatherReport report, Integer forecastDays) {
+		final var series = ForecastSeries.of(report.getForecasts());
+		final var summaries = DailyAggregation.aggregate(series, forecastDays(forecastDays));
+		return new DailyWeatherReport(summaries, report.getCity(), series.utcOffset());
+	}
 
-		return result;
+	private static int forecastDays(Integer forecastDays) {
+		return Optional.ofNullable(forecastDays)
+			.filter(i -> i > 0)
+			.orElse(DEFAULT_FORECAST_DAYS);
 	}
 
 	/**
@@ -99,7 +147,11 @@ public class GetWeatherForecastUseCase {
 		/**
 		 * Server error failure.
 		 */
-		INTERNAL_ERROR;
+		INTERNAL_ERROR,
+		/**
+		 * Forecasts temporarily unavailable, e.g. during an upstream outage.
+		 */
+		UPSTREAM_UNAVAILABLE;
 	}
 
 }
@@ -0,0 +1,15 @@
+package example.weatherwebapp.core;
+
+import java.util.Optional;
+
+/**
+ * Repository interface to find the known city nearest to some coordinates (reverse geocoding).
+ */
+public interface NearestCityRepository {
+	/**
+	 * Get the known city nearest to the coordinates, if close enough to stand for them.
+	 * @param coordinates Coordinates to search around.
+	 * @return Optional with the nearest city, empty Optional if none is close enough.
+	 */
+	Optional<City> findNearest(Coordinates coordinates);
+}
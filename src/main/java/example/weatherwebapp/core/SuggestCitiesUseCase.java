@@ -0,0 +1,44 @@
+package example.weatherwebapp.core;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public class SuggestCitiesUseCase {
+	private static final int DEFAULT_LIMIT = 10;
+
+	private static final int MAX_LIMIT = 50;
+
+	private final CitySuggestionRepository citySuggestionRepository;
+
+	/**
+	 * Create the use case.
+	 * 
+	 * @param citySuggestionRepository Repository of the city suggestions.
+	 */
+	public SuggestCitiesUseCase(CitySuggestionRepository citySuggestionRepository) {
+		this.citySuggestionRepository = citySuggestionRepository;
+	}
+
+	/**
+	 * Get the cities matching the first letters typed by the user.
+	 * @param prefix First letters of the city name.
+	 * @param limit Maximum number of suggestions, default if null.
+	 * @return Suggested cities, most populated first; empty if the prefix is blank.
+	 */
+	public List<CitySuggestion> suggest(String prefix, Integer limit) {
+		final var cityName = CityName.tryCreate(prefix);
+
+		if (cityName.isLeft()) return List.of();
+
+		final int actualLimit = Optional.ofNullable(limit)
+			.filter(i -> i > 0)
+			.map(i -> Math.min(i, MAX_LIMIT))
+			.orElse(DEFAULT_LIMIT);
+
+		return citySuggestionRepository.suggest(cityName.right().normalized(), actualLimit);
+	}
+
+}
@@ -0,0 +1,15 @@
+package example.weatherwebapp.core;
+
+/**
+ * Thrown by a repository when its upstream can not be called for now, e.g. because it is down or overloaded,
+ * as opposed to an unexpected error. Callers may try again later.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public UpstreamUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
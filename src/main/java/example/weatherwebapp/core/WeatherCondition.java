@@ -0,0 +1,40 @@
+package example.weatherwebapp.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Icon and description of a weather condition, interned: the few conditions upstream has are shared by
+ * all the forecast series instead of being repeated in each forecast.
+ *
+ * @param icon        Icon of the weather.
+ * @param description Description of the weather.
+ */
+record WeatherCondition(String icon, String description) {
+
+	/**
+	 * Maximum number of interned conditions, in case upstream sends unexpected ones.
+	 */
+	private static final int MAXIMUM_INTERNED = 4096;
+
+	private static final ConcurrentMap<WeatherCondition, WeatherCondition> INTERNED = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the interned condition.
+	 * @param icon        Icon of the weather, may be null.
+	 * @param description Description of the weather, may be null.
+	 * @return Interned condition, or a new one if too many conditions are interned already.
+	 */
+	static WeatherCondition of(String icon, String description) {
+		final var condition = new WeatherCondition(icon, description);
+		final var interned = INTERNED.get(condition);
+		if (interned != null)
+			return interned;
+		if (INTERNED.size() >= MAXIMUM_INTERNED)
+			return condition;
+
+		final var previous = INTERNED.putIfAbsent(condition, condition);
+		return previous != null ? previous : condition;
+	}
+
+}
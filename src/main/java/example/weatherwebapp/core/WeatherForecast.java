@@ -3,20 +3,40 @@ package example.weatherwebapp.core;
 import java.time.Instant;
 import java.util.Objects;
 
-/** Simple weather forecast */
+/**
+ * Weather forecast of a 3 hours slot.
+ * <p>
+ * Measures are primitives, 0 when not forecasted: forecasts are kept by the thousands in the caches.
+ */
 public class WeatherForecast {
 
 	private final Instant timestamp;
 
 	private final double avgTemperature;
 
+	private final double feelsLikeTemperature;
+
+	private final int humidity;
+
+	private final double windSpeed;
+
+	private final int windDirection;
+
+	private final double windGust;
+
+	private final int cloudiness;
+
+	private final double precipitation;
+
+	private final int visibility;
+
 	// TODO: those could go into an enum...
 	private final String weatherIcon;
 
 	private final String weatherDescription;
 
 	/**
-	 * Creates the weather forecast.
+	 * Creates the weather forecast, with the temperature and weather only.
 	 * 
 	 * @param timestamp          Timestamp of the weather forecast.
 	 * @param avgTemperature     Average temperature.
@@ -24,8 +44,38 @@ public class WeatherForecast {
 	 * @param weatherDescription Description of the weather.
 	 */
 	public WeatherForecast(Instant timestamp, double avgTemperature, String weatherIcon, String weatherDescription) {
+		this(timestamp, avgTemperature, 0, 0, 0, 0, 0, 0, 0, 0, weatherIcon, weatherDescription);
+	}
+
+	/**
+	 * Creates the weather forecast.
+	 * 
+	 * @param timestamp            Timestamp of the weather forecast.
+	 * @param avgTemperature       Average temperature, in degrees Celsius.
+	 * @param feelsLikeTemperature Perceived temperature, in degrees Celsius.
+	 * @param humidity             Relative humidity, in %.
+	 * @param windSpeed            Wind speed, in m/s.
+	 * @param windDirection        Wind direction, in degrees.
+	 * @param windGust             Wind gust speed, in m/s.
+	 * @param cloudiness           Cloudiness, in %.
+	 * @param precipitation        Rain and snow volume of the slot, in mm.
+	 * @param visibility           Visibility, in meters.
+	 * @param weatherIcon          Icon of the weather.
+	 * @param weatherDescription   Description of the weather.
+	 */
+	public WeatherForecast(Instant timestamp, double avgTemperature, double feelsLikeTemperature, int humidity,
+			double windSpeed, int windDirection, double windGust, int cloudiness, double precipitation, int visibility,
+			String weatherIcon, String weatherDescription) {
 		this.timestamp = timestamp;
 		this.avgTemperature = avgTemperature;
+		this.feelsLikeTemperature = feelsLikeTemperature;
+		this.humidity = humidity;
+		this.windSpeed = windSpeed;
+		this.windDirection = windDirection;
+		this.windGust = windGust;
+		this.cloudiness = cloudiness;
+		this.precipitation = precipitation;
+		this.visibility = visibility;
 		this.weatherIcon = weatherIcon;
 		this.weatherDescription = weatherDescription;
 	}
@@ -38,6 +88,38 @@ public class WeatherForecast {
 		return avgTemperature;
 	}
 
+	public double getFeelsLikeTemperature() {
+		return feelsLikeTemperature;
+	}
+
+	public int getHumidity() {
+		return humidity;
+	}
+
+	public double getWindSpeed() {
+		return windSpeed;
+	}
+
+	public int getWindDirection() {
+		return windDirection;
+	}
+
+	public double getWindGust() {
+		return windGust;
+	}
+
+	public int getCloudiness() {
+		return cloudiness;
+	}
+
+	public double getPrecipitation() {
+		return precipitation;
+	}
+
+	public int getVisibility() {
+		return visibility;
+	}
+
 	public String getWeatherIcon() {
 		return weatherIcon;
 	}
@@ -48,7 +130,8 @@ public class WeatherForecast {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(timestamp, avgTemperature, weatherIcon, weatherDescription);
+		return Objects.hash(timestamp, avgTemperature, feelsLikeTemperature, humidity, windSpeed, windDirection, windGust,
+				cloudiness, precipitation, visibility, weatherIcon, weatherDescription);
 	}
 
 	@Override
@@ -60,6 +143,14 @@ public class WeatherForecast {
 		WeatherForecast other = (WeatherForecast) obj;
 		return Objects.equals(timestamp, other.timestamp)
 				&& Double.doubleToLongBits(avgTemperature) == Double.doubleToLongBits(other.avgTemperature)
+				&& Double.doubleToLongBits(feelsLikeTemperature) == Double.doubleToLongBits(other.feelsLikeTemperature)
+				&& humidity == other.humidity
+				&& Double.doubleToLongBits(windSpeed) == Double.doubleToLongBits(other.windSpeed)
+				&& windDirection == other.windDirection
+				&& Double.doubleToLongBits(windGust) == Double.doubleToLongBits(other.windGust)
+				&& cloudiness == other.cloudiness
+				&& Double.doubleToLongBits(precipitation) == Double.doubleToLongBits(other.precipitation)
+				&& visibility == other.visibility
 				&& Objects.equals(weatherIcon, other.weatherIcon)
 				&& Objects.equals(weatherDescription, other.weatherDescription);
 	}
@@ -0,0 +1,94 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+
+/**
+ * In-memory cache in front of another {@link CityGeocodingRepository}.
+ * Entries are keyed on the normalized city name and evicted by size (W-TinyLFU) and by age.
+ * Cities not found upstream are cached too, but for a shorter time.
+ */
+public class CachingCityGeocodingRepository implements CityGeocodingRepository {
+
+	private final CityGeocodingRepository delegate;
+
+	private final Cache<String, Optional<City>> cache;
+
+	/**
+	 * Create the caching repository.
+	 *
+	 * @param delegate    Repository queried on cache misses.
+	 * @param maximumSize Maximum number of cached city names.
+	 * @param ttl         Time to live of cities found by the delegate.
+	 * @param negativeTtl Time to live of cities NOT found by the delegate.
+	 */
+	public CachingCityGeocodingRepository(CityGeocodingRepository delegate, long maximumSize, Duration ttl,
+			Duration negativeTtl) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new FoundOrNotFoundExpiry(ttl, negativeTtl))
+				.recordStats()
+				.build();
+	}
+
+	@Override
+	public Optional<City> getCity(CityName cityName) {
+		final var key = cityName.normalized();
+
+		final var cached = cache.getIfPresent(key);
+		if (cached != null)
+			return cached;
+
+		// Not using Cache.get(key, mappingFunction): it would hold a lock while calling the delegate.
+		final var city = delegate.getCity(cityName);
+		cache.put(key, city);
+		return city;
+	}
+
+	/**
+	 * Underlying cache, exposed for statistics.
+	 * @return Cache.
+	 */
+	public Cache<String, Optional<City>> getCache() {
+		return cache;
+	}
+
+	private static final class FoundOrNotFoundExpiry implements Expiry<String, Optional<City>> {
+
+		private final long ttlNanos;
+
+		private final long negativeTtlNanos;
+
+		FoundOrNotFoundExpiry(Duration ttl, Duration negativeTtl) {
+			this.ttlNanos = ttl.toNanos();
+			this.negativeTtlNanos = negativeTtl.toNanos();
+		}
+
+		@Override
+		public long expireAfterCreate(String key, Optional<City> value, long currentTime) {
+			return value.isPresent() ? ttlNanos : negativeTtlNanos;
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, Optional<City> value, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, Optional<City> value, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
@@ -0,0 +1,241 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.ForecastSlots;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+
+/**
+ * In-memory cache in front of another {@link WeatherForecastRepository}.
+ * Coordinates are snapped to a grid, so that nearby coordinates share the same entry,
+ * and entries expire when the upstream publishes the forecasts of the next slot.
+ * <p>
+ * The delegate is expected to return the whole forecast series regardless of the requested limit
+ * (as OpenWeatherMap does), because entries are shared across limits.
+ * <p>
+ * With a maximum staleness, expired entries are kept that much longer and served stale while revalidated
+ * in the background (stale-while-revalidate): requests do not wait for the upstream, and keep being served
+ * while the upstream is down (stale-if-error).
+ */
+public class CachingWeatherForecastRepository implements RefreshableWeatherForecastRepository {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CachingWeatherForecastRepository.class);
+
+	private final WeatherForecastRepository delegate;
+
+	private final double gridStep;
+
+	private final Duration slotDelay;
+
+	private final Duration maximumStaleness;
+
+	private final Executor revalidationExecutor;
+
+	private final Clock clock;
+
+	private final Cache<Coordinates, CachedForecasts> cache;
+
+	private final Set<Coordinates> revalidating = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Create the caching repository, whose entries are never served stale.
+	 *
+	 * @param delegate    Repository queried on cache misses.
+	 * @param gridStep    Grid step (in degrees) the coordinates are snapped to.
+	 * @param maximumSize Maximum number of cached forecast series.
+	 * @param slotDelay   How long after a slot boundary the upstream is expected to have refreshed its forecasts.
+	 * @param clock       Clock used to compute the slot boundaries.
+	 */
+	public CachingWeatherForecastRepository(WeatherForecastRepository delegate, double gridStep, long maximumSize,
+			Duration slotDelay, Clock clock) {
+		this(delegate, gridStep, maximumSize, slotDelay, Duration.ZERO, Runnable::run, clock);
+	}
+
+	/**
+	 * Create the caching repository.
+	 *
+	 * @param delegate             Repository queried on cache misses.
+	 * @param gridStep             Grid step (in degrees) the coordinates are snapped to.
+	 * @param maximumSize          Maximum number of cached forecast series.
+	 * @param slotDelay            How long after a slot boundary the upstream is expected to have refreshed
+	 *                             its forecasts.
+	 * @param maximumStaleness     How long after their expiration the entries can still be served stale.
+	 * @param revalidationExecutor Executor of the revalidation of the stale entries.
+	 * @param clock                Clock used to compute the slot boundaries.
+	 */
+	public CachingWeatherForecastRepository(WeatherForecastRepository delegate, double gridStep, long maximumSize,
+			Duration slotDelay, Duration maximumStaleness, Executor revalidationExecutor, Clock clock) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.gridStep = gridStep;
+		this.slotDelay = slotDelay;
+		this.maximumStaleness = maximumStaleness;
+		this.revalidationExecutor = revalidationExecutor;
+		this.clock = clock;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new StalenessExpiry())
+				.recordStats()
+				.build();
+	}
+
+	@Override
+	public List<WeatherForecast> getWeatherForecastForCity(Coordinates coordinates, int limit) {
+		final var key = coordinates.snapToGrid(gridStep);
+
+		final var cached = cache.getIfPresent(key);
+		if (cached != null) {
+			final var now = clock.instant();
+			if (now.isBefore(cached.expiration()))
+				return cached.forecasts();
+			if (now.isBefore(cached.expiration().plus(maximumStaleness))) {
+				revalidate(key, limit);
+				return cached.forecasts();
+			}
+		}
+
+		// Not using Cache.get(key, mappingFunction): it would hold a lock while calling the delegate.
+		return fetch(key, limit);
+	}
+
+	/**
+	 * Fetch the forecasts from the delegate, unless the cached ones were fetched after the given instant.
+	 * Used to refresh the entries once the forecasts of a new slot are published; a delegate cache tier
+	 * is refreshed too.
+	 *
+	 * @param coordinates Coordinates of the forecasts.
+	 * @param limit       Number of days to forecast.
+	 * @param validFrom   Instant the forecasts must have been fetched after, e.g. the last publication.
+	 * @return Refreshed forecasts.
+	 */
+	@Override
+	public List<WeatherForecast> refresh(Coordinates coordinates, int limit, Instant validFrom) {
+		final var key = coordinates.snapToGrid(gridStep);
+
+		final var cached = cache.getIfPresent(key);
+		if (cached != null && cached.expiration().isAfter(validFrom))
+			return cached.forecasts();
+
+		final var forecasts = RefreshableWeatherForecastRepository.refresh(delegate, key, limit, validFrom);
+		// fetched now: valid until the next publication, whatever the given instant
+		if (!forecasts.isEmpty())
+			cache.put(key, new CachedForecasts(forecasts, nextExpiration(clock.instant())));
+		return forecasts;
+	}
+
+	/**
+	 * Discard the cached forecasts of a grid cell if they expire before the given instant,
+	 * e.g. when another node stored fresher ones in a shared tier: the next request gets them from the delegate.
+	 * Forecasts as fresh, e.g. just refreshed from the shared tier, are kept.
+	 *
+	 * @param key        Snapped coordinates of the cell, as passed to the delegate.
+	 * @param expiration Expiration of the fresher forecasts.
+	 */
+	public void invalidate(Coordinates key, Instant expiration) {
+		cache.asMap().computeIfPresent(key, (k, cached) -> cached.expiration().isBefore(expiration) ? null : cached);
+	}
+
+	private List<WeatherForecast> fetch(Coordinates key, int limit) {
+		final var forecasts = delegate.getWeatherForecastForCity(key, limit);
+		// an empty series means the upstream call did not succeed
+		if (!forecasts.isEmpty())
+			cache.put(key, new CachedForecasts(forecasts, nextExpiration(clock.instant())));
+		return forecasts;
+	}
+
+	/**
+	 * Fetch the forecasts of a stale entry in the background, unless already in progress.
+	 * On failure, the stale entry keeps being served until its maximum staleness.
+	 */
+	private void revalidate(Coordinates key, int limit) {
+		if (!revalidating.add(key))
+			return;
+		try {
+			revalidationExecutor.execute(() -> {
+				try {
+					UpstreamCallPriority.BACKGROUND.call(() -> fetch(key, limit));
+				} catch (RuntimeException e) {
+					LOGGER.debug("Could not revalidate the forecasts of {}: {}", key, e.getMessage());
+				} finally {
+					revalidating.remove(key);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			revalidating.remove(key);
+		}
+	}
+
+	/**
+	 * Get the first instant after the given one when the cached entries expire,
+	 * i.e. the next slot boundary plus the delay the upstream takes to publish the new forecasts.
+	 * @param instant Instant.
+	 * @return Next expiration instant.
+	 */
+	public Instant nextExpiration(Instant instant) {
+		return ForecastSlots.nextPublication(instant, slotDelay);
+	}
+
+	/**
+	 * Hit, miss and eviction counts of the cache.
+	 * @return Cache statistics.
+	 */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	/**
+	 * Underlying cache, exposed for statistics.
+	 * @return Cache.
+	 */
+	public Cache<Coordinates, CachedForecasts> getCache() {
+		return cache;
+	}
+
+	/**
+	 * Cached forecasts, and when they expire, i.e. from when they are stale.
+	 */
+	public record CachedForecasts(List<WeatherForecast> forecasts, Instant expiration) {
+	}
+
+	/**
+	 * Evicts the entries once stale for longer than the maximum staleness.
+	 */
+	private final class StalenessExpiry implements Expiry<Coordinates, CachedForecasts> {
+
+		@Override
+		public long expireAfterCreate(Coordinates key, CachedForecasts value, long currentTime) {
+			return Math.max(0, Duration.between(clock.instant(), value.expiration().plus(maximumStaleness)).toNanos());
+		}
+
+		@Override
+		public long expireAfterUpdate(Coordinates key, CachedForecasts value, long currentTime,
+				long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(Coordinates key, CachedForecasts value, long currentTime,
+				long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
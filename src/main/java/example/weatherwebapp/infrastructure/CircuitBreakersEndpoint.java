@@ -0,0 +1,41 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import example.weatherwebapp.shared.CircuitBreaker;
+
+/**
+ * Actuator endpoint exposing the state of the circuit breakers, at {@code /actuator/circuitbreakers}.
+ */
+@Endpoint(id = "circuitbreakers")
+class CircuitBreakersEndpoint {
+
+	private final List<CircuitBreaker> circuitBreakers;
+
+	CircuitBreakersEndpoint(List<CircuitBreaker> circuitBreakers) {
+		this.circuitBreakers = circuitBreakers;
+	}
+
+	@ReadOperation
+	Map<String, CircuitBreaker.Snapshot> circuitBreakers() {
+		final Map<String, CircuitBreaker.Snapshot> snapshots = new TreeMap<>();
+		circuitBreakers.forEach(circuitBreaker -> snapshots.put(circuitBreaker.name(), circuitBreaker.snapshot()));
+		return snapshots;
+	}
+
+	@ReadOperation
+	CircuitBreaker.Snapshot circuitBreaker(@Selector String name) {
+		return circuitBreakers.stream()
+				.filter(circuitBreaker -> circuitBreaker.name().equals(name))
+				.findFirst()
+				.map(CircuitBreaker::snapshot)
+				.orElse(null);
+	}
+
+}
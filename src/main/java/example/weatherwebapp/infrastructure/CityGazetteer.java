@@ -0,0 +1,337 @@
+package example.weatherwebapp.infrastructure;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CitySuggestion;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.Coordinates;
+
+/**
+ * Immutable in-memory index of well-known cities, loaded from a GeoNames-style TSV file
+ * (see the {@code cities15000.txt} format at https://download.geonames.org/export/dump/).
+ * <p>
+ * Cities are stored column-wise in arrays. Every normalized name and alternate name of a city is a key
+ * of a sorted array, so that exact and prefix lookups are binary searches.
+ * Keys shared by several cities are ordered by decreasing population.
+ * <p>
+ * Short prefixes match a large share of the keys: the most populated cities of every prefix
+ * of up to {@value #PRECOMPUTED_PREFIX_LENGTH} characters are computed once, when loading.
+ */
+public final class CityGazetteer {
+
+	private static final int NAME = 1;
+	private static final int ASCII_NAME = 2;
+	private static final int ALTERNATE_NAMES = 3;
+	private static final int LATITUDE = 4;
+	private static final int LONGITUDE = 5;
+	private static final int COUNTRY_CODE = 8;
+	private static final int POPULATION = 14;
+	private static final int MIN_COLUMNS = POPULATION + 1;
+
+	/* package */ static final int PRECOMPUTED_PREFIX_LENGTH = 2;
+
+	/* package */ static final int PRECOMPUTED_SUGGESTIONS = 50;
+
+	private final String[] names;
+	private final String[] countries;
+	private final double[] latitudes;
+	private final double[] longitudes;
+	private final long[] populations;
+
+	private final String[] keys;
+	private final int[] keyCities;
+
+	/* most populated cities of the short prefixes, most populated first */
+	private final Map<String, int[]> prefixCities;
+
+	private CityGazetteer(List<Row> rows) {
+		final int size = rows.size();
+		names = new String[size];
+		countries = new String[size];
+		latitudes = new double[size];
+		longitudes = new double[size];
+		populations = new long[size];
+
+		final List<Key> allKeys = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			final var row = rows.get(i);
+			names[i] = row.name();
+			countries[i] = row.country();
+			latitudes[i] = row.latitude();
+			longitudes[i] = row.longitude();
+			populations[i] = row.population();
+			for (final var key : row.keys()) {
+				allKeys.add(new Key(key, i));
+			}
+		}
+
+		allKeys.sort(Comparator.comparing(Key::key)
+				.thenComparing(Comparator.comparingLong((Key k) -> populations[k.city()]).reversed()));
+
+		keys = new String[allKeys.size()];
+		keyCities = new int[allKeys.size()];
+		for (int i = 0; i < allKeys.size(); i++) {
+			// identical keys share the same String instance
+			keys[i] = i > 0 && allKeys.get(i).key().equals(keys[i - 1]) ? keys[i - 1] : allKeys.get(i).key();
+			keyCities[i] = allKeys.get(i).city();
+		}
+
+		prefixCities = prefixCities(rows);
+	}
+
+	private Map<String, int[]> prefixCities(List<Row> rows) {
+		final var byPopulation = new Integer[rows.size()];
+		Arrays.setAll(byPopulation, i -> i);
+		Arrays.sort(byPopulation, Comparator.comparingLong((Integer city) -> populations[city]).reversed());
+
+		final Map<String, List<Integer>> cities = new HashMap<>();
+		final Set<String> prefixes = new HashSet<>();
+		for (final int city : byPopulation) {
+			prefixes.clear();
+			for (final var key : rows.get(city).keys()) {
+				for (int length = 0; length <= Math.min(PRECOMPUTED_PREFIX_LENGTH, key.length()); length++) {
+					prefixes.add(key.substring(0, length));
+				}
+			}
+			for (final var prefix : prefixes) {
+				final var prefixList = cities.computeIfAbsent(prefix, p -> new ArrayList<>());
+				if (prefixList.size() < PRECOMPUTED_SUGGESTIONS)
+					prefixList.add(city);
+			}
+		}
+
+		final Map<String, int[]> result = new HashMap<>(cities.size() * 4 / 3 + 1);
+		cities.forEach((prefix, prefixList) -> result.put(prefix,
+				prefixList.stream().mapToInt(Integer::intValue).toArray()));
+		return result;
+	}
+
+	/**
+	 * Load the gazetteer from a GeoNames-style TSV stream. Malformed lines are skipped.
+	 * @param in UTF-8 TSV stream, closed by this method.
+	 * @return Gazetteer.
+	 * @throws IOException Thrown if the stream can not be read.
+	 */
+	public static CityGazetteer load(InputStream in) throws IOException {
+		final List<Row> rows = new ArrayList<>();
+		try (var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				parse(line).ifPresent(rows::add);
+			}
+		}
+		return new CityGazetteer(rows);
+	}
+
+	private static Optional<Row> parse(String line) {
+		if (line.isBlank() || line.startsWith("#"))
+			return Optional.empty();
+
+		final var columns = line.split("\t", -1);
+		if (columns.length < MIN_COLUMNS || columns[NAME].isBlank())
+			return Optional.empty();
+
+		try {
+			final Set<String> keys = new HashSet<>();
+			addKey(keys, columns[NAME]);
+			addKey(keys, columns[ASCII_NAME]);
+			for (final var alternateName : columns[ALTERNATE_NAMES].split(",")) {
+				addKey(keys, alternateName);
+			}
+			return Optional.of(new Row(columns[NAME], columns[COUNTRY_CODE].intern(),
+					Double.parseDouble(columns[LATITUDE]), Double.parseDouble(columns[LONGITUDE]),
+					columns[POPULATION].isBlank() ? 0 : Long.parseLong(columns[POPULATION]), keys));
+		} catch (NumberFormatException e) {
+			return Optional.empty();
+		}
+	}
+
+	private static void addKey(Set<String> keys, String name) {
+		if (!name.isBlank())
+			keys.add(new CityName(name).normalized());
+	}
+
+	/**
+	 * Find the most populated city with the given name.
+	 * @param normalizedName Normalized name (see {@link CityName#normalized()}) or alternate name of the city.
+	 * @param countryCode    ISO 3166 country code of the city, or null to search in every country.
+	 * @return Optional with the city if found, empty Optional otherwise.
+	 */
+	public Optional<City> find(String normalizedName, String countryCode) {
+		for (int i = lowerBound(normalizedName); i < keys.length && keys[i].equals(normalizedName); i++) {
+			final int city = keyCities[i];
+			if (countryCode == null || countries[city].equalsIgnoreCase(countryCode))
+				return Optional.of(toCity(city));
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Find the most populated cities having a name starting with the prefix.
+	 * @param normalizedPrefix Normalized prefix (see {@link CityName#normalized()}).
+	 * @param limit            Maximum number of cities.
+	 * @return Cities, most populated first.
+	 */
+	public List<CitySuggestion> suggest(String normalizedPrefix, int limit) {
+		if (limit <= 0)
+			return List.of();
+
+		if (normalizedPrefix.length() <= PRECOMPUTED_PREFIX_LENGTH && limit <= PRECOMPUTED_SUGGESTIONS) {
+			final var cities = prefixCities.get(normalizedPrefix);
+			return cities == null ? List.of() : suggestions(cities, Math.min(limit, cities.length));
+		}
+
+		final int from = lowerBound(normalizedPrefix);
+		final int to = lowerBound(normalizedPrefix + Character.MAX_VALUE);
+
+		// most populated cities found so far, most populated first
+		final int[] best = new int[limit];
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			final int city = keyCities[i];
+			final long population = populations[city];
+			if (count == limit && population <= populations[best[count - 1]])
+				continue;
+
+			// a city already found has the same population: it is among the cities as populated
+			int position = firstNotMorePopulated(best, count, population);
+			while (position < count && populations[best[position]] == population && best[position] != city)
+				position++;
+			if (position < count && best[position] == city)
+				continue;
+
+			final int moved = Math.min(count, limit - 1) - position;
+			System.arraycopy(best, position, best, position + 1, moved);
+			best[position] = city;
+			count = Math.min(count + 1, limit);
+		}
+		return suggestions(best, count);
+	}
+
+	/**
+	 * Index of the first city not more populated than the given population, in cities sorted by population.
+	 */
+	private int firstNotMorePopulated(int[] cities, int count, long population) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (populations[cities[middle]] > population)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	private List<CitySuggestion> suggestions(int[] cities, int count) {
+		final var suggestions = new CitySuggestion[count];
+		for (int i = 0; i < count; i++) {
+			final int city = cities[i];
+			suggestions[i] = new CitySuggestion(names[city], String.format("%s (%s)", names[city], countries[city]),
+					countries[city], populations[city]);
+		}
+		return Arrays.asList(suggestions);
+	}
+
+	/**
+	 * Number of cities.
+	 * @return Number of cities.
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * Number of indexed names (names and alternate names of every city).
+	 * @return Number of indexed names.
+	 */
+	public int keyCount() {
+		return keys.length;
+	}
+
+	/**
+	 * Rough estimation of the heap retained by the gazetteer, assuming compressed references and compact strings.
+	 * @return Estimated size in bytes.
+	 */
+	public long estimatedSizeInBytes() {
+		final int arrayHeader = 16;
+		long size = 5L * arrayHeader + (long) names.length * (4 + 4 + 8 + 8 + 8);
+		size += 2L * arrayHeader + (long) keys.length * (4 + 4);
+		size += stringsSize(names) + stringsSize(countries) + stringsSize(keys);
+		// hash map entries of the precomputed prefixes, with their array
+		size += stringsSize(prefixCities.keySet().toArray(String[]::new));
+		for (final var cities : prefixCities.values()) {
+			size += 32 + arrayHeader + 4L * cities.length;
+		}
+		return size;
+	}
+
+	/**
+	 * Size of the distinct strings, compact ones: a byte per char if all are Latin-1, else two bytes per char.
+	 */
+	/* package */ static long stringsSize(String[] strings) {
+		final int stringHeader = 24;
+		final int arrayHeader = 16;
+		long size = 0;
+		String previous = null;
+		for (final var string : Arrays.stream(strings).sorted().toList()) {
+			if (!string.equals(previous))
+				size += stringHeader + arrayHeader + (isLatin1(string) ? string.length() : 2L * string.length());
+			previous = string;
+		}
+		return size;
+	}
+
+	private static boolean isLatin1(String string) {
+		for (int i = 0; i < string.length(); i++) {
+			if (string.charAt(i) > 0xFF)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Index of the first key greater than or equal to the given one.
+	 */
+	/* package */ int lowerBound(String key) {
+		int low = 0;
+		int high = keys.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (keys[middle].compareTo(key) < 0)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/* package */ City toCity(int city) {
+		return new City(new Coordinates(latitudes[city], longitudes[city]),
+				String.format("%s (%s)", names[city], countries[city]),
+				names[city], countries[city], null, null);
+	}
+
+	private record Row(String name, String country, double latitude, double longitude, long population,
+			Set<String> keys) {
+	}
+
+	private record Key(String key, int city) {
+	}
+
+}
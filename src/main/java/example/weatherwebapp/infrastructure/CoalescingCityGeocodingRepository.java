@@ -0,0 +1,33 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.shared.SingleFlight;
+
+/**
+ * Shares a single call to another {@link CityGeocodingRepository} between concurrent lookups of the same city.
+ */
+public class CoalescingCityGeocodingRepository implements CityGeocodingRepository {
+
+	private final CityGeocodingRepository delegate;
+
+	private final SingleFlight<String, Optional<City>> singleFlight = new SingleFlight<>();
+
+	/**
+	 * Create the coalescing repository.
+	 * @param delegate Repository actually queried.
+	 */
+	public CoalescingCityGeocodingRepository(CityGeocodingRepository delegate) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+	}
+
+	@Override
+	public Optional<City> getCity(CityName cityName) {
+		return singleFlight.execute(cityName.normalized(), () -> delegate.getCity(cityName));
+	}
+
+}
@@ -0,0 +1,38 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.List;
+import java.util.Objects;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import example.weatherwebapp.shared.SingleFlight;
+
+/**
+ * Shares a single call to another {@link WeatherForecastRepository} between concurrent requests
+ * for the same coordinates.
+ */
+public class CoalescingWeatherForecastRepository implements WeatherForecastRepository {
+
+	private final WeatherForecastRepository delegate;
+
+	private final SingleFlight<ForecastRequest, List<WeatherForecast>> singleFlight = new SingleFlight<>();
+
+	/**
+	 * Create the coalescing repository.
+	 * @param delegate Repository actually queried.
+	 */
+	public CoalescingWeatherForecastRepository(WeatherForecastRepository delegate) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+	}
+
+	@Override
+	public List<WeatherForecast> getWeatherForecastForCity(Coordinates coordinates, int limit) {
+		return singleFlight.execute(new ForecastRequest(coordinates, limit),
+				() -> delegate.getWeatherForecastForCity(coordinates, limit));
+	}
+
+	private record ForecastRequest(Coordinates coordinates, int limit) {
+	}
+
+}
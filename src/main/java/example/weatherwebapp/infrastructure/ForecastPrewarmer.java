@@ -0,0 +1,182 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityRequestTracker;
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.ForecastSlots;
+import example.weatherwebapp.core.GetWeatherForecastUseCase;
+
+/**
+ * Refreshes the cached forecasts of the most requested cities as soon as the upstream publishes
+ * the forecasts of a new slot, so that the requests following a slot rollover do not hit a cold cache.
+ * <p>
+ * Requests are counted per grid cell of the forecast cache. Counts are halved after every refresh,
+ * so that the hot set follows the current demand. Refresh calls are spread over a duration
+ * with some jitter, and limited to a maximum rate: each one is a task delayed on the scheduler of the prewarmer,
+ * so that no thread sleeps between them.
+ */
+public class ForecastPrewarmer implements CityRequestTracker, AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ForecastPrewarmer.class);
+
+	private final CachingWeatherForecastRepository repository;
+
+	private final double gridStep;
+
+	private final int hotSetSize;
+
+	private final int maximumTrackedCities;
+
+	private final Duration spread;
+
+	private final Duration minimumInterval;
+
+	private final ScheduledExecutorService scheduler;
+
+	private final Clock clock;
+
+	private final Map<Coordinates, Demand> demands = new ConcurrentHashMap<>();
+
+	private volatile Instant lastPrewarmedPublication = Instant.EPOCH;
+
+	/**
+	 * Create the prewarmer.
+	 *
+	 * @param repository           Forecast cache to refresh.
+	 * @param gridStep             Grid step (in degrees) of the forecast cache.
+	 * @param hotSetSize           Number of most requested cities to refresh.
+	 * @param maximumTrackedCities Maximum number of cities whose requests are counted.
+	 * @param spread               Duration the refresh calls are spread over, after the publication.
+	 * @param maximumCallsPerSecond Maximum rate of the refresh calls.
+	 * @param scheduler            Scheduler of the refresh calls, owned by the prewarmer.
+	 * @param clock                Clock.
+	 */
+	public ForecastPrewarmer(CachingWeatherForecastRepository repository, double gridStep, int hotSetSize,
+			int maximumTrackedCities, Duration spread, double maximumCallsPerSecond,
+			ScheduledExecutorService scheduler, Clock clock) {
+		this.repository = repository;
+		this.gridStep = gridStep;
+		this.hotSetSize = hotSetSize;
+		this.maximumTrackedCities = maximumTrackedCities;
+		this.spread = spread;
+		this.minimumInterval = Duration.ofNanos((long) (1_000_000_000 / maximumCallsPerSecond));
+		this.scheduler = scheduler;
+		this.clock = clock;
+	}
+
+	@Override
+	public void record(City city) {
+		final var key = city.coordinates().snapToGrid(gridStep);
+		var demand = demands.get(key);
+		if (demand == null) {
+			if (demands.size() >= maximumTrackedCities)
+				return;
+			demand = demands.computeIfAbsent(key, k -> new Demand(city.coordinates()));
+		}
+		demand.requests().incrementAndGet();
+	}
+
+	/**
+	 * Start the refresh once the forecasts of a new slot are published, i.e. when the cached ones expire:
+	 * not before, as the upstream would still serve the previous slot. Invoked periodically.
+	 */
+	@Scheduled(fixedDelayString = "${weather.prewarm.check-interval-ms:15000}",
+			initialDelayString = "${weather.prewarm.check-interval-ms:15000}")
+	public void prewarmIfDue() {
+		final var publication = repository.nextExpiration(clock.instant()).minus(ForecastSlots.SLOT_DURATION);
+		if (!publication.isAfter(lastPrewarmedPublication))
+			return;
+
+		lastPrewarmedPublication = publication;
+		prewarm(publication);
+	}
+
+	/**
+	 * Schedule the refresh of the forecasts of the hot set that were fetched before the given publication.
+	 * @param publication Publication of the forecasts of the current slot.
+	 */
+	/* package */ void prewarm(Instant publication) {
+		final var hotSet = hotSet();
+		if (hotSet.isEmpty())
+			return;
+
+		LOGGER.info("Refreshing the forecasts of {} cities published at {}", hotSet.size(), publication);
+
+		// spread the calls, but never faster than the maximum rate
+		final long spreadNanos = Math.max(minimumInterval.toNanos(), spread.toNanos() / hotSet.size());
+		long delayNanos = 0;
+		for (int i = 0; i < hotSet.size(); i++) {
+			if (i > 0)
+				delayNanos += spreadNanos + ThreadLocalRandom.current().nextLong(spreadNanos / 2 + 1);
+
+			final var coordinates = hotSet.get(i);
+			try {
+				scheduler.schedule(() -> refresh(coordinates, publication), delayNanos, TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				LOGGER.warn("Could not schedule the refresh of the forecasts of {}, prewarmer stopped", coordinates);
+				break;
+			}
+		}
+
+		decay();
+	}
+
+	/**
+	 * Stop the scheduled refreshes.
+	 */
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	/* package */ List<Coordinates> hotSet() {
+		// snapshot the counts, as they keep changing while sorting
+		return demands.values().stream()
+				.map(demand -> Map.entry(demand.coordinates(), demand.requests().get()))
+				.filter(demand -> demand.getValue() > 0)
+				.sorted(Map.Entry.<Coordinates, Long>comparingByValue().reversed())
+				.limit(hotSetSize)
+				.map(Map.Entry::getKey)
+				.toList();
+	}
+
+	private void refresh(Coordinates coordinates, Instant publication) {
+		try {
+			UpstreamCallPriority.BACKGROUND.call(() -> repository.refresh(coordinates,
+					GetWeatherForecastUseCase.DEFAULT_FORECAST_DAYS, publication));
+		} catch (RefreshClaimedException e) {
+			LOGGER.debug("Not refreshing the forecasts of {}: {}", coordinates, e.getMessage());
+		} catch (RuntimeException e) {
+			LOGGER.warn("Could not refresh the forecasts of {}", coordinates, e);
+		}
+	}
+
+	private void decay() {
+		demands.values().removeIf(demand -> demand.requests().updateAndGet(requests -> requests / 2) == 0);
+	}
+
+	private record Demand(Coordinates coordinates, AtomicLong requests) {
+
+		Demand(Coordinates coordinates) {
+			this(coordinates, new AtomicLong());
+		}
+
+	}
+
+}
@@ -0,0 +1,161 @@
+package example.weatherwebapp.infrastructure;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import example.weatherwebapp.core.ForecastSeries;
+
+/**
+ * Binary encoding of a {@link ForecastSeries}, shared by the cache tiers storing them: the cache file
+ * and the database.
+ * <p>
+ * A version byte and a checksum of the series come first, so that series encoded by another version
+ * of the application, e.g. by another node during a rolling upgrade, or corrupted, are not decoded.
+ * Then the UTC offset, the weather conditions, and the forecasts with their condition code.
+ * Decimal measures are in hundredths, as in the series.
+ */
+final class ForecastSeriesCodec {
+
+	/**
+	 * Version of the encoding, to increment whenever it changes.
+	 */
+	static final byte VERSION = 1;
+
+	private ForecastSeriesCodec() {
+	}
+
+	/**
+	 * Encode a series.
+	 * @param series Series to encode.
+	 * @param out    Buffer written from its position.
+	 * @throws BufferOverflowException If the series does not fit in the buffer.
+	 */
+	static void encode(ForecastSeries series, ByteBuffer out) {
+		final int start = out.position();
+		out.put(VERSION);
+		// checksum, written once the series is
+		out.putInt(0);
+
+		out.putInt(series.utcOffset().getTotalSeconds());
+
+		final List<String> icons = new ArrayList<>();
+		final List<String> descriptions = new ArrayList<>();
+		final var codes = new byte[series.size()];
+		for (int i = 0; i < series.size(); i++) {
+			codes[i] = (byte) conditionCode(icons, descriptions, series.weatherIcon(i), series.weatherDescription(i));
+		}
+		out.putShort((short) icons.size());
+		for (int code = 0; code < icons.size(); code++) {
+			putString(out, icons.get(code));
+			putString(out, descriptions.get(code));
+		}
+
+		out.putShort((short) series.size());
+		// read from the columns, without creating the views of the forecasts
+		for (int i = 0; i < series.size(); i++) {
+			out.putLong(series.epochSecond(i));
+			out.putInt(series.temperatureHundredths(i));
+			out.putInt(series.feelsLikeTemperatureHundredths(i));
+			out.putShort((short) series.humidity(i));
+			out.putInt(series.windSpeedHundredths(i));
+			out.putShort((short) series.windDirection(i));
+			out.putInt(series.windGustHundredths(i));
+			out.putShort((short) series.cloudiness(i));
+			out.putInt(series.precipitationHundredths(i));
+			out.putShort((short) series.visibility(i));
+			out.put(codes[i]);
+		}
+
+		out.putInt(start + 1, checksum(out.duplicate().limit(out.position()).position(start + 5)));
+	}
+
+	/**
+	 * Decode a series encoded by {@link #encode(ForecastSeries, ByteBuffer)}.
+	 * @param in Buffer holding the encoded series, from its position to its limit.
+	 * @return Decoded series.
+	 * @throws IllegalArgumentException If the series was encoded by another version, or is corrupted.
+	 * @throws RuntimeException         Any other one if the series is not valid, e.g. a
+	 *                                  {@link BufferUnderflowException} if truncated.
+	 */
+	static ForecastSeries decode(ByteBuffer in) {
+		final byte version = in.get();
+		if (version != VERSION)
+			throw new IllegalArgumentException("Unsupported forecast series encoding version " + version);
+		final int checksum = in.getInt();
+		if (checksum != checksum(in.duplicate()))
+			throw new IllegalArgumentException("Corrupted forecast series");
+
+		final var utcOffset = ZoneOffset.ofTotalSeconds(in.getInt());
+
+		final int conditionCount = in.getShort();
+		final var icons = new String[conditionCount];
+		final var descriptions = new String[conditionCount];
+		for (int code = 0; code < conditionCount; code++) {
+			icons[code] = getString(in);
+			descriptions[code] = getString(in);
+		}
+
+		final int size = in.getShort();
+		final var series = ForecastSeries.builder(size);
+		for (int i = 0; i < size; i++) {
+			final long epochSecond = in.getLong();
+			final int temperature = in.getInt();
+			final int feelsLikeTemperature = in.getInt();
+			final int humidity = in.getShort();
+			final int windSpeed = in.getInt();
+			final int windDirection = in.getShort();
+			final int windGust = in.getInt();
+			final int cloudiness = in.getShort();
+			final int precipitation = in.getInt();
+			final int visibility = in.getShort();
+			final int code = Byte.toUnsignedInt(in.get());
+			series.addStored(epochSecond, temperature, feelsLikeTemperature, humidity, windSpeed, windDirection, windGust,
+					cloudiness, precipitation, visibility, icons[code], descriptions[code]);
+		}
+		return series.build(utcOffset);
+	}
+
+	private static int checksum(ByteBuffer encoded) {
+		final var crc = new CRC32();
+		crc.update(encoded);
+		return (int) crc.getValue();
+	}
+
+	private static int conditionCode(List<String> icons, List<String> descriptions, String icon,
+			String description) {
+		for (int code = 0; code < icons.size(); code++) {
+			if (Objects.equals(icons.get(code), icon) && Objects.equals(descriptions.get(code), description))
+				return code;
+		}
+		icons.add(icon);
+		descriptions.add(description);
+		return icons.size() - 1;
+	}
+
+	private static void putString(ByteBuffer out, String string) {
+		if (string == null) {
+			out.putShort((short) -1);
+			return;
+		}
+		final var bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.putShort((short) bytes.length);
+		out.put(bytes);
+	}
+
+	private static String getString(ByteBuffer in) {
+		final int length = in.getShort();
+		if (length < 0)
+			return null;
+		final var bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,49 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+
+/**
+ * Geocodes the cities found in a {@link CityGazetteer} without any network call,
+ * and the others through another {@link CityGeocodingRepository}.
+ * <p>
+ * Like OpenWeatherMap, it accepts names followed by a country code, e.g. "Vicenza, IT".
+ */
+public class GazetteerCityGeocodingRepository implements CityGeocodingRepository {
+
+	private final CityGazetteer gazetteer;
+
+	private final CityGeocodingRepository delegate;
+
+	/**
+	 * Create the repository.
+	 * @param gazetteer Gazetteer of the well-known cities.
+	 * @param delegate  Repository queried for the cities not in the gazetteer.
+	 */
+	public GazetteerCityGeocodingRepository(CityGazetteer gazetteer, CityGeocodingRepository delegate) {
+		this.gazetteer = Objects.requireNonNull(gazetteer, "Gazetteer was null.");
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+	}
+
+	@Override
+	public Optional<City> getCity(CityName cityName) {
+		final var normalizedName = cityName.normalized();
+
+		var city = gazetteer.find(normalizedName, null);
+
+		final int comma = normalizedName.lastIndexOf(',');
+		if (city.isEmpty() && comma > 0) {
+			final var name = normalizedName.substring(0, comma).strip();
+			final var countryCode = normalizedName.substring(comma + 1).strip();
+			if (countryCode.length() == 2)
+				city = gazetteer.find(name, countryCode);
+		}
+
+		return city.isPresent() ? city : delegate.getCity(cityName);
+	}
+
+}
@@ -0,0 +1,84 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.CitySuggestion;
+import example.weatherwebapp.core.CitySuggestionRepository;
+
+/**
+ * Suggests cities from the {@link CityGazetteer}, if any, and from the cities geocoded since the startup.
+ * <p>
+ * Geocoded cities are indexed by name and local names in a sorted map, up to a maximum number of names.
+ * They have no known population, so they come after the gazetteer cities.
+ */
+public class InMemoryCitySuggestionRepository implements CitySuggestionRepository {
+
+	private static final char KEY_SEPARATOR = '\u0000';
+
+	private final CityGazetteer gazetteer;
+
+	private final int maximumNames;
+
+	private final ConcurrentNavigableMap<String, CitySuggestion> geocodedCities = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Create the repository.
+	 * @param gazetteer    Gazetteer of the well-known cities, may be null.
+	 * @param maximumNames Maximum number of names of geocoded cities to index.
+	 */
+	public InMemoryCitySuggestionRepository(CityGazetteer gazetteer, int maximumNames) {
+		this.gazetteer = gazetteer;
+		this.maximumNames = maximumNames;
+	}
+
+	/**
+	 * Index a geocoded city, so that it can be suggested.
+	 * @param city Geocoded city.
+	 */
+	public void add(City city) {
+		if (city.name() == null || city.name().isBlank())
+			return;
+
+		final var suggestion = new CitySuggestion(city.name(), city.displayName(), city.country(), 0);
+		final Set<String> names = new HashSet<>(city.localNames().values());
+		names.add(city.name());
+		for (final var name : names) {
+			if (geocodedCities.size() >= maximumNames)
+				return;
+			if (!name.isBlank())
+				geocodedCities.putIfAbsent(new CityName(name).normalized() + KEY_SEPARATOR + city.displayName(),
+						suggestion);
+		}
+	}
+
+	@Override
+	public List<CitySuggestion> suggest(String normalizedPrefix, int limit) {
+		final List<CitySuggestion> suggestions = new ArrayList<>(limit);
+		final Set<String> displayNames = new HashSet<>();
+
+		if (gazetteer != null) {
+			for (final var suggestion : gazetteer.suggest(normalizedPrefix, limit)) {
+				displayNames.add(suggestion.displayName());
+				suggestions.add(suggestion);
+			}
+		}
+
+		final var matching = geocodedCities.subMap(normalizedPrefix, normalizedPrefix + Character.MAX_VALUE);
+		for (final var suggestion : matching.values()) {
+			if (suggestions.size() >= limit)
+				break;
+			if (displayNames.add(suggestion.displayName()))
+				suggestions.add(suggestion);
+		}
+
+		return suggestions;
+	}
+
+}
@@ -0,0 +1,122 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.NearestCityRepository;
+
+/**
+ * Finds the nearest city among the ones of the {@link CityGazetteer}, if any, and the cities geocoded
+ * since the startup, up to a maximum number of cities.
+ * <p>
+ * Cities are bucketed by cells of a latitude and longitude grid, at least as large as the maximum distance:
+ * a lookup only measures the distance to the cities of the cells around the coordinates.
+ */
+public class InMemoryNearestCityRepository implements NearestCityRepository {
+
+	private static final double KM_PER_DEGREE = 111.2;
+
+	private final double maximumDistanceKm;
+
+	private final int maximumCities;
+
+	private final double cellDegrees;
+
+	private final int longitudeCells;
+
+	private final ConcurrentMap<Long, ConcurrentMap<String, City>> cells = new ConcurrentHashMap<>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Create the repository.
+	 * @param gazetteer         Gazetteer of the well-known cities, may be null.
+	 * @param maximumDistanceKm Maximum distance of the nearest city from the coordinates, in kilometers.
+	 * @param maximumCities     Maximum number of cities to index, the gazetteer ones included.
+	 */
+	public InMemoryNearestCityRepository(CityGazetteer gazetteer, double maximumDistanceKm, int maximumCities) {
+		if (!(maximumDistanceKm > 0))
+			throw new IllegalArgumentException("Maximum distance must be positive.");
+		this.maximumDistanceKm = maximumDistanceKm;
+		this.maximumCities = maximumCities;
+		// whole number of cells around the globe, at least 0.01 degrees wide
+		this.longitudeCells = (int) Math.min(36_000, Math.floor(360 / (maximumDistanceKm / KM_PER_DEGREE)));
+		this.cellDegrees = 360.0 / longitudeCells;
+
+		if (gazetteer != null) {
+			for (int city = 0; city < gazetteer.size(); city++) {
+				add(gazetteer.toCity(city));
+			}
+		}
+	}
+
+	/**
+	 * Index a city, so that it can be found from nearby coordinates.
+	 * @param city City, e.g. a geocoded one.
+	 */
+	public void add(City city) {
+		if (size.get() >= maximumCities)
+			return;
+
+		final var coordinates = city.coordinates();
+		final var cell = cells.computeIfAbsent(cell(latitudeCell(coordinates.latitude()),
+				longitudeCell(coordinates.longitude())), key -> new ConcurrentHashMap<>());
+		// the same city geocoded from several names is indexed once
+		if (cell.putIfAbsent(city.displayName(), city) == null)
+			size.incrementAndGet();
+	}
+
+	@Override
+	public Optional<City> findNearest(Coordinates coordinates) {
+		final double latitudeDelta = maximumDistanceKm / KM_PER_DEGREE;
+		// meridians converge towards the poles: a kilometer is more longitude degrees
+		final double cosine = Math.cos(Math.toRadians(Math.min(90, Math.abs(coordinates.latitude()) + latitudeDelta)));
+		final int longitudeSpan = (int) Math.min(longitudeCells / 2, Math.ceil(latitudeDelta / cosine / cellDegrees));
+
+		final int latitudeCell = latitudeCell(coordinates.latitude());
+		final int longitudeCell = longitudeCell(coordinates.longitude());
+		City nearest = null;
+		double nearestDistance = maximumDistanceKm;
+		for (int latitude = latitudeCell - 1; latitude <= latitudeCell + 1; latitude++) {
+			for (int longitude = longitudeCell - longitudeSpan; longitude <= longitudeCell + longitudeSpan;
+					longitude++) {
+				final var cell = cells.get(cell(latitude, Math.floorMod(longitude, longitudeCells)));
+				if (cell == null)
+					continue;
+				for (final var city : cell.values()) {
+					final double distance = coordinates.distanceKm(city.coordinates());
+					if (distance <= nearestDistance) {
+						nearest = city;
+						nearestDistance = distance;
+					}
+				}
+			}
+		}
+		return Optional.ofNullable(nearest);
+	}
+
+	/**
+	 * Number of indexed cities.
+	 * @return Number of indexed cities.
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	private int latitudeCell(double latitude) {
+		return (int) Math.floor(latitude / cellDegrees);
+	}
+
+	private int longitudeCell(double longitude) {
+		return Math.floorMod((int) Math.floor(longitude / cellDegrees), longitudeCells);
+	}
+
+	private static long cell(int latitudeCell, int longitudeCell) {
+		return ((long) latitudeCell << 32) | (longitudeCell & 0xFFFF_FFFFL);
+	}
+
+}
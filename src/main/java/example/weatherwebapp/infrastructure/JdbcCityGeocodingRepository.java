@@ -0,0 +1,152 @@
+package example.weatherwebapp.infrastructure;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.Coordinates;
+
+/**
+ * Persistent store of the geocoded cities, in front of another {@link CityGeocodingRepository}.
+ * Cities are stored by normalized name, and the delegate is queried only when a name is not stored yet.
+ * <p>
+ * The store is shared by all the nodes using the same database and survives restarts.
+ * Database failures are logged and the delegate is queried instead.
+ */
+public class JdbcCityGeocodingRepository implements CityGeocodingRepository {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JdbcCityGeocodingRepository.class);
+
+	private static final String SELECT_CITY = """
+			SELECT id, name, display_name, country, state, latitude, longitude
+			FROM geocoded_city
+			WHERE normalized_name = :normalizedName""";
+
+	private static final String SELECT_LOCAL_NAMES = """
+			SELECT language, name
+			FROM geocoded_city_local_name
+			WHERE geocoded_city_id = :id""";
+
+	private static final String INSERT_CITY = """
+			INSERT INTO geocoded_city
+				(normalized_name, name, display_name, country, state, latitude, longitude, resolved_at)
+			VALUES
+				(:normalizedName, :name, :displayName, :country, :state, :latitude, :longitude, :resolvedAt)""";
+
+	private static final String INSERT_LOCAL_NAME = """
+			INSERT INTO geocoded_city_local_name (geocoded_city_id, language, name)
+			VALUES (:id, :language, :name)""";
+
+	private final CityGeocodingRepository delegate;
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Clock clock;
+
+	/**
+	 * Create the JDBC repository.
+	 *
+	 * @param delegate            Repository queried for the cities not stored yet.
+	 * @param jdbcTemplate        JDBC template.
+	 * @param transactionTemplate Transaction template used when storing a city.
+	 * @param clock               Clock used to timestamp the stored cities.
+	 */
+	public JdbcCityGeocodingRepository(CityGeocodingRepository delegate, NamedParameterJdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate, Clock clock) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.clock = clock;
+	}
+
+	@Override
+	public Optional<City> getCity(CityName cityName) {
+		final var normalizedName = cityName.normalized();
+
+		final var stored = find(normalizedName);
+		if (stored.isPresent())
+			return stored;
+
+		final var city = delegate.getCity(cityName);
+		city.ifPresent(c -> save(normalizedName, c));
+		return city;
+	}
+
+	private Optional<City> find(String normalizedName) {
+		try {
+			final var rows = jdbcTemplate.query(SELECT_CITY, Map.of("normalizedName", normalizedName),
+					(rs, rowNum) -> new StoredCity(rs.getLong("id"), rs.getString("name"), rs.getString("display_name"),
+							rs.getString("country"), rs.getString("state"),
+							new Coordinates(rs.getDouble("latitude"), rs.getDouble("longitude"))));
+			if (rows.isEmpty())
+				return Optional.empty();
+
+			final var row = rows.get(0);
+			final Map<String, String> localNames = new HashMap<>();
+			jdbcTemplate.query(SELECT_LOCAL_NAMES, Map.of("id", row.id()),
+					rs -> {
+						localNames.put(rs.getString("language"), rs.getString("name"));
+					});
+			return Optional.of(new City(row.coordinates(), row.displayName(), row.name(), row.country(), row.state(),
+					localNames));
+		} catch (DataAccessException e) {
+			LOGGER.warn("Could not read geocoded city '{}' from the database", normalizedName, e);
+			return Optional.empty();
+		}
+	}
+
+	private void save(String normalizedName, City city) {
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				final var keyHolder = new GeneratedKeyHolder();
+				final var params = new MapSqlParameterSource()
+						.addValue("normalizedName", normalizedName)
+						.addValue("name", city.name())
+						.addValue("displayName", city.displayName())
+						.addValue("country", city.country())
+						.addValue("state", city.state())
+						.addValue("latitude", city.coordinates().latitude())
+						.addValue("longitude", city.coordinates().longitude())
+						.addValue("resolvedAt", Timestamp.from(clock.instant()));
+				jdbcTemplate.update(INSERT_CITY, params, keyHolder, new String[] { "id" });
+
+				final long id = Objects.requireNonNull(keyHolder.getKey(), "Generated id was null.").longValue();
+				final var localNames = city.localNames().entrySet().stream()
+						.map(entry -> new MapSqlParameterSource()
+								.addValue("id", id)
+								.addValue("language", entry.getKey())
+								.addValue("name", entry.getValue()))
+						.toArray(SqlParameterSource[]::new);
+				jdbcTemplate.batchUpdate(INSERT_LOCAL_NAME, localNames);
+			});
+		} catch (DuplicateKeyException e) {
+			// stored in the meantime by another request or node
+			LOGGER.debug("Geocoded city '{}' already stored", normalizedName);
+		} catch (DataAccessException e) {
+			LOGGER.warn("Could not store geocoded city '{}' in the database", normalizedName, e);
+		}
+	}
+
+	private record StoredCity(long id, String name, String displayName, String country, String state,
+			Coordinates coordinates) {
+	}
+
+}
@@ -0,0 +1,124 @@
+package example.weatherwebapp.infrastructure;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link TokenBucket} stored in the database, shared by all the nodes using the same database,
+ * so that together they stay under the quota of the API key.
+ * <p>
+ * Every token is taken in a transaction locking the row of the bucket: a database round trip per upstream call,
+ * small compared to the call itself. The bucket is refilled with the time elapsed since the last take,
+ * so the clocks of the nodes are expected to be synchronized.
+ * Database failures are logged and the fallback bucket, local to the node, is used instead.
+ */
+public class JdbcTokenBucket implements TokenBucket {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JdbcTokenBucket.class);
+
+	private static final String SELECT_BUCKET = """
+			SELECT tokens, refilled_at
+			FROM upstream_rate_limit
+			WHERE bucket = :bucket
+			FOR UPDATE""";
+
+	private static final String UPDATE_BUCKET = """
+			UPDATE upstream_rate_limit
+			SET tokens = :tokens, refilled_at = :refilledAt
+			WHERE bucket = :bucket""";
+
+	private static final String INSERT_BUCKET = """
+			INSERT INTO upstream_rate_limit (bucket, tokens, refilled_at)
+			VALUES (:bucket, :tokens, :refilledAt)""";
+
+	private final String bucket;
+
+	private final double capacity;
+
+	private final double tokensPerSecond;
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Clock clock;
+
+	private final TokenBucket fallback;
+
+	/**
+	 * Create the bucket, full if not stored yet.
+	 *
+	 * @param bucket              Name of the bucket, shared by the nodes.
+	 * @param capacity            Maximum number of tokens, i.e. of calls in a burst.
+	 * @param tokensPerSecond     Refill rate.
+	 * @param jdbcTemplate        JDBC template.
+	 * @param transactionTemplate Transaction template used when taking a token.
+	 * @param clock               Clock.
+	 * @param fallback            Bucket used when the database is not available.
+	 */
+	public JdbcTokenBucket(String bucket, double capacity, double tokensPerSecond,
+			NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Clock clock,
+			TokenBucket fallback) {
+		this.bucket = Objects.requireNonNull(bucket, "Bucket name was null.");
+		this.capacity = capacity;
+		this.tokensPerSecond = tokensPerSecond;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.clock = clock;
+		this.fallback = fallback;
+	}
+
+	@Override
+	public long tryTake(double reserve) {
+		try {
+			return take(reserve);
+		} catch (DuplicateKeyException e) {
+			// created in the meantime by another node
+			return take(reserve);
+		} catch (DataAccessException e) {
+			LOGGER.warn("Could not take a token of the {} bucket from the database, limiting locally", bucket, e);
+			return fallback.tryTake(reserve);
+		}
+	}
+
+	private long take(double reserve) {
+		final Long waitNanos = transactionTemplate.execute(status -> {
+			final var now = clock.instant();
+			final var rows = jdbcTemplate.query(SELECT_BUCKET, Map.of("bucket", bucket),
+					(rs, rowNum) -> new StoredBucket(rs.getDouble("tokens"), rs.getTimestamp("refilled_at")));
+			if (rows.isEmpty()) {
+				jdbcTemplate.update(INSERT_BUCKET, Map.of("bucket", bucket, "tokens", capacity - 1,
+						"refilledAt", Timestamp.from(now)));
+				return 0L;
+			}
+
+			final var stored = rows.get(0);
+			final double tokens = TokenBucket.refill(stored.tokens(), capacity, tokensPerSecond,
+					Duration.between(stored.refilledAt().toInstant(), now));
+			if (tokens < 1 + reserve)
+				return TokenBucket.nanosToRefill(1 + reserve - tokens, tokensPerSecond);
+
+			// a clock behind the one of the last node does not move the refill instant backwards
+			final var refilledAt = now.isAfter(stored.refilledAt().toInstant()) ? Timestamp.from(now)
+					: stored.refilledAt();
+			jdbcTemplate.update(UPDATE_BUCKET, Map.of("bucket", bucket, "tokens", tokens - 1,
+					"refilledAt", refilledAt));
+			return 0L;
+		});
+		return Objects.requireNonNull(waitNanos, "Wait was null.");
+	}
+
+	private record StoredBucket(double tokens, Timestamp refilledAt) {
+	}
+
+}
@@ -0,0 +1,289 @@
+package example.weatherwebapp.infrastructure;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.ForecastSeries;
+import example.weatherwebapp.core.ForecastSlots;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Forecast cache tier stored in the database, in front of another {@link WeatherForecastRepository}:
+ * the second level shared by all the nodes using the same database, below their in-memory caches.
+ * The upstream is then called once per grid cell and forecast slot by the whole cluster,
+ * instead of once per node.
+ * <p>
+ * Entries are keyed by the (snapped) coordinates, hold the series encoded by the {@link ForecastSeriesCodec},
+ * and expire at the next forecast publication after they were fetched. An entry is never replaced
+ * by one expiring earlier, and every stored entry is announced to the other nodes with its expiration,
+ * so that they drop the older forecasts they cache in memory.
+ * <p>
+ * When the prewarmers of the nodes refresh the same cell, the first one claims the entry and calls the delegate;
+ * the others do not wait for it and fail with a {@link RefreshClaimedException}, keeping the entries they cache
+ * until the stored one is announced, and call the delegate only if the claim lapsed.
+ * Database failures are logged and the delegate is queried instead.
+ */
+public class JdbcWeatherForecastRepository implements RefreshableWeatherForecastRepository {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JdbcWeatherForecastRepository.class);
+
+	private static final int MAXIMUM_ENCODED_SIZE = 16 * 1024;
+
+	private static final String SELECT_FORECASTS = """
+			SELECT forecasts
+			FROM forecast_cache
+			WHERE latitude = :latitude AND longitude = :longitude AND expires_at > :after""";
+
+	private static final Duration CLAIM_DURATION = Duration.ofSeconds(30);
+
+
+	private static final String SELECT_CLAIM = """
+			SELECT refreshing_until
+			FROM forecast_cache
+			WHERE latitude = :latitude AND longitude = :longitude""";
+
+	private static final String CLAIM_REFRESH = """
+			UPDATE forecast_cache
+			SET refreshing_until = :refreshingUntil
+			WHERE latitude = :latitude AND longitude = :longitude AND expires_at <= :after
+				AND (refreshing_until IS NULL OR refreshing_until <= :now)""";
+
+	private static final String RELEASE_CLAIM = """
+			UPDATE forecast_cache
+			SET refreshing_until = NULL
+			WHERE latitude = :latitude AND longitude = :longitude AND refreshing_until = :refreshingUntil""";
+
+	private static final String UPDATE_FORECASTS = """
+			UPDATE forecast_cache
+			SET forecasts = :forecasts, expires_at = :expiresAt, refreshing_until = NULL
+			WHERE latitude = :latitude AND longitude = :longitude AND expires_at <= :expiresAt""";
+
+	private static final String INSERT_FORECASTS = """
+			INSERT INTO forecast_cache (latitude, longitude, forecasts, expires_at)
+			VALUES (:latitude, :longitude, :forecasts, :expiresAt)""";
+
+	private static final String DELETE_EXPIRED = """
+			DELETE FROM forecast_cache
+			WHERE expires_at <= :now""";
+
+	private final WeatherForecastRepository delegate;
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	private final Duration slotDelay;
+
+	private final Clock clock;
+
+	private final BiConsumer<Coordinates, Instant> onStored;
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	/**
+	 * Create the JDBC repository.
+	 *
+	 * @param delegate      Repository queried when the forecasts are not stored, or expired.
+	 * @param jdbcTemplate  JDBC template.
+	 * @param slotDelay     How long after a slot boundary the upstream is expected to have refreshed its forecasts.
+	 * @param clock         Clock used to compute the expirations.
+	 * @param onStored      Invoked with the coordinates and expiration of the forecasts stored,
+	 *                      e.g. to notify the other nodes.
+	 * @param meterRegistry Registry of the hit and miss counters.
+	 */
+	public JdbcWeatherForecastRepository(WeatherForecastRepository delegate, NamedParameterJdbcTemplate jdbcTemplate,
+			Duration slotDelay, Clock clock, BiConsumer<Coordinates, Instant> onStored, MeterRegistry meterRegistry) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.jdbcTemplate = jdbcTemplate;
+		this.slotDelay = slotDelay;
+		this.clock = clock;
+		this.onStored = onStored;
+		this.hits = Counter.builder("cache.gets").tag("cache", "forecast-shared").tag("result", "hit")
+				.description("Shared forecast cache lookups").register(meterRegistry);
+		this.misses = Counter.builder("cache.gets").tag("cache", "forecast-shared").tag("result", "miss")
+				.description("Shared forecast cache lookups").register(meterRegistry);
+	}
+
+	@Override
+	public List<WeatherForecast> getWeatherForecastForCity(Coordinates coordinates, int limit) {
+		final var stored = find(coordinates, clock.instant());
+		if (stored != null) {
+			hits.increment();
+			return stored;
+		}
+
+		misses.increment();
+		final var forecasts = delegate.getWeatherForecastForCity(coordinates, limit);
+		save(coordinates, forecasts, ForecastSlots.nextPublication(clock.instant(), slotDelay));
+		return forecasts;
+	}
+
+	@Override
+	public List<WeatherForecast> refresh(Coordinates coordinates, int limit, Instant validFrom) {
+		final var now = clock.instant();
+		final var after = now.isAfter(validFrom) ? now : validFrom;
+
+		// refreshed by another node already
+		final var stored = find(coordinates, after);
+		if (stored != null) {
+			hits.increment();
+			return stored;
+		}
+
+		final var refreshingUntil = now.plus(CLAIM_DURATION);
+		if (!claim(coordinates, after, now, refreshingUntil)) {
+			final var refreshed = find(coordinates, after);
+			if (refreshed != null) {
+				hits.increment();
+				return refreshed;
+			}
+			// do not wait for it: the caller keeps its stale entry until the notification of the refreshed one
+			if (claimedByAnotherNode(coordinates))
+				throw new RefreshClaimedException(coordinates);
+		}
+
+		misses.increment();
+		try {
+			final var forecasts = RefreshableWeatherForecastRepository.refresh(delegate, coordinates, limit,
+					validFrom);
+			save(coordinates, forecasts, ForecastSlots.nextPublication(clock.instant(), slotDelay));
+			return forecasts;
+		} finally {
+			release(coordinates, refreshingUntil);
+		}
+	}
+
+	/**
+	 * Delete the expired entries, replaced by the next fetch anyway, so that the cells nobody asks for anymore
+	 * do not pile up. Invoked periodically.
+	 */
+	@Scheduled(fixedDelayString = "${weather.forecast.shared-cache.purge-interval-ms:3600000}",
+			initialDelayString = "${weather.forecast.shared-cache.purge-interval-ms:3600000}")
+	public void purgeExpired() {
+		try {
+			final int purged = jdbcTemplate.update(DELETE_EXPIRED, Map.of("now", Timestamp.from(clock.instant())));
+			LOGGER.debug("Purged {} expired forecasts from the database", purged);
+		} catch (DataAccessException e) {
+			LOGGER.warn("Could not purge the expired forecasts from the database", e);
+		}
+	}
+
+	/**
+	 * Claim the refresh of an entry expiring before the given instant, unless claimed by another node.
+	 * @return Whether this node claimed the refresh, or the database failed.
+	 */
+	private boolean claim(Coordinates coordinates, Instant after, Instant now, Instant refreshingUntil) {
+		try {
+			return jdbcTemplate.update(CLAIM_REFRESH, Map.of("latitude", coordinates.latitude(),
+					"longitude", coordinates.longitude(), "after", Timestamp.from(after), "now", Timestamp.from(now),
+					"refreshingUntil", Timestamp.from(refreshingUntil))) > 0;
+		} catch (DataAccessException e) {
+			LOGGER.warn("Could not claim the refresh of the forecasts of {}", coordinates, e);
+			return true;
+		}
+	}
+
+	/**
+	 * Whether another node holds a live claim on the refresh of the entry.
+	 */
+	private boolean claimedByAnotherNode(Coordinates coordinates) {
+		final var claimedUntil = claimedUntil(coordinates);
+		return claimedUntil != null && claimedUntil.isAfter(clock.instant());
+	}
+
+	private Instant claimedUntil(Coordinates coordinates) {
+		try {
+			final var rows = jdbcTemplate.query(SELECT_CLAIM,
+					Map.of("latitude", coordinates.latitude(), "longitude", coordinates.longitude()),
+					(rs, rowNum) -> rs.getTimestamp("refreshing_until"));
+			return rows.isEmpty() || rows.get(0) == null ? null : rows.get(0).toInstant();
+		} catch (DataAccessException e) {
+			LOGGER.warn("Could not read the refresh claim of the forecasts of {}", coordinates, e);
+			return null;
+		}
+	}
+
+	private void release(Coordinates coordinates, Instant refreshingUntil) {
+		try {
+			jdbcTemplate.update(RELEASE_CLAIM, Map.of("latitude", coordinates.latitude(),
+					"longitude", coordinates.longitude(), "refreshingUntil", Timestamp.from(refreshingUntil)));
+		} catch (DataAccessException e) {
+			LOGGER.debug("Could not release the refresh claim of the forecasts of {}", coordinates, e);
+		}
+	}
+
+	/**
+	 * Forecasts of the coordinates, if stored and expiring after the given instant.
+	 */
+	private ForecastSeries find(Coordinates coordinates, Instant expiringAfter) {
+		try {
+			final var rows = jdbcTemplate.query(SELECT_FORECASTS,
+					Map.of("latitude", coordinates.latitude(), "longitude", coordinates.longitude(),
+							"after", Timestamp.from(expiringAfter)),
+					(rs, rowNum) -> rs.getBytes("forecasts"));
+			if (rows.isEmpty())
+				return null;
+			return ForecastSeriesCodec.decode(ByteBuffer.wrap(rows.get(0)));
+		} catch (DataAccessException e) {
+			LOGGER.warn("Could not read the forecasts of {} from the database", coordinates, e);
+			return null;
+		} catch (RuntimeException e) {
+			// e.g. stored by a node with another encoding, during a rolling upgrade
+			LOGGER.warn("Ignoring the unreadable stored forecasts of {}", coordinates, e);
+			return null;
+		}
+	}
+
+	private void save(Coordinates coordinates, List<WeatherForecast> forecasts, Instant expiration) {
+		// an empty series means the upstream call did not succeed
+		if (forecasts.isEmpty())
+			return;
+
+		final var encoded = ByteBuffer.allocate(MAXIMUM_ENCODED_SIZE);
+		try {
+			ForecastSeriesCodec.encode(ForecastSeries.of(forecasts), encoded);
+		} catch (BufferOverflowException e) {
+			LOGGER.debug("Forecasts of {} too large to be stored", coordinates);
+			return;
+		}
+
+		final Map<String, Object> params = Map.of(
+				"latitude", coordinates.latitude(),
+				"longitude", coordinates.longitude(),
+				"forecasts", Arrays.copyOf(encoded.array(), encoded.position()),
+				"expiresAt", Timestamp.from(expiration));
+		try {
+			if (jdbcTemplate.update(UPDATE_FORECASTS, params) == 0)
+				jdbcTemplate.update(INSERT_FORECASTS, params);
+		} catch (DuplicateKeyException e) {
+			// stored in the meantime by another node, or already stored with a later expiration
+			LOGGER.debug("Forecasts of {} already stored", coordinates);
+			return;
+		} catch (DataAccessException e) {
+			LOGGER.warn("Could not store the forecasts of {} in the database", coordinates, e);
+			return;
+		}
+		onStored.accept(coordinates, expiration);
+	}
+
+}
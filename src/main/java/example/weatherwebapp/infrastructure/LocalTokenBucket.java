@@ -0,0 +1,52 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@link TokenBucket} in memory, limiting the calls of this node only. Starts full.
+ */
+public class LocalTokenBucket implements TokenBucket {
+
+	private final double capacity;
+
+	private final double tokensPerSecond;
+
+	private final Clock clock;
+
+	private double tokens;
+
+	private Instant refilledAt;
+
+	/**
+	 * Create the bucket, full.
+	 *
+	 * @param capacity        Maximum number of tokens, i.e. of calls in a burst.
+	 * @param tokensPerSecond Refill rate.
+	 * @param clock           Clock.
+	 */
+	public LocalTokenBucket(double capacity, double tokensPerSecond, Clock clock) {
+		if (capacity < 1 || tokensPerSecond <= 0)
+			throw new IllegalArgumentException("Capacity must be at least 1 and the refill rate positive.");
+		this.capacity = capacity;
+		this.tokensPerSecond = tokensPerSecond;
+		this.clock = clock;
+		this.tokens = capacity;
+		this.refilledAt = clock.instant();
+	}
+
+	@Override
+	public synchronized long tryTake(double reserve) {
+		final var now = clock.instant();
+		tokens = TokenBucket.refill(tokens, capacity, tokensPerSecond, Duration.between(refilledAt, now));
+		refilledAt = now;
+
+		if (tokens >= 1 + reserve) {
+			tokens--;
+			return 0;
+		}
+		return TokenBucket.nanosToRefill(1 + reserve - tokens, tokensPerSecond);
+	}
+
+}
@@ -0,0 +1,37 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+
+/**
+ * Adds the cities found by another {@link CityGeocodingRepository} to the nearest city index.
+ */
+public class LocationIndexingCityGeocodingRepository implements CityGeocodingRepository {
+
+	private final CityGeocodingRepository delegate;
+
+	private final InMemoryNearestCityRepository nearestCities;
+
+	/**
+	 * Create the repository.
+	 * @param delegate      Repository actually queried.
+	 * @param nearestCities Index the found cities are added to.
+	 */
+	public LocationIndexingCityGeocodingRepository(CityGeocodingRepository delegate,
+			InMemoryNearestCityRepository nearestCities) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.nearestCities = Objects.requireNonNull(nearestCities, "Nearest cities were null.");
+	}
+
+	@Override
+	public Optional<City> getCity(CityName cityName) {
+		final var city = delegate.getCity(cityName);
+		city.ifPresent(nearestCities::add);
+		return city;
+	}
+
+}
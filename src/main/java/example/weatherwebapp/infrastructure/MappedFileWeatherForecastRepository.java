@@ -0,0 +1,311 @@
+package example.weatherwebapp.infrastructure;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.ForecastSeries;
+import example.weatherwebapp.core.ForecastSlots;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Forecast cache tier stored in a memory-mapped file, in front of another {@link WeatherForecastRepository},
+ * so that the cached forecasts survive restarts and are kept off the heap.
+ * <p>
+ * The file is a hash table of fixed-size entries keyed by the (snapped) coordinates, with linear probing:
+ * a new entry replaces an expired one, or the one expiring first. Each entry holds its expiration
+ * (the next forecast publication after it was fetched), the encoded forecast series and a checksum,
+ * so that entries partially written when the process stopped are ignored.
+ * Series larger than an entry are not stored.
+ * <p>
+ * The file is locked exclusively while mapped: a second process, or repository, using the same file
+ * fails at startup instead of overwriting the entries being read.
+ */
+public class MappedFileWeatherForecastRepository implements RefreshableWeatherForecastRepository, AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileWeatherForecastRepository.class);
+
+	private static final int MAGIC = 0x57464332; // "WFC2"
+
+	private static final int HEADER_SIZE = 64;
+
+	// entry layout: latitude, longitude, expiration (0 when empty), payload length, checksum, payload
+	private static final int LATITUDE = 0;
+	private static final int LONGITUDE = 8;
+	private static final int EXPIRATION = 16;
+	private static final int LENGTH = 24;
+	private static final int CHECKSUM = 28;
+	private static final int PAYLOAD = 32;
+
+	private static final int MAXIMUM_PROBES = 8;
+
+	private static final int LOCK_STRIPES = 64;
+
+	private final WeatherForecastRepository delegate;
+
+	private final Duration slotDelay;
+
+	private final Clock clock;
+
+	private final FileChannel channel;
+
+	private final MappedByteBuffer buffer;
+
+	private final int entryCount;
+
+	private final int entrySize;
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	/**
+	 * Create the repository, mapping the file. An existing file with the same layout is reused,
+	 * any other is reset.
+	 *
+	 * @param delegate      Repository queried on cache misses.
+	 * @param path          File of the cache.
+	 * @param entryCount    Maximum number of cached forecast series.
+	 * @param entrySize     Size of an entry in bytes, bounding the size of the cached series.
+	 * @param slotDelay     How long after a slot boundary the upstream is expected to have refreshed its forecasts.
+	 * @param clock         Clock used to compute the expirations.
+	 * @param meterRegistry Registry of the hit and miss counters.
+	 * @throws IOException Thrown if the file can not be created, locked or mapped.
+	 */
+	public MappedFileWeatherForecastRepository(WeatherForecastRepository delegate, Path path, int entryCount,
+			int entrySize, Duration slotDelay, Clock clock, MeterRegistry meterRegistry) throws IOException {
+		if (entryCount <= 0 || entrySize <= PAYLOAD)
+			throw new IllegalArgumentException("Entry count and size must be positive.");
+		final long fileSize = HEADER_SIZE + (long) entryCount * entrySize;
+		if (fileSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("The cache file can not exceed 2 GiB.");
+
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.entryCount = entryCount;
+		this.entrySize = entrySize;
+		this.slotDelay = slotDelay;
+		this.clock = clock;
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+
+		if (path.getParent() != null)
+			Files.createDirectories(path.getParent());
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		lock(channel, path);
+		final boolean reusable = channel.size() == fileSize;
+		this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+		if (!reusable || buffer.getInt(0) != MAGIC || buffer.getInt(4) != entryCount || buffer.getInt(8) != entrySize) {
+			LOGGER.info("Initializing the forecast cache file {} ({} entries of {} bytes)", path, entryCount,
+					entrySize);
+			for (int entry = 0; entry < entryCount; entry++) {
+				buffer.putLong(offset(entry) + EXPIRATION, 0);
+			}
+			buffer.putInt(4, entryCount);
+			buffer.putInt(8, entrySize);
+			// written last: a file initialized partially is initialized again
+			buffer.putInt(0, MAGIC);
+		}
+
+		this.hits = Counter.builder("cache.gets").tag("cache", "forecast-file").tag("result", "hit")
+				.description("Forecast cache file lookups").register(meterRegistry);
+		this.misses = Counter.builder("cache.gets").tag("cache", "forecast-file").tag("result", "miss")
+				.description("Forecast cache file lookups").register(meterRegistry);
+	}
+
+	@Override
+	public List<WeatherForecast> getWeatherForecastForCity(Coordinates coordinates, int limit) {
+		final var cached = read(coordinates, clock.instant());
+		if (cached != null) {
+			hits.increment();
+			return cached;
+		}
+
+		misses.increment();
+		final var forecasts = delegate.getWeatherForecastForCity(coordinates, limit);
+		write(coordinates, forecasts, ForecastSlots.nextPublication(clock.instant(), slotDelay));
+		return forecasts;
+	}
+
+	@Override
+	public List<WeatherForecast> refresh(Coordinates coordinates, int limit, Instant validFrom) {
+		final var now = clock.instant();
+		final var cached = read(coordinates, now.isAfter(validFrom) ? now : validFrom);
+		if (cached != null)
+			return cached;
+
+		final var forecasts = RefreshableWeatherForecastRepository.refresh(delegate, coordinates, limit, validFrom);
+		write(coordinates, forecasts, ForecastSlots.nextPublication(now, slotDelay));
+		return forecasts;
+	}
+
+	/**
+	 * Flush the entries to the file and close it.
+	 */
+	@Override
+	public void close() throws IOException {
+		buffer.force();
+		channel.close();
+	}
+
+	/**
+	 * Forecasts of the coordinates, if stored and expiring after the given instant.
+	 */
+	private ForecastSeries read(Coordinates coordinates, Instant expiringAfter) {
+		final long after = expiringAfter.toEpochMilli();
+		final int home = home(coordinates);
+		for (int probe = 0; probe < Math.min(MAXIMUM_PROBES, entryCount); probe++) {
+			final int entry = (home + probe) % entryCount;
+			synchronized (lock(entry)) {
+				final var slot = slot(entry);
+				final long expiration = slot.getLong(EXPIRATION);
+				if (expiration == 0)
+					return null;
+				if (!hasKey(slot, coordinates))
+					continue;
+				final int length = slot.getInt(LENGTH);
+				if (expiration <= after || length < 0 || length > entrySize - PAYLOAD
+						|| slot.getInt(CHECKSUM) != checksum(slot))
+					return null;
+				try {
+					return ForecastSeriesCodec.decode(slot.slice(PAYLOAD, length));
+				} catch (RuntimeException e) {
+					LOGGER.warn("Ignoring the unreadable cached forecasts of {}", coordinates, e);
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+
+	private void write(Coordinates coordinates, List<WeatherForecast> forecasts, Instant expiration) {
+		// an empty series means the upstream call did not succeed
+		if (forecasts.isEmpty())
+			return;
+
+		final var payload = ByteBuffer.allocate(entrySize - PAYLOAD);
+		try {
+			ForecastSeriesCodec.encode(ForecastSeries.of(forecasts), payload);
+		} catch (BufferOverflowException e) {
+			LOGGER.debug("Forecasts of {} too large for the cache file entries", coordinates);
+			return;
+		}
+		payload.flip();
+
+		final int entry = chooseEntry(coordinates, clock.millis());
+		synchronized (lock(entry)) {
+			final var slot = slot(entry);
+			// invalidated while written, in case the process stops in the middle
+			slot.putLong(EXPIRATION, 0);
+			slot.putLong(LATITUDE, Double.doubleToLongBits(coordinates.latitude()));
+			slot.putLong(LONGITUDE, Double.doubleToLongBits(coordinates.longitude()));
+			slot.putInt(LENGTH, payload.remaining());
+			slot.put(PAYLOAD, payload, 0, payload.remaining());
+			slot.putLong(EXPIRATION, expiration.toEpochMilli());
+			slot.putInt(CHECKSUM, checksum(slot));
+		}
+	}
+
+	/**
+	 * Entry of the coordinates if present, or else the first empty or expired entry, or else the entry
+	 * expiring first among the probed ones. Concurrent writers may choose the same entry: the last one wins.
+	 */
+	private int chooseEntry(Coordinates coordinates, long now) {
+		final int home = home(coordinates);
+		int chosen = -1;
+		long chosenExpiration = Long.MAX_VALUE;
+		for (int probe = 0; probe < Math.min(MAXIMUM_PROBES, entryCount); probe++) {
+			final int entry = (home + probe) % entryCount;
+			synchronized (lock(entry)) {
+				final var slot = slot(entry);
+				final long expiration = slot.getLong(EXPIRATION);
+				if (expiration != 0 && hasKey(slot, coordinates))
+					return entry;
+				// an empty entry ends the probe sequence: the coordinates can not be further
+				if (expiration == 0)
+					return chosen >= 0 && chosenExpiration <= now ? chosen : entry;
+				if (expiration < chosenExpiration) {
+					chosen = entry;
+					chosenExpiration = expiration;
+				}
+			}
+		}
+		return chosen;
+	}
+
+	/**
+	 * Lock the whole file exclusively, until the channel is closed, or close it.
+	 */
+	private static void lock(FileChannel channel, Path path) throws IOException {
+		FileLock lock;
+		try {
+			lock = channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			// already locked by this process
+			lock = null;
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		if (lock == null) {
+			channel.close();
+			throw new IOException("The forecast cache file " + path + " is already in use");
+		}
+	}
+
+	private ByteBuffer slot(int entry) {
+		return buffer.slice(offset(entry), entrySize);
+	}
+
+	private int offset(int entry) {
+		return HEADER_SIZE + entry * entrySize;
+	}
+
+	private Object lock(int entry) {
+		return locks[entry % LOCK_STRIPES];
+	}
+
+	private int home(Coordinates coordinates) {
+		final int hash = coordinates.hashCode();
+		return Math.floorMod(hash ^ (hash >>> 16), entryCount);
+	}
+
+	private static boolean hasKey(ByteBuffer slot, Coordinates coordinates) {
+		return slot.getLong(LATITUDE) == Double.doubleToLongBits(coordinates.latitude())
+				&& slot.getLong(LONGITUDE) == Double.doubleToLongBits(coordinates.longitude());
+	}
+
+	/**
+	 * Checksum of the key, expiration and payload of an entry.
+	 */
+	private static int checksum(ByteBuffer slot) {
+		final var crc = new CRC32();
+		crc.update(slot.slice(0, CHECKSUM));
+		crc.update(slot.slice(PAYLOAD, slot.getInt(LENGTH)));
+		return (int) crc.getValue();
+	}
+
+}
@@ -0,0 +1,260 @@
+package example.weatherwebapp.infrastructure;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.ZoneOffset;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import example.weatherwebapp.core.ForecastSeries;
+import example.weatherwebapp.core.WeatherForecast;
+
+/**
+ * Streaming decoder of the OpenWeatherMap 5 days forecast responses.
+ * <p>
+ * Reads only the fields mapped to {@link WeatherForecast} and skips everything else,
+ * without binding the whole response to DTOs first.
+ * Missing measures are 0, and forecasts without the {@code weather} array have no icon nor description.
+ * The series has the UTC offset of {@code city.timezone}, or UTC if missing.
+ */
+final class OpenWeatherMapForecastDecoder {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private OpenWeatherMapForecastDecoder() {
+	}
+
+	/**
+	 * Decode the forecasts of a response.
+	 * @param in Response body, closed by this method.
+	 * @return Forecast series, empty if the response has no {@code list}.
+	 * @throws IOException Thrown if the response can not be read or is not valid JSON.
+	 */
+	static ForecastSeries decode(InputStream in) throws IOException {
+		try (var parser = JSON_FACTORY.createParser(in)) {
+			return decode(parser);
+		}
+	}
+
+	/**
+	 * Decode the forecasts of a response.
+	 * @param parser Parser positioned before the response object.
+	 * @return Forecast series, empty if the response has no {@code list}.
+	 * @throws IOException Thrown if the response can not be read or is not valid JSON.
+	 */
+	static ForecastSeries decode(JsonParser parser) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT)
+			throw new JsonParseException(parser, "Forecast response is not a JSON object");
+
+		// the forecasts go straight to the columns of the series, the city comes after them
+		final var series = ForecastSeries.builder(40);
+		ZoneOffset utcOffset = ZoneOffset.UTC;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final var field = parser.currentName();
+			final var token = parser.nextToken();
+			if ("list".equals(field) && token == JsonToken.START_ARRAY)
+				decodeForecasts(parser, series);
+			else if ("city".equals(field) && token == JsonToken.START_OBJECT)
+				utcOffset = decodeUtcOffset(parser);
+			else
+				parser.skipChildren();
+		}
+		return series.build(utcOffset);
+	}
+
+	private static void decodeForecasts(JsonParser parser, ForecastSeries.Builder series) throws IOException {
+		final var forecast = new DecodedForecast();
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+			if (token == JsonToken.START_OBJECT) {
+				forecast.reset();
+				decodeForecast(parser, forecast);
+				forecast.addTo(series);
+			} else {
+				parser.skipChildren();
+			}
+		}
+	}
+
+	private static void decodeForecast(JsonParser parser, DecodedForecast forecast) throws IOException {
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final var field = parser.currentName();
+			final var token = parser.nextToken();
+			if (token == JsonToken.START_OBJECT) {
+				switch (field) {
+					case "main" -> decodeObject(parser, forecast::main);
+					case "wind" -> decodeObject(parser, forecast::wind);
+					case "clouds" -> decodeObject(parser, forecast::clouds);
+					// rain and snow volumes of the last 3 hours, both counted as precipitation
+					case "rain", "snow" -> decodeObject(parser, forecast::precipitation);
+					default -> parser.skipChildren();
+				}
+			} else if (token == JsonToken.START_ARRAY && "weather".equals(field)) {
+				// only the first element of the weather array is used
+				boolean first = true;
+				JsonToken element;
+				while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+					if (first && element == JsonToken.START_OBJECT)
+						decodeObject(parser, forecast::weather);
+					else
+						parser.skipChildren();
+					first = false;
+				}
+			} else {
+				switch (field) {
+					case "dt" -> forecast.timestamp = parser.getValueAsLong();
+					case "visibility" -> forecast.visibility = parser.getValueAsInt();
+					default -> parser.skipChildren();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decode the fields of an object, the parser being on its start.
+	 */
+	private static void decodeObject(JsonParser parser, FieldDecoder decoder) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final var field = parser.currentName();
+			parser.nextToken();
+			if (!decoder.decode(field, parser))
+				parser.skipChildren();
+		}
+	}
+
+	private static ZoneOffset decodeUtcOffset(JsonParser parser) throws IOException {
+		ZoneOffset utcOffset = ZoneOffset.UTC;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final var field = parser.currentName();
+			final var token = parser.nextToken();
+			if ("timezone".equals(field) && token == JsonToken.VALUE_NUMBER_INT) {
+				try {
+					// shift in seconds from UTC
+					utcOffset = ZoneOffset.ofTotalSeconds(parser.getIntValue());
+				} catch (DateTimeException e) {
+					utcOffset = ZoneOffset.UTC;
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return utcOffset;
+	}
+
+	@FunctionalInterface
+	private interface FieldDecoder {
+
+		/**
+		 * Decode the value of a field, the parser being on it.
+		 * @return false if the field is not used, to be skipped.
+		 */
+		boolean decode(String field, JsonParser parser) throws IOException;
+
+	}
+
+	/**
+	 * Fields of a forecast, as they are decoded; reused for all the forecasts of a response.
+	 */
+	private static final class DecodedForecast {
+
+		long timestamp;
+
+		double temperature;
+
+		double feelsLikeTemperature;
+
+		int humidity;
+
+		double windSpeed;
+
+		int windDirection;
+
+		double windGust;
+
+		int cloudiness;
+
+		double precipitation;
+
+		int visibility;
+
+		String icon;
+
+		String description;
+
+		boolean main(String field, JsonParser parser) throws IOException {
+			switch (field) {
+				case "temp" -> temperature = parser.getValueAsDouble();
+				case "feels_like" -> feelsLikeTemperature = parser.getValueAsDouble();
+				case "humidity" -> humidity = parser.getValueAsInt();
+				default -> {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		boolean wind(String field, JsonParser parser) throws IOException {
+			switch (field) {
+				case "speed" -> windSpeed = parser.getValueAsDouble();
+				case "deg" -> windDirection = parser.getValueAsInt();
+				case "gust" -> windGust = parser.getValueAsDouble();
+				default -> {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		boolean clouds(String field, JsonParser parser) throws IOException {
+			if (!"all".equals(field))
+				return false;
+			cloudiness = parser.getValueAsInt();
+			return true;
+		}
+
+		boolean precipitation(String field, JsonParser parser) throws IOException {
+			if (!"3h".equals(field))
+				return false;
+			precipitation += parser.getValueAsDouble();
+			return true;
+		}
+
+		boolean weather(String field, JsonParser parser) throws IOException {
+			switch (field) {
+				case "icon" -> icon = parser.getValueAsString();
+				case "description" -> description = parser.getValueAsString();
+				default -> {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		void reset() {
+			timestamp = 0;
+			temperature = 0;
+			feelsLikeTemperature = 0;
+			humidity = 0;
+			windSpeed = 0;
+			windDirection = 0;
+			windGust = 0;
+			cloudiness = 0;
+			precipitation = 0;
+			visibility = 0;
+			icon = null;
+			description = null;
+		}
+
+		void addTo(ForecastSeries.Builder series) {
+			series.add(timestamp, temperature, feelsLikeTemperature, humidity, windSpeed, windDirection, windGust,
+					cloudiness, precipitation, visibility, icon, description);
+		}
+
+	}
+
+}
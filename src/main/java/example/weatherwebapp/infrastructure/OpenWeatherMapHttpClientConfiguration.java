@@ -0,0 +1,103 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/**
+ * HTTP clients used to call OpenWeatherMap.
+ * Geocoding and forecast calls have their own connection pool and timeouts, so that a slow route
+ * can not starve the other one. Connections are kept alive and reused across calls,
+ * to avoid paying a TCP and TLS handshake on every call.
+ * Pool usage is exposed by the {@code httpcomponents.httpclient.pool.*} metrics.
+ */
+@Configuration(proxyBeanMethods = false)
+class OpenWeatherMapHttpClientConfiguration {
+
+	static final String GEOCODING = "openWeatherMapGeocoding";
+
+	static final String FORECAST = "openWeatherMapForecast";
+
+	@Bean(GEOCODING + "RequestFactory")
+	HttpComponentsClientHttpRequestFactory geocodingRequestFactory(
+			MeterRegistry meterRegistry,
+			@Value("${weather.openweathermap.geocoding.max-connections:20}") int maxConnections,
+			@Value("${weather.openweathermap.geocoding.connect-timeout:2s}") Duration connectTimeout,
+			@Value("${weather.openweathermap.geocoding.read-timeout:3s}") Duration readTimeout,
+			@Value("${weather.openweathermap.geocoding.pool-timeout:1s}") Duration poolTimeout,
+			@Value("${weather.openweathermap.keep-alive:1m}") Duration keepAlive) {
+		return pooledRequestFactory(meterRegistry, GEOCODING, maxConnections, connectTimeout, readTimeout,
+				poolTimeout, keepAlive);
+	}
+
+	@Bean(FORECAST + "RequestFactory")
+	HttpComponentsClientHttpRequestFactory forecastRequestFactory(
+			MeterRegistry meterRegistry,
+			@Value("${weather.openweathermap.forecast.max-connections:50}") int maxConnections,
+			@Value("${weather.openweathermap.forecast.connect-timeout:2s}") Duration connectTimeout,
+			@Value("${weather.openweathermap.forecast.read-timeout:5s}") Duration readTimeout,
+			@Value("${weather.openweathermap.forecast.pool-timeout:1s}") Duration poolTimeout,
+			@Value("${weather.openweathermap.keep-alive:1m}") Duration keepAlive) {
+		return pooledRequestFactory(meterRegistry, FORECAST, maxConnections, connectTimeout, readTimeout,
+				poolTimeout, keepAlive);
+	}
+
+	@Bean(GEOCODING + "RestTemplate")
+	RestTemplate geocodingRestTemplate(RestTemplateBuilder restTemplateBuilder,
+			@Qualifier(GEOCODING + "RequestFactory") HttpComponentsClientHttpRequestFactory requestFactory) {
+		return restTemplateBuilder.requestFactory(() -> requestFactory).build();
+	}
+
+	@Bean(FORECAST + "RestTemplate")
+	RestTemplate forecastRestTemplate(RestTemplateBuilder restTemplateBuilder,
+			@Qualifier(FORECAST + "RequestFactory") HttpComponentsClientHttpRequestFactory requestFactory) {
+		return restTemplateBuilder.requestFactory(() -> requestFactory).build();
+	}
+
+	private static HttpComponentsClientHttpRequestFactory pooledRequestFactory(MeterRegistry meterRegistry,
+			String name, int maxConnections, Duration connectTimeout, Duration readTimeout, Duration poolTimeout,
+			Duration keepAlive) {
+		final PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder
+				.create()
+				// all the calls go to the same host, so the route limit is the pool limit
+				.setMaxConnTotal(maxConnections)
+				.setMaxConnPerRoute(maxConnections)
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+						.setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+						.setSocketTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+						.setValidateAfterInactivity(TimeValue.ofSeconds(10))
+						.build())
+				.build();
+
+		new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+
+		final var httpClient = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeout.toMillis()))
+						.setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+						.build())
+				.evictIdleConnections(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+				.evictExpiredConnections()
+				.build();
+
+		return new HttpComponentsClientHttpRequestFactory(httpClient);
+	}
+
+}
@@ -7,12 +7,19 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -25,54 +32,83 @@ import example.weatherwebapp.core.CityName;
 import example.weatherwebapp.core.Coordinates;
 import example.weatherwebapp.core.WeatherForecast;
 import example.weatherwebapp.core.WeatherForecastRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Component
 public class OpenWeatherMapWeatherForecastRepository implements WeatherForecastRepository, CityGeocodingRepository {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(OpenWeatherMapWeatherForecastRepository.class);
 
-	private final RestTemplate restTemplate;
+	private static final String GEOCODING_API = "geocoding";
+
+	private static final String FORECAST_API = "forecast";
+
+	private final RestTemplate geocodingRestTemplate;
+
+	private final RestTemplate forecastRestTemplate;
 
 	private final String openWeatherApiKey;
 
+	private final String baseUrl;
+
+	private final MeterRegistry meterRegistry;
+
 	/* package */ OpenWeatherMapWeatherForecastRepository(
-			RestTemplateBuilder restTemplateBuilder,
-			@Value("${OPEN_WEATHER_API_KEY:ba98fc083b6ab2fdeadacee9414982eb}") String openWeatherApiKey) {
-		restTemplate = restTemplateBuilder.build();
+			@Qualifier(OpenWeatherMapHttpClientConfiguration.GEOCODING + "RestTemplate") RestTemplate geocodingRestTemplate,
+			@Qualifier(OpenWeatherMapHttpClientConfiguration.FORECAST + "RestTemplate") RestTemplate forecastRestTemplate,
+			@Value("${OPEN_WEATHER_API_KEY:ba98fc083b6ab2fdeadacee9414982eb}") String openWeatherApiKey,
+			@Value("${weather.openweathermap.base-url:https://api.openweathermap.org}") String baseUrl,
+			MeterRegistry meterRegistry) {
+		this.geocodingRestTemplate = geocodingRestTemplate;
+		this.forecastRestTemplate = forecastRestTemplate;
 		this.openWeatherApiKey = openWeatherApiKey;
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+		this.meterRegistry = meterRegistry;
 	}
 
 	@Override
 	public List<WeatherForecast> getWeatherForecastForCity(Coordinates coordinates, int limit) {
-		final var response = restTemplate.getForEntity(
-				"https://api.openweathermap.org/data/2.5/forecast?lat={lat}&lon={long}&units=metric&appid={apiKey}",
-				OpenWeather5DaysForecastResponseDTO.class,
-				Map.of("lat", coordinates.latitude(), "long", coordinates.longitude(), "apiKey", openWeatherApiKey));
-
-		if (response.getStatusCode().is2xxSuccessful() && response.hasBody()) {
-			final var body = response.getBody();
-
-			final var weatherDTOs = Optional.ofNullable(body)
-					.map(dto -> dto.list)
-					.orElseGet(Collections::emptyList);
-
-			return weatherDTOs.stream()
-					.map(OpenWeatherMapWeatherForecastRepository::fromDTO)
-					.toList();
-
+		final var sample = Timer.start(meterRegistry);
+		final var status = new AtomicReference<HttpStatusCode>();
+		final List<WeatherForecast> forecasts;
+		try {
+			// the response is decoded while streamed, without binding it to the DTOs first
+			forecasts = forecastRestTemplate.execute(
+					baseUrl + "/data/2.5/forecast?lat={lat}&lon={long}&units=metric&appid={apiKey}",
+					HttpMethod.GET, null,
+					response -> {
+						status.set(response.getStatusCode());
+						if (!response.getStatusCode().is2xxSuccessful()) {
+							LOGGER.error("HTTP call to OpenWeather APIs not successful: {}", response.getStatusCode());
+							return null;
+						}
+						return OpenWeatherMapForecastDecoder.decode(response.getBody());
+					},
+					Map.of("lat", coordinates.latitude(), "long", coordinates.longitude(), "apiKey", openWeatherApiKey));
+		} catch (RestClientException e) {
+			stopTimer(sample, FORECAST_API, status.get(), e);
+			throw e;
 		}
+		stopTimer(sample, FORECAST_API, status.get(), null);
 
-		LOGGER.error("HTTP call to OpenWeather APIs not successful", response);
-
-		return Collections.emptyList();
+		return forecasts != null ? forecasts : Collections.emptyList();
 	}
 
 	@Override
 	public Optional<City> getCity(CityName cityName) {
-		final var response = restTemplate.getForEntity(
-				"https://api.openweathermap.org/geo/1.0/direct?q={city}&appid={apiKey}",
-				OpenWeatherGeocodingResponseDTO[].class,
-				Map.of("city", cityName.cityName(), "apiKey", openWeatherApiKey));
+		final var sample = Timer.start(meterRegistry);
+		final ResponseEntity<OpenWeatherGeocodingResponseDTO[]> response;
+		try {
+			response = geocodingRestTemplate.getForEntity(
+					baseUrl + "/geo/1.0/direct?q={city}&appid={apiKey}",
+					OpenWeatherGeocodingResponseDTO[].class,
+					Map.of("city", cityName.cityName(), "apiKey", openWeatherApiKey));
+		} catch (RestClientException e) {
+			stopTimer(sample, GEOCODING_API, null, e);
+			throw e;
+		}
+		stopTimer(sample, GEOCODING_API, response.getStatusCode(), null);
 
 		if (response.getStatusCode().is2xxSuccessful() && response.hasBody()) {
 			OpenWeatherGeocodingResponseDTO[] body = response.getBody();
@@ -84,7 +120,8 @@ public class OpenWeatherMapWeatherForecastRepository implements WeatherForecastR
 			final var coordinates = new Coordinates(geocoded.lat, geocoded.lon);
 			final var displayName = String.format("%s (%s)", geocoded.name,
 					geocoded.country);
-			return Optional.of(new City(coordinates, displayName));
+			return Optional.of(new City(coordinates, displayName, geocoded.name, geocoded.country, geocoded.state,
+					geocoded.localNames));
 		}
 
 		LOGGER.error("HTTP call to OpenWeather APIs not successful", response);
@@ -92,12 +129,45 @@ public class OpenWeatherMapWeatherForecastRepository implements WeatherForecastR
 		return Optional.empty();
 	}
 
-	private static WeatherForecast fromDTO(OpenWeatherForecastDTO dto) {
+	/**
+	 * Record the duration of an upstream call, tagged by API, outcome and HTTP status.
+	 * Calls failing without a response (or with an unreadable one) have the {@code ERROR} outcome.
+	 */
+	private void stopTimer(Timer.Sample sample, String api, HttpStatusCode status, RestClientException error) {
+		if (error instanceof RestClientResponseException responseError)
+			status = responseError.getStatusCode();
+
+		final var outcome = status == null || (error != null && status.is2xxSuccessful())
+				? "ERROR"
+				: Outcome.forStatus(status.value()).name();
+		sample.stop(Timer.builder("weather.upstream.requests")
+				.description("Calls to the OpenWeatherMap APIs")
+				.tag("api", api)
+				.tag("outcome", outcome)
+				.tag("status", status == null ? "NONE" : String.valueOf(status.value()))
+				.publishPercentileHistogram()
+				.register(meterRegistry));
+	}
+
+	/**
+	 * Map a forecast bound to the DTOs, as the streaming decoder does.
+	 * Kept as the reference of the decoder in tests and benchmarks.
+	 */
+	/* package */ static WeatherForecast fromDTO(OpenWeatherForecastDTO dto) {
+		// as the decoder: missing measures are 0, no weather means no icon nor description
+		final var weather = dto.weather == null || dto.weather.isEmpty() ? null : dto.weather.get(0);
 		return new WeatherForecast(Instant.ofEpochSecond(dto.dt),
-				dto.main.temp,
-				// TODO: can a forecast not have the weather list?
-				dto.weather.get(0).icon,
-				dto.weather.get(0).description);
+				dto.main != null ? dto.main.temp : 0,
+				dto.main != null ? dto.main.feels_like : 0,
+				dto.main != null ? dto.main.humidity : 0,
+				dto.wind != null ? dto.wind.speed : 0,
+				dto.wind != null ? dto.wind.deg : 0,
+				dto.wind != null ? dto.wind.gust : 0,
+				dto.clouds != null ? dto.clouds.all : 0,
+				(dto.rain != null ? dto.rain._3h : 0) + (dto.snow != null ? dto.snow._3h : 0),
+				dto.visibility,
+				weather != null ? weather.icon : null,
+				weather != null ? weather.description : null);
 	}
 
 	static class OpenWeather5DaysForecastResponseDTO {
@@ -116,6 +186,7 @@ public class OpenWeatherMapWeatherForecastRepository implements WeatherForecastR
 		public OpenWeatherWindDTO wind;
 		public int visibility;
 		public OpenWeatherRainDTO rain;
+		public OpenWeatherSnowDTO snow;
 	}
 
 	static class OpenWeatherForecastMainDataDTO {
@@ -155,6 +226,11 @@ public class OpenWeatherMapWeatherForecastRepository implements WeatherForecastR
 		public double _3h;
 	}
 
+	static class OpenWeatherSnowDTO {
+		@JsonProperty("3h")
+		public double _3h;
+	}
+
 	static class OpenWeatherForecastWeatherDTO {
 		public int id;
 		public String main;
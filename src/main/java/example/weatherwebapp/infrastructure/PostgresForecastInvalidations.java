@@ -0,0 +1,146 @@
+package example.weatherwebapp.infrastructure;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import example.weatherwebapp.core.Coordinates;
+
+/**
+ * Tells the other nodes which forecasts were stored in the shared cache tier, and until when they are valid,
+ * with PostgreSQL {@code LISTEN}/{@code NOTIFY}, so that they drop the older ones they cache in memory
+ * and read the fresher ones.
+ * <p>
+ * A thread listens on a connection of its own, taken from the pool for as long as the node runs,
+ * and reconnects when it is lost. Notifications sent while disconnected are lost: the in-memory entries
+ * then expire at the next forecast publication, as without invalidations.
+ */
+public class PostgresForecastInvalidations implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PostgresForecastInvalidations.class);
+
+	private static final String CHANNEL = "forecast_cache";
+
+	private static final String NOTIFY = "SELECT pg_notify('" + CHANNEL + "', :payload)";
+
+	private static final int POLL_TIMEOUT_MILLIS = 1000;
+
+	private static final Duration RECONNECT_DELAY = Duration.ofSeconds(5);
+
+	// notifications of this node are delivered to it too
+	private final String nodeId = UUID.randomUUID().toString();
+
+	private final DataSource dataSource;
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	private final List<BiConsumer<Coordinates, Instant>> listeners = new CopyOnWriteArrayList<>();
+
+	private final Thread listener;
+
+	private volatile boolean closed;
+
+	/**
+	 * Create the invalidations, and start listening to them.
+	 *
+	 * @param dataSource   Data source of the PostgreSQL database, providing the listening connection.
+	 * @param jdbcTemplate JDBC template used to notify the other nodes.
+	 */
+	public PostgresForecastInvalidations(DataSource dataSource, NamedParameterJdbcTemplate jdbcTemplate) {
+		this.dataSource = dataSource;
+		this.jdbcTemplate = jdbcTemplate;
+		this.listener = new Thread(this::listen, "forecast-invalidations");
+		this.listener.setDaemon(true);
+		this.listener.start();
+	}
+
+	/**
+	 * Tell the other nodes that the forecasts of some coordinates were stored.
+	 *
+	 * @param coordinates Coordinates of the stored forecasts.
+	 * @param expiration  Expiration of the stored forecasts.
+	 */
+	public void publish(Coordinates coordinates, Instant expiration) {
+		try {
+			jdbcTemplate.query(NOTIFY, Map.of("payload", nodeId + ';' + coordinates.latitude() + ';'
+					+ coordinates.longitude() + ';' + expiration.toEpochMilli()),
+					rs -> {
+					});
+		} catch (DataAccessException e) {
+			LOGGER.warn("Could not notify the other nodes of the forecasts of {}", coordinates, e);
+		}
+	}
+
+	/**
+	 * Register a listener of the forecasts stored by the other nodes.
+	 *
+	 * @param listener Invoked with the coordinates and expiration of the stored forecasts, on the listening thread.
+	 */
+	public void subscribe(BiConsumer<Coordinates, Instant> listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Stop listening, within a poll timeout.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+	}
+
+	private void listen() {
+		while (!closed) {
+			try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+				statement.execute("LISTEN " + CHANNEL);
+				final var pgConnection = connection.unwrap(PGConnection.class);
+				LOGGER.info("Listening to the forecasts stored by the other nodes");
+				while (!closed) {
+					final var notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+					if (notifications == null)
+						continue;
+					for (final var notification : notifications) {
+						onNotification(notification.getParameter());
+					}
+				}
+				// the connection goes back to the pool
+				statement.execute("UNLISTEN " + CHANNEL);
+			} catch (SQLException e) {
+				if (closed)
+					return;
+				LOGGER.warn("Lost the notifications of the other nodes, listening again in {}", RECONNECT_DELAY, e);
+				try {
+					Thread.sleep(RECONNECT_DELAY.toMillis());
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void onNotification(String payload) {
+		final var parts = payload.split(";");
+		if (parts.length != 4 || parts[0].equals(nodeId))
+			return;
+		try {
+			final var coordinates = new Coordinates(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+			final var expiration = Instant.ofEpochMilli(Long.parseLong(parts[3]));
+			listeners.forEach(listener -> listener.accept(coordinates, expiration));
+		} catch (NumberFormatException e) {
+			LOGGER.debug("Ignoring the notification '{}'", payload);
+		}
+	}
+
+}
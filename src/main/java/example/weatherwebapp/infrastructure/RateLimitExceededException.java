@@ -0,0 +1,17 @@
+package example.weatherwebapp.infrastructure;
+
+import example.weatherwebapp.core.UpstreamUnavailableException;
+
+/**
+ * Thrown when an upstream call is not permitted by the rate limiter within the maximum wait,
+ * as calling anyway would exceed the quota of the API key.
+ */
+public class RateLimitExceededException extends UpstreamUnavailableException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RateLimitExceededException(String api, UpstreamCallPriority priority) {
+		super(String.format("Rate limit of the %s API exceeded by a %s call", api, priority), null);
+	}
+
+}
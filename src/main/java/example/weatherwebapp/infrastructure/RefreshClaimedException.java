@@ -0,0 +1,17 @@
+package example.weatherwebapp.infrastructure;
+
+import example.weatherwebapp.core.Coordinates;
+
+/**
+ * Thrown by a {@link RefreshableWeatherForecastRepository} when another node is refreshing the same forecasts:
+ * the caller should keep what it has, rather than wait for them.
+ */
+/* package */ class RefreshClaimedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/* package */ RefreshClaimedException(Coordinates coordinates) {
+		super("The refresh of the forecasts of " + coordinates + " is claimed by another node");
+	}
+
+}
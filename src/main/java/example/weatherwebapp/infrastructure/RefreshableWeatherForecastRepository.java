@@ -0,0 +1,37 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Instant;
+import java.util.List;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+
+/**
+ * Forecast cache tier that can be refreshed: forecasts cached before a publication are fetched again
+ * from the tiers below it, instead of being served from the cache until they expire.
+ */
+interface RefreshableWeatherForecastRepository extends WeatherForecastRepository {
+
+	/**
+	 * Fetch the forecasts, unless the cached ones were fetched after the given instant,
+	 * i.e. expire after it. Fetched forecasts are cached until the next publication, as on a miss.
+	 *
+	 * @param coordinates Coordinates of the forecasts.
+	 * @param limit       Number of days to forecast.
+	 * @param validFrom   Instant the forecasts must have been fetched after, e.g. the last publication.
+	 * @return Refreshed forecasts.
+	 */
+	List<WeatherForecast> refresh(Coordinates coordinates, int limit, Instant validFrom);
+
+	/**
+	 * Refresh the forecasts of a repository if it is a cache tier, or just get them otherwise.
+	 */
+	static List<WeatherForecast> refresh(WeatherForecastRepository repository, Coordinates coordinates, int limit,
+			Instant validFrom) {
+		return repository instanceof RefreshableWeatherForecastRepository refreshable
+				? refreshable.refresh(coordinates, limit, validFrom)
+				: repository.getWeatherForecastForCity(coordinates, limit);
+	}
+
+}
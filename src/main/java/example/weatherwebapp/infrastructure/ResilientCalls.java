@@ -0,0 +1,126 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import example.weatherwebapp.core.UpstreamUnavailableException;
+import example.weatherwebapp.shared.CircuitBreaker;
+import example.weatherwebapp.shared.CircuitBreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Calls an upstream API through a circuit breaker, and retries the {@link UpstreamFailures#isTransient transient}
+ * failures.
+ * <p>
+ * Retries wait a random backoff up to an exponentially growing bound (full jitter), capped to a maximum,
+ * so that the retries of many callers do not hit the upstream at once. When throttled, a retry waits at least
+ * the {@code Retry-After} of the response, and the call is given up if that is longer than the maximum backoff.
+ * Every attempt goes through the breaker: once open, callers fail fast instead of waiting for the upstream.
+ * <p>
+ * Every attempt also waits for the rate limiter, if any, before the breaker: the time spent waiting for a token
+ * does not make a call slow.
+ */
+/* package */ final class ResilientCalls {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ResilientCalls.class);
+
+	private final String api;
+
+	private final CircuitBreaker circuitBreaker;
+
+	private final UpstreamRateLimiter rateLimiter;
+
+	private final int maximumAttempts;
+
+	private final long initialBackoffNanos;
+
+	private final long maximumBackoffNanos;
+
+	private final BiFunction<String, Throwable, ? extends UpstreamUnavailableException> unavailable;
+
+	private final Counter retries;
+
+	/**
+	 * Create the resilient calls of an API.
+	 *
+	 * @param api             Name of the API, for the metrics.
+	 * @param circuitBreaker  Breaker of the calls.
+	 * @param rateLimiter     Rate limiter of the attempts, null for none.
+	 * @param maximumAttempts Maximum number of attempts of a call, the first one included.
+	 * @param initialBackoff  Bound of the backoff before the first retry, doubled at every retry.
+	 * @param maximumBackoff  Maximum bound of the backoff.
+	 * @param unavailable     Exception of a call given up, from its message and cause.
+	 * @param meterRegistry   Registry of the retry metrics.
+	 */
+	/* package */ ResilientCalls(String api, CircuitBreaker circuitBreaker, UpstreamRateLimiter rateLimiter,
+			int maximumAttempts, Duration initialBackoff, Duration maximumBackoff,
+			BiFunction<String, Throwable, ? extends UpstreamUnavailableException> unavailable,
+			MeterRegistry meterRegistry) {
+		this.api = api;
+		this.circuitBreaker = Objects.requireNonNull(circuitBreaker, "Circuit breaker was null.");
+		this.rateLimiter = rateLimiter;
+		this.maximumAttempts = Math.max(1, maximumAttempts);
+		this.initialBackoffNanos = initialBackoff.toNanos();
+		this.maximumBackoffNanos = maximumBackoff.toNanos();
+		this.unavailable = unavailable;
+		this.retries = Counter.builder("weather.upstream.retries")
+				.description("Calls to the OpenWeatherMap APIs retried after a transient failure")
+				.tag("api", api)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Call the upstream, retrying the transient failures.
+	 * @param call    Call to the upstream.
+	 * @param subject What the call is about, for the logs.
+	 * @return Result of the call.
+	 * @throws UpstreamUnavailableException If the breaker is open, or the call failed too many times.
+	 */
+	/* package */ <T> T call(Supplier<T> call, Object subject) {
+		for (int attempt = 1;; attempt++) {
+			try {
+				if (rateLimiter != null)
+					rateLimiter.acquire();
+				return circuitBreaker.execute(call);
+			} catch (CallNotPermittedException e) {
+				throw unavailable.apply(e.getMessage(), e);
+			} catch (RuntimeException e) {
+				if (!UpstreamFailures.isTransient(e))
+					throw e;
+				if (attempt >= maximumAttempts)
+					throw unavailable.apply(String.format("%s API unavailable after %d attempts", api, attempt), e);
+				final long retryAfterNanos = UpstreamFailures.retryAfterNanos(e);
+				if (retryAfterNanos > maximumBackoffNanos)
+					throw unavailable.apply(String.format("%s API unavailable for %s", api,
+							Duration.ofNanos(retryAfterNanos)), e);
+
+				LOGGER.debug("Retrying the {} call for {} after attempt {} failed: {}", api, subject, attempt,
+						e.getMessage());
+				retries.increment();
+				backoff(attempt, retryAfterNanos);
+			}
+		}
+	}
+
+	private void backoff(int attempt, long minimumNanos) {
+		final long bound = Math.min(maximumBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+		final long wait = Math.max(minimumNanos, bound > 0 ? ThreadLocalRandom.current().nextLong(bound) : 0);
+		if (wait <= 0)
+			return;
+		try {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw unavailable.apply("Interrupted while waiting to retry", e);
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.UpstreamUnavailableException;
+import example.weatherwebapp.shared.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Protects the calls to an upstream {@link CityGeocodingRepository} with a circuit breaker,
+ * and retries the transient failures: see {@link ResilientCalls}.
+ * Calls given up fail with an {@link UpstreamUnavailableException}.
+ */
+public class ResilientCityGeocodingRepository implements CityGeocodingRepository {
+
+	private final CityGeocodingRepository delegate;
+
+	private final ResilientCalls calls;
+
+	/**
+	 * Create the resilient repository.
+	 *
+	 * @param delegate        Upstream repository.
+	 * @param circuitBreaker  Breaker of the upstream calls.
+	 * @param rateLimiter     Rate limiter of the attempts, null for none.
+	 * @param maximumAttempts Maximum number of attempts of a call, the first one included.
+	 * @param initialBackoff  Bound of the backoff before the first retry, doubled at every retry.
+	 * @param maximumBackoff  Maximum bound of the backoff.
+	 * @param meterRegistry   Registry of the retry metrics.
+	 */
+	public ResilientCityGeocodingRepository(CityGeocodingRepository delegate, CircuitBreaker circuitBreaker,
+			UpstreamRateLimiter rateLimiter, int maximumAttempts, Duration initialBackoff, Duration maximumBackoff,
+			MeterRegistry meterRegistry) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.calls = new ResilientCalls("geocoding", circuitBreaker, rateLimiter, maximumAttempts, initialBackoff,
+				maximumBackoff, UpstreamUnavailableException::new, meterRegistry);
+	}
+
+	@Override
+	public Optional<City> getCity(CityName cityName) {
+		return calls.call(() -> delegate.getCity(cityName), cityName.cityName());
+	}
+
+}
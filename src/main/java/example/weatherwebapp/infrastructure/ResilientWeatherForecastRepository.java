@@ -0,0 +1,73 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.ForecastsUnavailableException;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import example.weatherwebapp.shared.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Protects the calls to an upstream {@link WeatherForecastRepository} with a circuit breaker,
+ * and retries the transient failures, empty series included: see {@link ResilientCalls}.
+ * Calls given up fail with a {@link ForecastsUnavailableException}.
+ */
+public class ResilientWeatherForecastRepository implements WeatherForecastRepository {
+
+	private final WeatherForecastRepository delegate;
+
+	private final ResilientCalls calls;
+
+	/**
+	 * Create the resilient repository, without rate limit.
+	 *
+	 * @param delegate        Upstream repository.
+	 * @param circuitBreaker  Breaker of the upstream calls.
+	 * @param maximumAttempts Maximum number of attempts of a call, the first one included.
+	 * @param initialBackoff  Bound of the backoff before the first retry, doubled at every retry.
+	 * @param maximumBackoff  Maximum bound of the backoff.
+	 * @param meterRegistry   Registry of the retry metrics.
+	 */
+	public ResilientWeatherForecastRepository(WeatherForecastRepository delegate, CircuitBreaker circuitBreaker,
+			int maximumAttempts, Duration initialBackoff, Duration maximumBackoff, MeterRegistry meterRegistry) {
+		this(delegate, circuitBreaker, null, maximumAttempts, initialBackoff, maximumBackoff, meterRegistry);
+	}
+
+	/**
+	 * Create the resilient repository.
+	 *
+	 * @param delegate        Upstream repository.
+	 * @param circuitBreaker  Breaker of the upstream calls.
+	 * @param rateLimiter     Rate limiter of the attempts, null for none.
+	 * @param maximumAttempts Maximum number of attempts of a call, the first one included.
+	 * @param initialBackoff  Bound of the backoff before the first retry, doubled at every retry.
+	 * @param maximumBackoff  Maximum bound of the backoff.
+	 * @param meterRegistry   Registry of the retry metrics.
+	 */
+	public ResilientWeatherForecastRepository(WeatherForecastRepository delegate, CircuitBreaker circuitBreaker,
+			UpstreamRateLimiter rateLimiter, int maximumAttempts, Duration initialBackoff, Duration maximumBackoff,
+			MeterRegistry meterRegistry) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.calls = new ResilientCalls("forecast", circuitBreaker, rateLimiter, maximumAttempts, initialBackoff,
+				maximumBackoff, ForecastsUnavailableException::new, meterRegistry);
+	}
+
+	@Override
+	public List<WeatherForecast> getWeatherForecastForCity(Coordinates coordinates, int limit) {
+		return calls.call(() -> nonEmpty(delegate.getWeatherForecastForCity(coordinates, limit)), coordinates);
+	}
+
+	/**
+	 * An empty series means that the upstream call did not succeed: it is a failure of the call.
+	 */
+	private static List<WeatherForecast> nonEmpty(List<WeatherForecast> forecasts) {
+		if (forecasts.isEmpty())
+			throw new UpstreamFailures.EmptyResponseException("Upstream returned no forecasts");
+		return forecasts;
+	}
+
+}
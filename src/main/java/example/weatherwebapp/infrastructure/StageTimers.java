@@ -0,0 +1,23 @@
+package example.weatherwebapp.infrastructure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Timers of the stages of the forecast requests.
+ */
+final class StageTimers {
+
+	private StageTimers() {
+	}
+
+	static Timer timer(MeterRegistry meterRegistry, String stage, String outcome) {
+		return Timer.builder("weather.stage")
+				.description("Stages of the forecast requests")
+				.tag("stage", stage)
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+}
@@ -0,0 +1,37 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+
+/**
+ * Adds the cities found by another {@link CityGeocodingRepository} to the city suggestions.
+ */
+public class SuggestionIndexingCityGeocodingRepository implements CityGeocodingRepository {
+
+	private final CityGeocodingRepository delegate;
+
+	private final InMemoryCitySuggestionRepository suggestions;
+
+	/**
+	 * Create the repository.
+	 * @param delegate    Repository actually queried.
+	 * @param suggestions Suggestions the found cities are added to.
+	 */
+	public SuggestionIndexingCityGeocodingRepository(CityGeocodingRepository delegate,
+			InMemoryCitySuggestionRepository suggestions) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.suggestions = Objects.requireNonNull(suggestions, "Suggestions were null.");
+	}
+
+	@Override
+	public Optional<City> getCity(CityName cityName) {
+		final var city = delegate.getCity(cityName);
+		city.ifPresent(suggestions::add);
+		return city;
+	}
+
+}
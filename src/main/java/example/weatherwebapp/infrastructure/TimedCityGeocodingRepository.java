@@ -0,0 +1,54 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the lookups of another {@link CityGeocodingRepository}, i.e. the geocoding stage of the forecast requests
+ * including every cache layer, as the {@code weather.stage} timer with {@code stage=geocoding}.
+ */
+public class TimedCityGeocodingRepository implements CityGeocodingRepository {
+
+	private final CityGeocodingRepository delegate;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Timer found;
+
+	private final Timer notFound;
+
+	private final Timer error;
+
+	/**
+	 * Create the timed repository.
+	 * @param delegate      Repository actually queried.
+	 * @param meterRegistry Registry of the timers.
+	 */
+	public TimedCityGeocodingRepository(CityGeocodingRepository delegate, MeterRegistry meterRegistry) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.meterRegistry = meterRegistry;
+		this.found = StageTimers.timer(meterRegistry, "geocoding", "FOUND");
+		this.notFound = StageTimers.timer(meterRegistry, "geocoding", "NOT_FOUND");
+		this.error = StageTimers.timer(meterRegistry, "geocoding", "ERROR");
+	}
+
+	@Override
+	public Optional<City> getCity(CityName cityName) {
+		final var sample = Timer.start(meterRegistry);
+		try {
+			final var city = delegate.getCity(cityName);
+			sample.stop(city.isPresent() ? found : notFound);
+			return city;
+		} catch (RuntimeException e) {
+			sample.stop(error);
+			throw e;
+		}
+	}
+
+}
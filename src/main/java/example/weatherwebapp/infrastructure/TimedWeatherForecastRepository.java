@@ -0,0 +1,54 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.List;
+import java.util.Objects;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the lookups of another {@link WeatherForecastRepository}, i.e. the forecast stage of the forecast requests
+ * including the cache, as the {@code weather.stage} timer with {@code stage=forecast}.
+ */
+public class TimedWeatherForecastRepository implements WeatherForecastRepository {
+
+	private final WeatherForecastRepository delegate;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Timer success;
+
+	private final Timer empty;
+
+	private final Timer error;
+
+	/**
+	 * Create the timed repository.
+	 * @param delegate      Repository actually queried.
+	 * @param meterRegistry Registry of the timers.
+	 */
+	public TimedWeatherForecastRepository(WeatherForecastRepository delegate, MeterRegistry meterRegistry) {
+		this.delegate = Objects.requireNonNull(delegate, "Delegate repository was null.");
+		this.meterRegistry = meterRegistry;
+		this.success = StageTimers.timer(meterRegistry, "forecast", "SUCCESS");
+		this.empty = StageTimers.timer(meterRegistry, "forecast", "EMPTY");
+		this.error = StageTimers.timer(meterRegistry, "forecast", "ERROR");
+	}
+
+	@Override
+	public List<WeatherForecast> getWeatherForecastForCity(Coordinates coordinates, int limit) {
+		final var sample = Timer.start(meterRegistry);
+		try {
+			final var forecasts = delegate.getWeatherForecastForCity(coordinates, limit);
+			sample.stop(forecasts.isEmpty() ? empty : success);
+			return forecasts;
+		} catch (RuntimeException e) {
+			sample.stop(error);
+			throw e;
+		}
+	}
+
+}
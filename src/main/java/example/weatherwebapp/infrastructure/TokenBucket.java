@@ -0,0 +1,34 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Duration;
+
+/**
+ * Bucket of tokens refilled at a constant rate up to its capacity: a call takes a token,
+ * so that the calls can burst up to the capacity but not exceed the refill rate in the long run.
+ */
+public interface TokenBucket {
+
+	/**
+	 * Take a token, if more than the reserved tokens are available.
+	 * @param reserve Tokens that must be left in the bucket, reserved for other callers.
+	 * @return 0 if a token was taken, otherwise the estimated nanoseconds until one is available.
+	 */
+	long tryTake(double reserve);
+
+	/**
+	 * Tokens in a bucket after refilling it for some time.
+	 */
+	static double refill(double tokens, double capacity, double tokensPerSecond, Duration elapsed) {
+		if (elapsed.isNegative())
+			return tokens;
+		return Math.min(capacity, tokens + tokensPerSecond * elapsed.toNanos() / 1e9);
+	}
+
+	/**
+	 * Nanoseconds until the missing tokens are refilled, at least one.
+	 */
+	static long nanosToRefill(double missingTokens, double tokensPerSecond) {
+		return Math.max(1, (long) Math.ceil(missingTokens / tokensPerSecond * 1e9));
+	}
+
+}
@@ -0,0 +1,43 @@
+package example.weatherwebapp.infrastructure;
+
+import java.util.function.Supplier;
+
+/**
+ * Priority of the upstream calls made by the current thread: calls are made on behalf of a user by default,
+ * and background tasks mark their calls so that the rate limiter keeps part of the budget for the users.
+ */
+public enum UpstreamCallPriority {
+	/**
+	 * Call a user is waiting for.
+	 */
+	USER,
+	/**
+	 * Call of a background task, e.g. a cache refresh.
+	 */
+	BACKGROUND;
+
+	private static final ThreadLocal<UpstreamCallPriority> CURRENT = ThreadLocal.withInitial(() -> USER);
+
+	/**
+	 * @return Priority of the upstream calls of the current thread.
+	 */
+	public static UpstreamCallPriority current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Execute a call whose upstream calls have this priority.
+	 * @param call Call.
+	 * @return Result of the call.
+	 */
+	public <T> T call(Supplier<T> call) {
+		final var previous = CURRENT.get();
+		CURRENT.set(this);
+		try {
+			return call.get();
+		} finally {
+			CURRENT.set(previous);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * Classification of the failures of the calls to the OpenWeatherMap APIs.
+ */
+/* package */ final class UpstreamFailures {
+
+	private UpstreamFailures() {
+	}
+
+	/**
+	 * Whether a failure is worth a retry: I/O errors and timeouts, server errors, throttling and empty responses.
+	 * A client error other than throttling would fail again.
+	 */
+	/* package */ static boolean isTransient(RuntimeException e) {
+		if (e instanceof ResourceAccessException || e instanceof HttpServerErrorException
+				|| e instanceof EmptyResponseException)
+			return true;
+		return e instanceof RestClientResponseException response
+				&& response.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+	}
+
+	/**
+	 * Wait of a throttled call requested by the upstream, in seconds or until a date, 0 if none or not valid.
+	 */
+	/* package */ static long retryAfterNanos(RuntimeException e) {
+		if (!(e instanceof RestClientResponseException response)
+				|| !response.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+				|| response.getResponseHeaders() == null)
+			return 0;
+		final var retryAfter = response.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+		if (retryAfter == null)
+			return 0;
+		try {
+			final var value = retryAfter.strip();
+			final var wait = value.chars().allMatch(Character::isDigit)
+					? Duration.ofSeconds(Long.parseLong(value))
+					: Duration.between(Instant.now(),
+							ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+			return Math.max(0, wait.toNanos());
+		} catch (ArithmeticException | DateTimeException | NumberFormatException invalid) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Thrown when a successful call returned nothing usable: it is a failure of the call.
+	 */
+	/* package */ static final class EmptyResponseException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		/* package */ EmptyResponseException(String message) {
+			super(message, null, false, false);
+		}
+
+	}
+
+}
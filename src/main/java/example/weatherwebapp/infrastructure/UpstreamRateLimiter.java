@@ -0,0 +1,79 @@
+package example.weatherwebapp.infrastructure;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limits the rate of the calls to an upstream API with a {@link TokenBucket}.
+ * <p>
+ * Calls wait for a token up to a maximum wait, and fail with a {@link RateLimitExceededException} past it.
+ * {@link UpstreamCallPriority#BACKGROUND Background} calls can not take the tokens reserved for the users:
+ * at peak, the users get the whole budget and the background calls wait.
+ */
+public class UpstreamRateLimiter {
+
+	private final String api;
+
+	private final TokenBucket bucket;
+
+	private final double backgroundReserve;
+
+	private final long maximumWaitNanos;
+
+	private final Map<UpstreamCallPriority, Counter> rejections = new EnumMap<>(UpstreamCallPriority.class);
+
+	/**
+	 * Create the rate limiter.
+	 *
+	 * @param api               Name of the API, for the metrics.
+	 * @param bucket            Bucket of the calls.
+	 * @param backgroundReserve Tokens of the bucket reserved for the user calls.
+	 * @param maximumWait       Maximum wait for a token.
+	 * @param meterRegistry     Registry of the rate limiter metrics.
+	 */
+	public UpstreamRateLimiter(String api, TokenBucket bucket, double backgroundReserve, Duration maximumWait,
+			MeterRegistry meterRegistry) {
+		this.api = api;
+		this.bucket = Objects.requireNonNull(bucket, "Token bucket was null.");
+		this.backgroundReserve = backgroundReserve;
+		this.maximumWaitNanos = maximumWait.toNanos();
+		for (final var priority : UpstreamCallPriority.values()) {
+			rejections.put(priority, Counter.builder("weather.upstream.rate-limit.rejections")
+					.description("Calls to the OpenWeatherMap APIs not made to stay under the quota")
+					.tag("api", api)
+					.tag("priority", priority.name())
+					.register(meterRegistry));
+		}
+	}
+
+	/**
+	 * Wait until a call is permitted, with the priority of the current thread.
+	 * @throws RateLimitExceededException If not permitted within the maximum wait.
+	 */
+	public void acquire() {
+		final var priority = UpstreamCallPriority.current();
+		final double reserve = priority == UpstreamCallPriority.BACKGROUND ? backgroundReserve : 0;
+		final long deadline = System.nanoTime() + maximumWaitNanos;
+
+		long waitNanos;
+		while ((waitNanos = bucket.tryTake(reserve)) > 0) {
+			if (System.nanoTime() + waitNanos > deadline) {
+				rejections.get(priority).increment();
+				throw new RateLimitExceededException(api, priority);
+			}
+			try {
+				TimeUnit.NANOSECONDS.sleep(waitNanos);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RateLimitExceededException(api, priority);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,333 @@
+package example.weatherwebapp.infrastructure;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityRequestTracker;
+import example.weatherwebapp.core.GetWeatherForecastUseCase;
+import example.weatherwebapp.core.NearestCityRepository;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import example.weatherwebapp.shared.CircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Assembles the repositories used by the core, layering caches and other decorators
+ * on top of the OpenWeatherMap ones, and the forecast use case with the grid step of the forecast cache.
+ */
+@Configuration(proxyBeanMethods = false)
+class WeatherRepositoriesConfiguration {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WeatherRepositoriesConfiguration.class);
+
+	static final String FORECAST_REVALIDATION_EXECUTOR = "forecastRevalidationExecutor";
+
+	@Bean
+	@ConditionalOnProperty(name = "weather.gazetteer.enabled", matchIfMissing = true)
+	CityGazetteer cityGazetteer(ResourceLoader resourceLoader,
+			@Value("${weather.gazetteer.location:classpath:gazetteer/cities.tsv}") String location)
+			throws IOException {
+		final long start = System.nanoTime();
+		final var gazetteer = CityGazetteer.load(resourceLoader.getResource(location).getInputStream());
+		final long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+		LOGGER.info("Loaded {} cities ({} names) from {} in {} ms, using about {} KiB of heap",
+				gazetteer.size(), gazetteer.keyCount(), location, elapsedMillis,
+				gazetteer.estimatedSizeInBytes() / 1024);
+		return gazetteer;
+	}
+
+	@Bean
+	InMemoryCitySuggestionRepository citySuggestionRepository(ObjectProvider<CityGazetteer> gazetteer,
+			@Value("${weather.suggestions.maximum-geocoded-names:100000}") int maximumGeocodedNames) {
+		return new InMemoryCitySuggestionRepository(gazetteer.getIfAvailable(), maximumGeocodedNames);
+	}
+
+	@Bean
+	InMemoryNearestCityRepository nearestCityRepository(ObjectProvider<CityGazetteer> gazetteer,
+			@Value("${weather.nearest-city.maximum-distance-km:5}") double maximumDistanceKm,
+			@Value("${weather.nearest-city.maximum-cities:100000}") int maximumCities) {
+		return new InMemoryNearestCityRepository(gazetteer.getIfAvailable(), maximumDistanceKm, maximumCities);
+	}
+
+	@Bean
+	@Primary
+	CityGeocodingRepository cityGeocodingRepository(
+			ResilientCityGeocodingRepository upstreamRepository,
+			ObjectProvider<CityGazetteer> gazetteer,
+			InMemoryCitySuggestionRepository citySuggestionRepository,
+			InMemoryNearestCityRepository nearestCityRepository,
+			MeterRegistry meterRegistry,
+			NamedParameterJdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate,
+			@Value("${weather.geocoding.store.enabled:true}") boolean storeEnabled,
+			@Value("${weather.geocoding.cache.maximum-size:10000}") long maximumSize,
+			@Value("${weather.geocoding.cache.ttl:30d}") Duration ttl,
+			@Value("${weather.geocoding.cache.negative-ttl:10m}") Duration negativeTtl) {
+		CityGeocodingRepository repository = new CoalescingCityGeocodingRepository(upstreamRepository);
+		if (storeEnabled)
+			repository = new JdbcCityGeocodingRepository(repository, jdbcTemplate, transactionTemplate,
+					Clock.systemUTC());
+		repository = new SuggestionIndexingCityGeocodingRepository(repository, citySuggestionRepository);
+		repository = new LocationIndexingCityGeocodingRepository(repository, nearestCityRepository);
+
+		final var cachingRepository = new CachingCityGeocodingRepository(repository, maximumSize, ttl, negativeTtl);
+		CaffeineCacheMetrics.monitor(meterRegistry, cachingRepository.getCache(), "geocoding");
+
+		final var wellKnownCities = gazetteer.getIfAvailable();
+		if (wellKnownCities == null)
+			return new TimedCityGeocodingRepository(cachingRepository, meterRegistry);
+		return new TimedCityGeocodingRepository(
+				new GazetteerCityGeocodingRepository(wellKnownCities, cachingRepository), meterRegistry);
+	}
+
+	@Bean
+	@Primary
+	WeatherForecastRepository weatherForecastRepository(CachingWeatherForecastRepository cachingRepository,
+			MeterRegistry meterRegistry) {
+		return new TimedWeatherForecastRepository(cachingRepository, meterRegistry);
+	}
+
+	@Bean
+	CachingWeatherForecastRepository cachingWeatherForecastRepository(
+			ResilientWeatherForecastRepository upstreamRepository,
+			ObjectProvider<JdbcWeatherForecastRepository> sharedRepository,
+			ObjectProvider<MappedFileWeatherForecastRepository> fileRepository,
+			ObjectProvider<PostgresForecastInvalidations> invalidations,
+			@Qualifier(FORECAST_REVALIDATION_EXECUTOR) Executor revalidationExecutor,
+			MeterRegistry meterRegistry,
+			@Value("${weather.forecast.cache.grid-step:0.01}") double gridStep,
+			@Value("${weather.forecast.cache.maximum-size:10000}") long maximumSize,
+			@Value("${weather.forecast.cache.slot-delay:10m}") Duration slotDelay,
+			@Value("${weather.forecast.cache.maximum-staleness:6h}") Duration maximumStaleness) {
+		final WeatherForecastRepository delegate = sharedRepository.getIfAvailable(
+				() -> fileRepository.getIfAvailable(() -> new CoalescingWeatherForecastRepository(upstreamRepository)));
+		final var repository = new CachingWeatherForecastRepository(delegate, gridStep, maximumSize, slotDelay,
+				maximumStaleness, revalidationExecutor, Clock.systemUTC());
+		CaffeineCacheMetrics.monitor(meterRegistry, repository.getCache(), "forecasts");
+		invalidations.ifAvailable(nodes -> nodes.subscribe(repository::invalidate));
+		return repository;
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "weather.forecast.shared-cache.enabled")
+	JdbcWeatherForecastRepository sharedWeatherForecastRepository(
+			ResilientWeatherForecastRepository upstreamRepository,
+			ObjectProvider<MappedFileWeatherForecastRepository> fileRepository,
+			ObjectProvider<PostgresForecastInvalidations> invalidations,
+			NamedParameterJdbcTemplate jdbcTemplate,
+			MeterRegistry meterRegistry,
+			@Value("${weather.forecast.cache.slot-delay:10m}") Duration slotDelay) {
+		final WeatherForecastRepository delegate = fileRepository.getIfAvailable(
+				() -> new CoalescingWeatherForecastRepository(upstreamRepository));
+		final var nodes = invalidations.getIfAvailable();
+		return new JdbcWeatherForecastRepository(delegate, jdbcTemplate, slotDelay, Clock.systemUTC(),
+				nodes != null ? nodes::publish : (coordinates, expiration) -> {
+				}, meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "weather.forecast.shared-cache.listen-notify")
+	PostgresForecastInvalidations forecastCacheInvalidations(DataSource dataSource,
+			NamedParameterJdbcTemplate jdbcTemplate) {
+		return new PostgresForecastInvalidations(dataSource, jdbcTemplate);
+	}
+
+	@Bean(FORECAST_REVALIDATION_EXECUTOR)
+	ThreadPoolTaskExecutor forecastRevalidationExecutor(
+			@Value("${weather.forecast.cache.revalidation.pool-size:4}") int poolSize,
+			@Value("${weather.forecast.cache.revalidation.queue-capacity:1000}") int queueCapacity) {
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("forecast-revalidation-");
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		// when saturated, the stale entries are revalidated by a later request
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+		return executor;
+	}
+
+	@Bean
+	ResilientWeatherForecastRepository upstreamWeatherForecastRepository(
+			OpenWeatherMapWeatherForecastRepository openWeatherMapRepository,
+			@Qualifier("forecastRateLimiter") ObjectProvider<UpstreamRateLimiter> forecastRateLimiter,
+			@Qualifier("forecastCircuitBreaker") CircuitBreaker forecastCircuitBreaker,
+			MeterRegistry meterRegistry,
+			@Value("${weather.upstream.retry.maximum-attempts:3}") int maximumAttempts,
+			@Value("${weather.upstream.retry.initial-backoff:200ms}") Duration initialBackoff,
+			@Value("${weather.upstream.retry.maximum-backoff:2s}") Duration maximumBackoff) {
+		return new ResilientWeatherForecastRepository(openWeatherMapRepository, forecastCircuitBreaker,
+				forecastRateLimiter.getIfAvailable(), maximumAttempts, initialBackoff, maximumBackoff, meterRegistry);
+	}
+
+	@Bean
+	ResilientCityGeocodingRepository upstreamCityGeocodingRepository(
+			OpenWeatherMapWeatherForecastRepository openWeatherMapRepository,
+			@Qualifier("geocodingRateLimiter") ObjectProvider<UpstreamRateLimiter> geocodingRateLimiter,
+			@Qualifier("geocodingCircuitBreaker") CircuitBreaker geocodingCircuitBreaker,
+			MeterRegistry meterRegistry,
+			@Value("${weather.upstream.retry.maximum-attempts:3}") int maximumAttempts,
+			@Value("${weather.upstream.retry.initial-backoff:200ms}") Duration initialBackoff,
+			@Value("${weather.upstream.retry.maximum-backoff:2s}") Duration maximumBackoff) {
+		return new ResilientCityGeocodingRepository(openWeatherMapRepository, geocodingCircuitBreaker,
+				geocodingRateLimiter.getIfAvailable(), maximumAttempts, initialBackoff, maximumBackoff, meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "weather.openweathermap.rate-limit.enabled")
+	UpstreamRateLimiter geocodingRateLimiter(
+			MeterRegistry meterRegistry,
+			NamedParameterJdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate,
+			@Value("${weather.openweathermap.rate-limit.shared:false}") boolean shared,
+			@Value("${weather.openweathermap.rate-limit.geocoding.calls-per-minute:10}") double callsPerMinute,
+			@Value("${weather.openweathermap.rate-limit.burst:0.2}") double burst,
+			@Value("${weather.openweathermap.rate-limit.background-reserve:0.5}") double backgroundReserve,
+			@Value("${weather.openweathermap.rate-limit.maximum-wait:2s}") Duration maximumWait) {
+		return rateLimiter("geocoding", callsPerMinute, burst, backgroundReserve, maximumWait, shared, jdbcTemplate,
+				transactionTemplate, meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "weather.openweathermap.rate-limit.enabled")
+	UpstreamRateLimiter forecastRateLimiter(
+			MeterRegistry meterRegistry,
+			NamedParameterJdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate,
+			@Value("${weather.openweathermap.rate-limit.shared:false}") boolean shared,
+			@Value("${weather.openweathermap.rate-limit.forecast.calls-per-minute:50}") double callsPerMinute,
+			@Value("${weather.openweathermap.rate-limit.burst:0.2}") double burst,
+			@Value("${weather.openweathermap.rate-limit.background-reserve:0.5}") double backgroundReserve,
+			@Value("${weather.openweathermap.rate-limit.maximum-wait:2s}") Duration maximumWait) {
+		return rateLimiter("forecast", callsPerMinute, burst, backgroundReserve, maximumWait, shared, jdbcTemplate,
+				transactionTemplate, meterRegistry);
+	}
+
+	private static UpstreamRateLimiter rateLimiter(String api, double callsPerMinute, double burst,
+			double backgroundReserve, Duration maximumWait, boolean shared, NamedParameterJdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+		// the burst plus the refill of a minute stay within the quota of a minute
+		final double capacity = Math.max(1, Math.floor(callsPerMinute * burst));
+		final double tokensPerSecond = Math.max(callsPerMinute - capacity, 1) / 60;
+		final TokenBucket local = new LocalTokenBucket(capacity, tokensPerSecond, Clock.systemUTC());
+		final TokenBucket bucket = shared
+				? new JdbcTokenBucket(api, capacity, tokensPerSecond, jdbcTemplate, transactionTemplate,
+						Clock.systemUTC(), local)
+				: local;
+		final double reserve = Math.min(capacity - 1, Math.floor(capacity * backgroundReserve));
+
+		LOGGER.info("Limiting the {} calls to {} per minute, in bursts of {}{}", api, callsPerMinute, capacity,
+				shared ? ", shared by the nodes" : "");
+		return new UpstreamRateLimiter(api, bucket, reserve, maximumWait, meterRegistry);
+	}
+
+	@Bean
+	CircuitBreaker forecastCircuitBreaker(MeterRegistry meterRegistry,
+			@Value("${weather.upstream.circuit.window-size:20}") int windowSize,
+			@Value("${weather.upstream.circuit.failure-threshold:10}") int failureThreshold,
+			@Value("${weather.upstream.circuit.slow-call-threshold:3s}") Duration slowCallThreshold,
+			@Value("${weather.upstream.circuit.open-duration:30s}") Duration openDuration) {
+		return circuitBreaker("openWeatherMapForecast", windowSize, failureThreshold, slowCallThreshold,
+				openDuration, meterRegistry);
+	}
+
+	@Bean
+	CircuitBreaker geocodingCircuitBreaker(MeterRegistry meterRegistry,
+			@Value("${weather.upstream.circuit.window-size:20}") int windowSize,
+			@Value("${weather.upstream.circuit.failure-threshold:10}") int failureThreshold,
+			@Value("${weather.upstream.circuit.slow-call-threshold:3s}") Duration slowCallThreshold,
+			@Value("${weather.upstream.circuit.open-duration:30s}") Duration openDuration) {
+		return circuitBreaker("openWeatherMapGeocoding", windowSize, failureThreshold, slowCallThreshold,
+				openDuration, meterRegistry);
+	}
+
+	private static CircuitBreaker circuitBreaker(String name, int windowSize, int failureThreshold,
+			Duration slowCallThreshold, Duration openDuration, MeterRegistry meterRegistry) {
+		final var circuitBreaker = new CircuitBreaker(name, windowSize, failureThreshold, slowCallThreshold,
+				openDuration, Clock.systemUTC());
+		Gauge.builder("weather.upstream.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+				.description("State of the circuit breaker: 0 closed, 1 open, 2 half-open")
+				.tag("name", circuitBreaker.name())
+				.register(meterRegistry);
+		return circuitBreaker;
+	}
+
+	@Bean
+	CircuitBreakersEndpoint circuitBreakersEndpoint(List<CircuitBreaker> circuitBreakers) {
+		return new CircuitBreakersEndpoint(circuitBreakers);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "weather.forecast.file.enabled")
+	MappedFileWeatherForecastRepository mappedFileWeatherForecastRepository(
+			ResilientWeatherForecastRepository upstreamRepository,
+			MeterRegistry meterRegistry,
+			@Value("${weather.forecast.file.path:data/forecasts.cache}") Path path,
+			@Value("${weather.forecast.file.maximum-entries:16384}") int maximumEntries,
+			@Value("${weather.forecast.file.entry-size:4096}") int entrySize,
+			@Value("${weather.forecast.cache.slot-delay:10m}") Duration slotDelay) throws IOException {
+		final var coalescing = new CoalescingWeatherForecastRepository(upstreamRepository);
+		return new MappedFileWeatherForecastRepository(coalescing, path, maximumEntries, entrySize, slotDelay,
+				Clock.systemUTC(), meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "weather.prewarm.enabled", matchIfMissing = true)
+	ForecastPrewarmer forecastPrewarmer(CachingWeatherForecastRepository weatherForecastRepository,
+			@Value("${weather.forecast.cache.grid-step:0.01}") double gridStep,
+			@Value("${weather.prewarm.hot-set-size:100}") int hotSetSize,
+			@Value("${weather.prewarm.maximum-tracked-cities:10000}") int maximumTrackedCities,
+			@Value("${weather.prewarm.spread:2m}") Duration spread,
+			@Value("${weather.prewarm.maximum-calls-per-second:2}") double maximumCallsPerSecond) {
+		// not a bean: it would become the scheduler of the @Scheduled methods
+		final var scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			final var thread = new Thread(task, "forecast-prewarm");
+			thread.setDaemon(true);
+			return thread;
+		});
+		return new ForecastPrewarmer(weatherForecastRepository, gridStep, hotSetSize, maximumTrackedCities, spread,
+				maximumCallsPerSecond, scheduler, Clock.systemUTC());
+	}
+
+	@Bean
+	@Primary
+	CityRequestTracker cityRequestTracker(ObjectProvider<ForecastPrewarmer> forecastPrewarmer) {
+		return forecastPrewarmer.getIfAvailable(() -> city -> {
+		});
+	}
+
+	@Bean
+	GetWeatherForecastUseCase getWeatherForecastUseCase(WeatherForecastRepository weatherForecastRepository,
+			CityGeocodingRepository cityGeocodingRepository,
+			CityRequestTracker cityRequestTracker,
+			NearestCityRepository nearestCityRepository,
+			@Value("${weather.forecast.cache.grid-step:0.01}") double gridStep) {
+		return new GetWeatherForecastUseCase(weatherForecastRepository, cityGeocodingRepository, cityRequestTracker,
+				nearestCityRepository, gridStep);
+	}
+
+}
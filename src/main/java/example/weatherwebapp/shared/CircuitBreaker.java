@@ -0,0 +1,209 @@
+package example.weatherwebapp.shared;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling a failing dependency for a while, so that callers fail fast instead of waiting for it.
+ * <ul>
+ * <li>{@code CLOSED}: calls are permitted, and their outcomes recorded in a window of the last calls.
+ * Calls failing, or succeeding slower than the slow call threshold, are failures.
+ * When the failures in the window reach the threshold, the breaker opens.</li>
+ * <li>{@code OPEN}: calls are rejected with {@link CallNotPermittedException} until the open duration elapses.</li>
+ * <li>{@code HALF_OPEN}: a single trial call is permitted, the others rejected. The breaker closes if it succeeds,
+ * and opens again otherwise.</li>
+ * </ul>
+ * No lock is held while the calls run.
+ */
+public final class CircuitBreaker {
+
+	private final String name;
+
+	private final int failureThreshold;
+
+	private final long slowCallThresholdNanos;
+
+	private final Duration openDuration;
+
+	private final Clock clock;
+
+	/* outcomes of the last calls, true for failures */
+	private final boolean[] window;
+
+	private int windowPosition;
+
+	private int recordedCalls;
+
+	private int failures;
+
+	private State state = State.CLOSED;
+
+	private Instant openedAt = Instant.EPOCH;
+
+	private boolean trialInFlight;
+
+	private long rejectedCalls;
+
+	/**
+	 * Create the circuit breaker, closed.
+	 *
+	 * @param name              Name of the breaker, e.g. of the protected dependency.
+	 * @param windowSize        Number of last calls whose outcomes are considered.
+	 * @param failureThreshold  Number of failures in the window opening the breaker.
+	 * @param slowCallThreshold Duration above which a successful call is a failure anyway.
+	 * @param openDuration      How long the breaker stays open before permitting a trial call.
+	 * @param clock             Clock.
+	 */
+	public CircuitBreaker(String name, int windowSize, int failureThreshold, Duration slowCallThreshold,
+			Duration openDuration, Clock clock) {
+		if (windowSize < 1 || failureThreshold < 1 || failureThreshold > windowSize)
+			throw new IllegalArgumentException("Failure threshold must be between 1 and the window size.");
+		this.name = Objects.requireNonNull(name, "Name was null.");
+		this.window = new boolean[windowSize];
+		this.failureThreshold = failureThreshold;
+		this.slowCallThresholdNanos = slowCallThreshold.toNanos();
+		this.openDuration = openDuration;
+		this.clock = clock;
+	}
+
+	/**
+	 * Execute the call if permitted, recording its outcome.
+	 * @param call Call to execute.
+	 * @return Result of the call.
+	 * @throws CallNotPermittedException If the breaker is open.
+	 */
+	public <T> T execute(Supplier<T> call) {
+		final boolean trial = acquirePermission();
+
+		final long start = System.nanoTime();
+		final T result;
+		try {
+			result = call.get();
+		} catch (RuntimeException | Error e) {
+			onResult(trial, true);
+			throw e;
+		}
+		onResult(trial, System.nanoTime() - start > slowCallThresholdNanos);
+		return result;
+	}
+
+	/**
+	 * Current state, an open breaker becoming half-open once the open duration elapsed.
+	 * @return State.
+	 */
+	public synchronized State state() {
+		if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration)))
+			state = State.HALF_OPEN;
+		return state;
+	}
+
+	/**
+	 * Current state and counters, e.g. to expose them.
+	 * @return Snapshot of the breaker.
+	 */
+	public synchronized Snapshot snapshot() {
+		final var current = state();
+		return new Snapshot(name, current, failures, recordedCalls, failureThreshold, rejectedCalls,
+				current == State.CLOSED ? null : openedAt);
+	}
+
+	/**
+	 * @return Name of the breaker.
+	 */
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * @return Whether the permitted call is the trial call of a half-open breaker.
+	 */
+	private synchronized boolean acquirePermission() {
+		final var current = state();
+		if (current == State.CLOSED)
+			return false;
+		if (current == State.HALF_OPEN && !trialInFlight) {
+			trialInFlight = true;
+			return true;
+		}
+		rejectedCalls++;
+		throw new CallNotPermittedException(name, current);
+	}
+
+	private synchronized void onResult(boolean trial, boolean failure) {
+		if (trial) {
+			trialInFlight = false;
+			if (failure)
+				open();
+			else
+				close();
+			return;
+		}
+		// calls permitted before the breaker opened do not count
+		if (state != State.CLOSED)
+			return;
+
+		if (recordedCalls == window.length) {
+			if (window[windowPosition])
+				failures--;
+		} else {
+			recordedCalls++;
+		}
+		window[windowPosition] = failure;
+		windowPosition = (windowPosition + 1) % window.length;
+		if (failure && ++failures >= failureThreshold)
+			open();
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openedAt = clock.instant();
+	}
+
+	private void close() {
+		state = State.CLOSED;
+		recordedCalls = 0;
+		failures = 0;
+		windowPosition = 0;
+	}
+
+	/**
+	 * State of the breaker.
+	 */
+	public enum State {
+		CLOSED,
+		OPEN,
+		HALF_OPEN;
+	}
+
+	/**
+	 * State and counters of a breaker at some point in time.
+	 *
+	 * @param name             Name of the breaker.
+	 * @param state            State.
+	 * @param failures         Failures in the window.
+	 * @param recordedCalls    Calls in the window.
+	 * @param failureThreshold Failures opening the breaker.
+	 * @param rejectedCalls    Calls rejected since the start.
+	 * @param openedAt         When the breaker last opened, {@code null} if closed.
+	 */
+	public record Snapshot(String name, State state, int failures, int recordedCalls, int failureThreshold,
+			long rejectedCalls, Instant openedAt) {
+	}
+
+	/**
+	 * Thrown when a call is rejected because the breaker is open.
+	 */
+	public static final class CallNotPermittedException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		CallNotPermittedException(String name, State state) {
+			super(String.format("Circuit breaker %s is %s", name, state), null, false, false);
+		}
+
+	}
+
+}
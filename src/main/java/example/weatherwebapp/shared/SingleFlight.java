@@ -0,0 +1,56 @@
+package example.weatherwebapp.shared;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key: while a call is in flight,
+ * other callers with the same key wait for its result instead of performing their own call.
+ * <p>
+ * No lock is held while the call runs. Failures are propagated to every waiting caller.
+ * Results are not kept once the call completes.
+ */
+public final class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Execute the call, or wait for the one already in flight for the same key.
+	 * @param key Key identifying the call.
+	 * @param call Call to execute.
+	 * @return Result of the call.
+	 */
+	public V execute(K key, Supplier<V> call) {
+		final var future = new CompletableFuture<V>();
+		final var existing = inFlight.putIfAbsent(key, future);
+		if (existing != null)
+			return await(existing);
+
+		try {
+			final var result = call.get();
+			future.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	private static <V> V await(CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause)
+				throw cause;
+			if (e.getCause() instanceof Error cause)
+				throw cause;
+			throw e;
+		}
+	}
+
+}
@@ -0,0 +1,7 @@
+package example.weatherwebapp.web;
+
+import java.util.List;
+
+public record BatchForecastRequestDTO(List<String> cities, Integer forecastDays) {
+
+}
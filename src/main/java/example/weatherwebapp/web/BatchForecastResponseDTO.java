@@ -0,0 +1,9 @@
+package example.weatherwebapp.web;
+
+import java.util.Map;
+
+import example.weatherwebapp.core.WeatherReport;
+
+public record BatchForecastResponseDTO(Map<String, WeatherReport> reports, Map<String, String> failures) {
+
+}
@@ -0,0 +1,89 @@
+package example.weatherwebapp.web;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import example.weatherwebapp.shared.Either;
+
+/**
+ * Groups of forecast properties that clients can select with the {@code fields} parameter,
+ * e.g. {@code ?fields=temp,wind}. The timestamp of the forecasts is always included.
+ */
+enum ForecastField {
+	TEMP("avgTemperature", "feelsLikeTemperature"),
+	HUMIDITY("humidity"),
+	WIND("windSpeed", "windDirection", "windGust"),
+	CLOUDS("cloudiness"),
+	PRECIPITATION("precipitation"),
+	VISIBILITY("visibility"),
+	WEATHER("weatherIcon", "weatherDescription");
+
+	/**
+	 * All the fields, selected when the parameter is missing.
+	 */
+	static final Set<ForecastField> ALL = Collections.unmodifiableSet(EnumSet.allOf(ForecastField.class));
+
+	private static final String TIMESTAMP_PROPERTY = "timestamp";
+
+	private final String[] properties;
+
+	ForecastField(String... properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Parse a comma separated list of field names, case insensitive.
+	 * @param fields List of field names, may be null or blank to select all the fields.
+	 * @return Either with the unknown names or the selected fields.
+	 */
+	static Either<String, Set<ForecastField>> tryParse(String fields) {
+		if (fields == null || fields.isBlank())
+			return Either.right(ALL);
+
+		final var selected = EnumSet.noneOf(ForecastField.class);
+		final var unknown = new StringBuilder();
+		for (final var name : fields.split(",")) {
+			if (name.isBlank())
+				continue;
+			try {
+				selected.add(valueOf(name.strip().toUpperCase(Locale.ROOT)));
+			} catch (IllegalArgumentException e) {
+				unknown.append(unknown.isEmpty() ? "" : ", ").append(name.strip());
+			}
+		}
+
+		if (!unknown.isEmpty())
+			return Either.left(unknown.toString());
+		return Either.right(selected.size() == ALL.size() ? ALL : Collections.unmodifiableSet(selected));
+	}
+
+	/**
+	 * Names of the fields, for error messages.
+	 * @return Comma separated names.
+	 */
+	static String names() {
+		return Arrays.stream(values())
+				.map(field -> field.name().toLowerCase(Locale.ROOT))
+				.collect(Collectors.joining(", "));
+	}
+
+	/**
+	 * Forecast properties of the selected fields, the timestamp included.
+	 * @param fields Selected fields.
+	 * @return Property names.
+	 */
+	static Set<String> properties(Set<ForecastField> fields) {
+		final Set<String> properties = new HashSet<>();
+		properties.add(TIMESTAMP_PROPERTY);
+		for (final var field : fields) {
+			properties.addAll(Arrays.asList(field.properties));
+		}
+		return properties;
+	}
+
+}
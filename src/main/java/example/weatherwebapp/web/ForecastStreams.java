@@ -0,0 +1,298 @@
+package example.weatherwebapp.web;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.GetWeatherForecastUseCase;
+import example.weatherwebapp.core.GetWeatherForecastUseCase.FailureCause;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import example.weatherwebapp.core.WeatherReport;
+import example.weatherwebapp.shared.Either;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Live weather reports, pushed to the subscribers with Server-Sent Events.
+ * <p>
+ * Subscribers of the same city and fields share a stream: at every check, the report of a stream is computed once,
+ * from the forecast cache, and sent to the subscribers only if its ETag changed, i.e. when the cache fetched
+ * new forecasts. The other subscribers get a comment, so that idle connections are kept open and closed ones detected.
+ * Checks read the forecasts of the city resolved at subscription, without geocoding it again nor counting them
+ * as requests of the city, and run on the send executor rather than on the scheduler threads.
+ * <p>
+ * Emitters are asynchronous: an idle subscriber holds a connection, but no thread.
+ * Events are written on a bounded executor, so that a slow subscriber does not delay the others: a subscriber
+ * has at most one event waiting, replaced by newer ones, and is dropped if a write takes longer than a timeout.
+ * Events are dropped as well when the executor is saturated.
+ */
+@Component
+class ForecastStreams {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ForecastStreams.class);
+
+	static final String REPORT_EVENT = "report";
+
+	private final GetWeatherForecastUseCase getWeatherForecastUseCase;
+
+	private final WeatherForecastRepository weatherForecastRepository;
+
+	private final SerializedReportCache serializedReportCache;
+
+	private final int maximumSubscribers;
+
+	private final long timeoutMillis;
+
+	private final Executor sendExecutor;
+
+	private final long sendTimeoutNanos;
+
+	private final Counter droppedEvents;
+
+	private final Counter droppedSubscribers;
+
+	private final ConcurrentMap<StreamKey, Stream> streams = new ConcurrentHashMap<>();
+
+	private final AtomicInteger subscribers = new AtomicInteger();
+
+	ForecastStreams(GetWeatherForecastUseCase getWeatherForecastUseCase,
+			// the cache itself: checks are not requests, they are not timed as such
+			@Qualifier("cachingWeatherForecastRepository") WeatherForecastRepository weatherForecastRepository,
+			SerializedReportCache serializedReportCache, MeterRegistry meterRegistry,
+			@Qualifier(WeatherExecutionConfiguration.STREAM_EXECUTOR) Executor sendExecutor,
+			@Value("${weather.stream.maximum-subscribers:50000}") int maximumSubscribers,
+			@Value("${weather.stream.timeout:30m}") Duration timeout,
+			@Value("${weather.stream.send-timeout:10s}") Duration sendTimeout) {
+		this.getWeatherForecastUseCase = getWeatherForecastUseCase;
+		this.weatherForecastRepository = weatherForecastRepository;
+		this.serializedReportCache = serializedReportCache;
+		this.maximumSubscribers = maximumSubscribers;
+		this.timeoutMillis = timeout.toMillis();
+		this.sendExecutor = sendExecutor;
+		this.sendTimeoutNanos = sendTimeout.toNanos();
+		this.droppedEvents = Counter.builder("weather.stream.dropped")
+				.description("Live weather reports not sent, the subscriber being slow or the sender saturated")
+				.tag("what", "event")
+				.register(meterRegistry);
+		this.droppedSubscribers = Counter.builder("weather.stream.dropped")
+				.description("Live weather reports not sent, the subscriber being slow or the sender saturated")
+				.tag("what", "subscriber")
+				.register(meterRegistry);
+		Gauge.builder("weather.stream.subscribers", subscribers, AtomicInteger::get)
+				.description("Subscribers of the live weather reports")
+				.register(meterRegistry);
+		Gauge.builder("weather.stream.cities", streams, ConcurrentMap::size)
+				.description("Cities with subscribers of the live weather reports")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Subscribe to the reports of a city. The current report is sent right away,
+	 * unless the subscriber has it already, e.g. when reconnecting.
+	 *
+	 * @param cityName    Name of the city.
+	 * @param fields      Fields of the forecasts.
+	 * @param lastEventId ID of the last event received by the subscriber, may be null.
+	 * @return Either with a failure cause or the emitter of the events.
+	 * @throws RejectedExecutionException If there are too many subscribers already.
+	 */
+	Either<FailureCause, SseEmitter> subscribe(CityName cityName, Set<ForecastField> fields, String lastEventId) {
+		if (subscribers.incrementAndGet() > maximumSubscribers) {
+			subscribers.decrementAndGet();
+			throw new RejectedExecutionException("Too many subscribers");
+		}
+
+		final Either<FailureCause, WeatherReport> report;
+		try {
+			report = getWeatherForecastUseCase.get(cityName, null);
+		} catch (RuntimeException e) {
+			subscribers.decrementAndGet();
+			throw e;
+		}
+		if (report.isLeft()) {
+			subscribers.decrementAndGet();
+			return Either.left(report.left());
+		}
+
+		final var key = new StreamKey(report.right().getCity(), fields);
+		final var subscriber = new Subscriber(new SseEmitter(timeoutMillis), lastEventId);
+		subscriber.emitter.onCompletion(() -> unsubscribe(key, subscriber));
+		subscriber.emitter.onError(e -> unsubscribe(key, subscriber));
+		streams.compute(key, (k, stream) -> {
+			final var subscribed = stream != null ? stream : new Stream();
+			subscribed.subscribers.add(subscriber);
+			return subscribed;
+		});
+
+		// not written yet: buffered by the emitter until the response is initialized
+		send(key, subscriber, serializedReportCache.serialize(report.right(), fields)
+				.representation(SerializedReportCache.Format.JSON, false));
+		return Either.right(subscriber.emitter);
+	}
+
+	/**
+	 * Send the reports that changed to their subscribers. Invoked periodically.
+	 */
+	@Scheduled(fixedDelayString = "${weather.stream.check-interval-ms:30000}",
+			initialDelayString = "${weather.stream.check-interval-ms:30000}")
+	public void publish() {
+		streams.forEach((key, stream) -> {
+			// a check still running, e.g. waiting for the upstream, is not started again
+			if (!stream.checking.compareAndSet(false, true))
+				return;
+			try {
+				sendExecutor.execute(() -> check(key, stream));
+			} catch (RejectedExecutionException e) {
+				stream.checking.set(false);
+				droppedEvents.increment(stream.subscribers.size());
+			}
+		});
+	}
+
+	private void check(StreamKey key, Stream stream) {
+		try {
+			final var city = key.city();
+			final var forecasts = weatherForecastRepository.getWeatherForecastForCity(city.coordinates(),
+					GetWeatherForecastUseCase.DEFAULT_FORECAST_DAYS);
+			final var representation = serializedReportCache.serialize(new WeatherReport(forecasts, city), key.fields())
+					.representation(SerializedReportCache.Format.JSON, false);
+			stream.subscribers.forEach(subscriber -> schedule(key, subscriber, representation));
+		} catch (RuntimeException e) {
+			LOGGER.debug("Could not get the report of {}: {}", key.city().displayName(), e.getMessage());
+		} finally {
+			stream.checking.set(false);
+		}
+	}
+
+	/**
+	 * @return Number of subscribers.
+	 */
+	int subscribers() {
+		return subscribers.get();
+	}
+
+	/**
+	 * @return Number of streams, i.e. of cities and fields with subscribers.
+	 */
+	int streams() {
+		return streams.size();
+	}
+
+	/**
+	 * Send an event on the executor, replacing the one of the subscriber waiting to be sent, if any.
+	 */
+	private void schedule(StreamKey key, Subscriber subscriber, SerializedReportCache.Representation representation) {
+		final long sendingSince = subscriber.sendingSince;
+		if (sendingSince != 0 && System.nanoTime() - sendingSince > sendTimeoutNanos) {
+			LOGGER.debug("Dropping a slow subscriber of {}", key.city().displayName());
+			droppedSubscribers.increment();
+			unsubscribe(key, subscriber);
+			subscriber.emitter.complete();
+			return;
+		}
+
+		if (subscriber.pending.getAndSet(representation) != null)
+			droppedEvents.increment();
+		if (!subscriber.scheduled.compareAndSet(false, true))
+			return;
+		try {
+			sendExecutor.execute(() -> drain(key, subscriber));
+		} catch (RejectedExecutionException e) {
+			if (subscriber.pending.getAndSet(null) != null)
+				droppedEvents.increment();
+			subscriber.scheduled.set(false);
+		}
+	}
+
+	private void drain(StreamKey key, Subscriber subscriber) {
+		do {
+			final var representation = subscriber.pending.getAndSet(null);
+			if (representation != null)
+				send(key, subscriber, representation);
+			subscriber.scheduled.set(false);
+			// an event scheduled meanwhile may have found the drain still running
+		} while (subscriber.pending.get() != null && subscriber.scheduled.compareAndSet(false, true));
+	}
+
+	private void send(StreamKey key, Subscriber subscriber, SerializedReportCache.Representation representation) {
+		// events of a subscriber are sent in order, each one once
+		synchronized (subscriber) {
+			subscriber.sendingSince = System.nanoTime();
+			try {
+				if (representation.etag().equals(subscriber.lastEventId)) {
+					subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+				} else {
+					subscriber.emitter.send(SseEmitter.event()
+							.id(representation.etag())
+							.name(REPORT_EVENT)
+							.data(representation.body(), MediaType.APPLICATION_JSON));
+					subscriber.lastEventId = representation.etag();
+				}
+			} catch (IOException | IllegalStateException e) {
+				// disconnected or completed: the container completes the emitter
+				unsubscribe(key, subscriber);
+			} finally {
+				subscriber.sendingSince = 0;
+			}
+		}
+	}
+
+	private void unsubscribe(StreamKey key, Subscriber subscriber) {
+		streams.computeIfPresent(key, (k, stream) -> {
+			if (stream.subscribers.remove(subscriber))
+				subscribers.decrementAndGet();
+			return stream.subscribers.isEmpty() ? null : stream;
+		});
+	}
+
+	private record StreamKey(City city, Set<ForecastField> fields) {
+	}
+
+	private static final class Stream {
+
+		private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+		private final AtomicBoolean checking = new AtomicBoolean();
+
+	}
+
+	private static final class Subscriber {
+
+		private final SseEmitter emitter;
+
+		private String lastEventId;
+
+		private final AtomicReference<SerializedReportCache.Representation> pending = new AtomicReference<>();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		// start of the write in progress, 0 if none
+		private volatile long sendingSince;
+
+		private Subscriber(SseEmitter emitter, String lastEventId) {
+			this.emitter = emitter;
+			this.lastEventId = lastEventId;
+		}
+
+	}
+
+}
@@ -0,0 +1,345 @@
+package example.weatherwebapp.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.ForecastSlots;
+import example.weatherwebapp.core.GetWeatherForecastUseCase;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Serialized representations of the weather reports, with their ETag, cached per city and selection of fields,
+ * or per city and number of days for the daily summaries.
+ * <p>
+ * A cached serialization is reused as long as the report has the very same forecast series instance,
+ * i.e. until the forecast cache fetches new forecasts, so that the same report is not serialized on every request.
+ * The JSON representation is serialized first; the CBOR and gzip compressed ones only when first requested.
+ */
+@Component
+class SerializedReportCache {
+
+	private static final Pattern ZERO_QUALITY = Pattern.compile("q=0(\\.0*)?");
+
+	private static final String FORECAST_FILTER = "forecastFields";
+
+	private final ObjectMapper objectMapper;
+
+	private final ObjectMapper cborMapper;
+
+	private final Duration slotDelay;
+
+	private final Clock clock;
+
+	private final Cache<ReportKey, SerializedReport> cache;
+
+	@Autowired
+	SerializedReportCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+			@Value("${weather.response.cache.maximum-size:10000}") long maximumSize,
+			@Value("${weather.forecast.cache.slot-delay:10m}") Duration slotDelay) {
+		this(objectMapper, maximumSize, slotDelay, Clock.systemUTC());
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "responses");
+	}
+
+	SerializedReportCache(ObjectMapper objectMapper, long maximumSize, Duration slotDelay, Clock clock) {
+		// only the selected fields of the forecasts are serialized
+		this.objectMapper = objectMapper.copy().addMixIn(WeatherForecast.class, FilteredForecast.class);
+		// same configuration (modules, features) as the JSON one
+		this.cborMapper = this.objectMapper.copyWith(new CBORFactory());
+		this.slotDelay = slotDelay;
+		this.clock = clock;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				// a series never outlives its slot
+				.expireAfterWrite(ForecastSlots.SLOT_DURATION.plus(slotDelay))
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Get the serialized report with all the fields, serializing it only if not cached yet.
+	 * @param report Report.
+	 * @return Serialized report.
+	 */
+	SerializedReport serialize(WeatherReport report) {
+		return serialize(report, ForecastField.ALL);
+	}
+
+	/**
+	 * Get the serialized report, serializing it only if not cached yet.
+	 * @param report Report.
+	 * @param fields Fields of the forecasts to serialize.
+	 * @return Serialized report.
+	 */
+	SerializedReport serialize(WeatherReport report, Set<ForecastField> fields) {
+		return serialize(new ReportKey(report.getCity(), fields, null), report, () -> report);
+	}
+
+	/**
+	 * Get the serialized daily summaries of a report, summarizing and serializing them only if not cached yet.
+	 * @param report       Report.
+	 * @param forecastDays Number of days to summarize, default if null.
+	 * @return Serialized daily summaries.
+	 */
+	SerializedReport serializeDaily(WeatherReport report, Integer forecastDays) {
+		// 0 stands for the default number of days, as any missing or non-positive one
+		final int days = forecastDays == null || forecastDays <= 0 ? 0 : forecastDays;
+		return serialize(new ReportKey(report.getCity(), ForecastField.ALL, days), report,
+				() -> GetWeatherForecastUseCase.daily(report, forecastDays));
+	}
+
+	private SerializedReport serialize(ReportKey key, WeatherReport report, Supplier<Object> value) {
+		final var cached = cache.getIfPresent(key);
+		// identity comparison: a series is never modified, a new one means new forecasts
+		if (cached != null && cached.forecasts == report.getForecasts())
+			return cached;
+
+		final var serialized = new SerializedReport(value.get(), report.getForecasts(), key.fields());
+		cache.put(key, serialized);
+		return serialized;
+	}
+
+	/**
+	 * Cache directive of the reports: they can be cached until the forecasts of the next slot are published.
+	 * @return Cache directive.
+	 */
+	CacheControl cacheControl() {
+		final var now = clock.instant();
+		final var maxAge = Duration.between(now, ForecastSlots.nextPublication(now, slotDelay));
+		return CacheControl.maxAge(maxAge).cachePublic();
+	}
+
+	private static byte[] serialize(ObjectMapper mapper, Object report, Set<ForecastField> fields) {
+		final var filter = SimpleBeanPropertyFilter.filterOutAllExcept(ForecastField.properties(fields));
+		final var writer = mapper.writer(new SimpleFilterProvider().addFilter(FORECAST_FILTER, filter));
+		try {
+			return writer.writeValueAsBytes(report);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize the weather report", e);
+		}
+	}
+
+	private static byte[] gzip(byte[] bytes) {
+		final var out = new ByteArrayOutputStream(bytes.length / 4);
+		try (var gzip = new GZIPOutputStream(out)) {
+			gzip.write(bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	private static String hash(byte[] bytes) {
+		try {
+			final var hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * Format of a report representation.
+	 */
+	enum Format {
+		JSON(MediaType.APPLICATION_JSON, ""),
+		CBOR(MediaType.APPLICATION_CBOR, "-cbor");
+
+		private final MediaType mediaType;
+
+		private final String etagSuffix;
+
+		Format(MediaType mediaType, String etagSuffix) {
+			this.mediaType = mediaType;
+			this.etagSuffix = etagSuffix;
+		}
+
+		MediaType mediaType() {
+			return mediaType;
+		}
+
+		/**
+		 * Select the format preferred by an {@code Accept} header.
+		 * @param accept Header value, may be null.
+		 * @return CBOR if explicitly accepted with a higher or equal quality than JSON, JSON otherwise.
+		 */
+		static Format negotiate(String accept) {
+			if (accept == null || !accept.contains(CBOR.mediaType.getSubtype()))
+				return JSON;
+
+			final List<MediaType> mediaTypes;
+			try {
+				mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+			} catch (InvalidMediaTypeException e) {
+				return JSON;
+			}
+			// stable sort: in case of equal quality, the first listed wins
+			mediaTypes.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+			for (final var mediaType : mediaTypes) {
+				if (mediaType.getQualityValue() == 0)
+					break;
+				if (mediaType.equalsTypeAndSubtype(CBOR.mediaType))
+					return CBOR;
+				if (mediaType.isCompatibleWith(JSON.mediaType))
+					return JSON;
+			}
+			return JSON;
+		}
+	}
+
+	/**
+	 * Whether an {@code Accept-Encoding} header accepts the gzip coding.
+	 * @param acceptEncoding Header value, may be null.
+	 * @return true if gzip is listed (or {@code *} is) without a zero quality.
+	 */
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null)
+			return false;
+
+		boolean wildcard = false;
+		for (final var coding : acceptEncoding.split(",")) {
+			final var parameters = coding.split(";");
+			final var name = parameters[0].strip();
+			final boolean accepted = parameters.length == 1 || !ZERO_QUALITY.matcher(parameters[1].strip()).matches();
+			// an explicit gzip coding takes precedence over the wildcard
+			if (name.equalsIgnoreCase("gzip"))
+				return accepted;
+			if (name.equals("*"))
+				wildcard = accepted;
+		}
+		return wildcard;
+	}
+
+	/**
+	 * Report, or daily summaries, serialized in any format and content coding.
+	 */
+	final class SerializedReport {
+
+		private final Object report;
+
+		private final List<WeatherForecast> forecasts;
+
+		private final Set<ForecastField> fields;
+
+		private final String hash;
+
+		// indexed by format and coding, computed when first requested
+		private final AtomicReferenceArray<Representation> representations =
+				new AtomicReferenceArray<>(Format.values().length * 2);
+
+		private SerializedReport(Object report, List<WeatherForecast> forecasts, Set<ForecastField> fields) {
+			this.report = report;
+			this.forecasts = forecasts;
+			this.fields = fields;
+			final var json = serialize(objectMapper, report, fields);
+			this.hash = hash(json);
+			representations.set(index(Format.JSON, false),
+					new Representation(json, Format.JSON, false, etag(Format.JSON, false)));
+		}
+
+		/**
+		 * Get the representation of the report in a format, compressed or not.
+		 * @param format Format.
+		 * @param gzip   Whether the representation is compressed with gzip.
+		 * @return Representation.
+		 */
+		Representation representation(Format format, boolean gzip) {
+			final int index = index(format, gzip);
+			final var cached = representations.get(index);
+			if (cached != null)
+				return cached;
+
+			// concurrent requests may compute it twice, with the same result
+			final var body = gzip
+					? gzip(representation(format, false).body())
+					// the plain JSON one is always there
+					: serialize(cborMapper, report, fields);
+			final var representation = new Representation(body, format, gzip, etag(format, gzip));
+			representations.set(index, representation);
+			return representation;
+		}
+
+		private String etag(Format format, boolean gzip) {
+			// strong entity tags must differ between representations
+			return '"' + hash + format.etagSuffix + (gzip ? "-gzip" : "") + '"';
+		}
+
+		private static int index(Format format, boolean gzip) {
+			return format.ordinal() * 2 + (gzip ? 1 : 0);
+		}
+
+	}
+
+	/**
+	 * Key of a serialized report, with the number of days of the daily summaries, or null for the full report.
+	 */
+	private record ReportKey(City city, Set<ForecastField> fields, Integer dailyDays) {
+	}
+
+	@JsonFilter(FORECAST_FILTER)
+	private abstract static class FilteredForecast {
+	}
+
+	/**
+	 * Serialized representation of a report.
+	 * @param body    Serialized bytes.
+	 * @param format  Format.
+	 * @param gzipped Whether the bytes are compressed with gzip.
+	 * @param etag    Strong entity tag.
+	 */
+	record Representation(byte[] body, Format format, boolean gzipped, String etag) {
+
+		/**
+		 * Whether the entity tags of an {@code If-None-Match} header match this representation.
+		 * @param ifNoneMatch Header value, may be null.
+		 * @return true if the client has this representation already.
+		 */
+		boolean matches(String ifNoneMatch) {
+			if (ifNoneMatch == null)
+				return false;
+
+			for (final var candidate : ifNoneMatch.split(",")) {
+				final var tag = candidate.strip();
+				// weak comparison, as required for If-None-Match
+				if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag))
+					return true;
+			}
+			return false;
+		}
+
+	}
+
+}
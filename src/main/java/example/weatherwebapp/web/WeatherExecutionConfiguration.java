@@ -0,0 +1,104 @@
+package example.weatherwebapp.web;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configures where forecast requests are executed, according to {@code weather.execution.mode}:
+ * <ul>
+ * <li>{@code blocking} (default): on the servlet thread that received the request;</li>
+ * <li>{@code async}: on a dedicated bounded pool, so that servlet threads are released
+ * while the upstream calls are in progress;</li>
+ * <li>{@code virtual}: on a virtual thread per request, so that the blocking upstream calls
+ * hold neither a servlet thread nor a platform thread. Requires Java 21 at runtime.</li>
+ * </ul>
+ * Batch requests always fan out on their own bounded pool, and the events of the live reports are written
+ * on another one.
+ */
+@Configuration(proxyBeanMethods = false)
+class WeatherExecutionConfiguration {
+
+	static final String FORECAST_EXECUTOR = "forecastExecutor";
+
+	static final String BATCH_EXECUTOR = "batchExecutor";
+
+	static final String STREAM_EXECUTOR = "streamExecutor";
+
+	@Bean(FORECAST_EXECUTOR)
+	Executor forecastExecutor(
+			@Value("${weather.execution.mode:blocking}") ExecutionMode mode,
+			@Value("${weather.execution.pool-size:64}") int poolSize,
+			@Value("${weather.execution.queue-capacity:1000}") int queueCapacity) {
+		if (mode == ExecutionMode.BLOCKING)
+			return Runnable::run;
+		if (mode == ExecutionMode.VIRTUAL)
+			return virtualThreadPerTaskExecutor();
+
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("forecast-");
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		return executor;
+	}
+
+	@Bean(BATCH_EXECUTOR)
+	Executor batchExecutor(
+			@Value("${weather.batch.parallelism:32}") int parallelism,
+			@Value("${weather.batch.queue-capacity:1000}") int queueCapacity) {
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("forecast-batch-");
+		executor.setCorePoolSize(parallelism);
+		executor.setMaxPoolSize(parallelism);
+		executor.setQueueCapacity(queueCapacity);
+		// when saturated, the cities fail instead of being resolved on the servlet thread
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+		return executor;
+	}
+
+	@Bean(STREAM_EXECUTOR)
+	Executor streamExecutor(
+			@Value("${weather.stream.send-pool-size:8}") int poolSize,
+			@Value("${weather.stream.send-queue-capacity:10000}") int queueCapacity) {
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("forecast-stream-");
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		// when saturated, the events are dropped: the next check sends the latest report
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+		return executor;
+	}
+
+	/**
+	 * Executor starting a virtual thread per task, looked up at runtime since the webapp is compiled for Java 17.
+	 * @throws IllegalStateException If the runtime does not support virtual threads.
+	 */
+	/* package */ static ExecutorService virtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("The virtual execution mode requires Java 21 or later, running on "
+					+ Runtime.version(), e);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not create the virtual thread executor", e);
+		}
+	}
+
+	/**
+	 * Execution mode of the forecast requests.
+	 */
+	enum ExecutionMode {
+		BLOCKING,
+		ASYNC,
+		VIRTUAL;
+	}
+
+}
@@ -1,17 +1,47 @@
 package example.weatherwebapp.web;
 
 import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.CitySuggestion;
+import example.weatherwebapp.core.Coordinates;
 import example.weatherwebapp.core.GetWeatherForecastUseCase;
+import example.weatherwebapp.core.GetWeatherForecastUseCase.FailureCause;
+import example.weatherwebapp.core.SuggestCitiesUseCase;
+import example.weatherwebapp.core.WeatherReport;
+import example.weatherwebapp.shared.Either;
+import example.weatherwebapp.web.SerializedReportCache.SerializedReport;
+import example.weatherwebapp.web.WeatherExecutionConfiguration.ExecutionMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Webapp HTTP Apis.
@@ -20,22 +50,282 @@ import example.weatherwebapp.core.GetWeatherForecastUseCase;
 @RequestMapping("/weather")
 public class WeatherWebApis {
 
+	/**
+	 * Seconds a client is asked to wait when the forecasts are unavailable, e.g. while the upstream circuit is open.
+	 */
+	private static final int RETRY_AFTER_SECONDS = 30;
+
 	private final GetWeatherForecastUseCase getWeatherForecastUseCase;
 
-	WeatherWebApis(GetWeatherForecastUseCase getWeatherForecastUseCase) {
+	private final SuggestCitiesUseCase suggestCitiesUseCase;
+
+	private final Executor forecastExecutor;
+
+	private final ExecutionMode executionMode;
+
+	private final Executor batchExecutor;
+
+	private final int batchMaximumCities;
+
+	private final SerializedReportCache serializedReportCache;
+
+	private final ForecastStreams forecastStreams;
+
+	private final Map<FailureCause, Counter> failureCounters = new EnumMap<>(FailureCause.class);
+
+	WeatherWebApis(GetWeatherForecastUseCase getWeatherForecastUseCase, SuggestCitiesUseCase suggestCitiesUseCase,
+			@Qualifier(WeatherExecutionConfiguration.FORECAST_EXECUTOR) Executor forecastExecutor,
+			@Value("${weather.execution.mode:blocking}") ExecutionMode executionMode,
+			@Qualifier(WeatherExecutionConfiguration.BATCH_EXECUTOR) Executor batchExecutor,
+			@Value("${weather.batch.maximum-cities:100}") int batchMaximumCities,
+			SerializedReportCache serializedReportCache,
+			ForecastStreams forecastStreams,
+			MeterRegistry meterRegistry) {
 		this.getWeatherForecastUseCase = getWeatherForecastUseCase;
+		this.suggestCitiesUseCase = suggestCitiesUseCase;
+		this.forecastExecutor = forecastExecutor;
+		this.executionMode = executionMode;
+		this.batchExecutor = batchExecutor;
+		this.batchMaximumCities = batchMaximumCities;
+		this.serializedReportCache = serializedReportCache;
+		this.forecastStreams = forecastStreams;
+		for (final var cause : FailureCause.values()) {
+			failureCounters.put(cause, Counter.builder("weather.forecast.failures")
+					.description("Forecast requests failed, by cause")
+					.tag("cause", cause.name())
+					.register(meterRegistry));
+		}
+	}
+
+	/**
+	 * GET HTTP request that suggests cities from the first letters of their name.
+	 * Suggestions are served from memory, without any upstream call.
+	 * 
+	 * @param prefix First letters of the city name.
+	 * @param limit Maximum number of suggestions.
+	 * @return response.
+	 */
+	@GetMapping("cities/suggest")
+	@ResponseBody
+	public ResponseEntity<List<CitySuggestion>> suggestCities(
+			@RequestParam(required = false) String prefix, @RequestParam(required = false) Integer limit) {
+		return ResponseEntity.ok(suggestCitiesUseCase.suggest(prefix, limit));
 	}
 
 	/**
 	 * GET HTTP request that queries for weather forecasts of a specific city.
+	 * Depending on the execution mode, the response is computed directly on the servlet thread,
+	 * or asynchronously on the forecast executor, releasing the servlet thread.
+	 * Reports are served with an ETag and can be cached until the next forecast slot is published:
+	 * a request whose {@code If-None-Match} matches the current report is answered with {@code 304 Not Modified}.
+	 * The report is serialized in JSON, or in CBOR if preferred by the {@code Accept} header,
+	 * and compressed with gzip if accepted by the {@code Accept-Encoding} header.
+	 * The {@code fields} parameter selects the fields of the forecasts, all of them when missing.
+	 * With {@code daily=true}, the response has a summary per day instead, in the local time of the city,
+	 * limited to {@code forecaseDays} days; the summaries have no selectable fields.
 	 * 
 	 * @param city City to look for weather forecasts.
-	 * @return response.
+	 * @param fields Comma separated fields of the forecasts, e.g. {@code temp,wind}.
+	 * @param daily Whether to summarize the forecasts per day.
+	 * @param headers Request headers, for content negotiation and conditional requests.
+	 * @return response, or its future in the asynchronous execution modes.
 	 */
+	// declared as Object, so that the return value handler is chosen by the actual response or future
 	@GetMapping("{city}")
 	@ResponseBody
-	public ResponseEntity<Object> getWeatherForecast(
-			@PathVariable String city, @RequestParam(required = false) Integer forecaseDays) {
+	public Object getWeatherForecast(
+			@PathVariable String city, @RequestParam(required = false) Integer forecaseDays,
+			@RequestParam(required = false) String fields, @RequestParam(defaultValue = "false") boolean daily,
+			@RequestHeader HttpHeaders headers) {
+
+		final var selectedFields = selectFields(fields);
+		if (selectedFields.isLeft())
+			return selectedFields.left();
+		if (daily && fields != null) {
+			final var body = new ErrorDTO(Instant.now(), "Fields can not be selected in daily summaries", null);
+			return ResponseEntity.badRequest().body(body);
+		}
+
+		return execute(() -> forecastResponse(city, forecaseDays, headers, daily
+				? report -> serializedReportCache.serializeDaily(report, forecaseDays)
+				: report -> serializedReportCache.serialize(report, selectedFields.right())));
+
+	}
+
+	/**
+	 * GET HTTP request that queries for weather forecasts of some coordinates, e.g. from the GPS of the user,
+	 * without geocoding. The report is named after the nearest known city, if close enough,
+	 * and then shares its forecasts (and their cache entries) with the requests by name of that city.
+	 * Responses are served as the ones of {@link #getWeatherForecast}, ETag included.
+	 * 
+	 * @param lat Latitude, between -90 and 90 degrees.
+	 * @param lon Longitude, between -180 and 180 degrees.
+	 * @param fields Comma separated fields of the forecasts, e.g. {@code temp,wind}.
+	 * @param headers Request headers, for content negotiation and conditional requests.
+	 * @return response, or its future in the asynchronous execution modes.
+	 */
+	// declared as Object, so that the return value handler is chosen by the actual response or future
+	@GetMapping("at")
+	@ResponseBody
+	public Object getWeatherForecastAt(
+			@RequestParam double lat, @RequestParam double lon, @RequestParam(required = false) Integer forecaseDays,
+			@RequestParam(required = false) String fields, @RequestHeader HttpHeaders headers) {
+
+		final var selectedFields = selectFields(fields);
+		if (selectedFields.isLeft())
+			return selectedFields.left();
+
+		final var coordinates = Coordinates.tryCreate(lat, lon);
+		if (coordinates.isLeft()) {
+			final var message = String.format("Invalid %s: %s, %s", coordinates.left(), lat, lon);
+			return ResponseEntity.badRequest().body(new ErrorDTO(Instant.now(), message, null));
+		}
+
+		return execute(() -> reportResponse(getWeatherForecastUseCase.getAt(coordinates.right(), forecaseDays),
+				headers, report -> serializedReportCache.serialize(report, selectedFields.right())));
+
+	}
+
+	/**
+	 * GET HTTP request that streams the weather reports of a city with Server-Sent Events.
+	 * The current report is sent first, then a new {@code report} event whenever the forecasts change;
+	 * the ID of the events is the ETag of the report, so that a reconnecting client is not sent the report it has.
+	 * 
+	 * @param city City to look for weather forecasts.
+	 * @param fields Comma separated fields of the forecasts, e.g. {@code temp,wind}.
+	 * @param lastEventId ID of the last event received, sent by reconnecting clients.
+	 * @return the event stream, or an error response.
+	 */
+	// declared as Object, so that the return value handler is chosen by the actual emitter or response
+	@GetMapping("{city}/stream")
+	@ResponseBody
+	public Object streamWeatherForecast(@PathVariable String city, @RequestParam(required = false) String fields,
+			@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+
+		final var selectedFields = selectFields(fields);
+		if (selectedFields.isLeft())
+			return selectedFields.left();
+
+		final var cityEither = CityName.tryCreate(city);
+		if (cityEither.isLeft()) {
+			final var body = new ErrorDTO(Instant.now(), "City can not be null or blank", null);
+			return ResponseEntity.badRequest().body(body);
+		}
+
+		final Either<FailureCause, SseEmitter> subscription;
+		try {
+			subscription = forecastStreams.subscribe(cityEither.right(), selectedFields.right(), lastEventId);
+		} catch (RejectedExecutionException e) {
+			final var body = new ErrorDTO(Instant.now(), "Too many subscribers", null);
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+		}
+		if (subscription.isLeft())
+			return failureResponse(subscription.left());
+		return subscription.right();
+
+	}
+
+	/**
+	 * POST HTTP request that queries for weather forecasts of several cities at once.
+	 * Cities are resolved in parallel on the batch executor, each city only once: names differing only by case
+	 * or spacing share the lookup. When the batch executor is saturated, the cities not resolved yet fail
+	 * with {@code TOO_MANY_REQUESTS}.
+	 * 
+	 * @param request Names of the cities and number of days to forecast.
+	 * @return response with the report of each city found, and the failure cause of the others.
+	 */
+	@PostMapping("batch")
+	@ResponseBody
+	public CompletableFuture<ResponseEntity<Object>> getWeatherForecastBatch(
+			@RequestBody BatchForecastRequestDTO request) {
+
+		if (request.cities() == null || request.cities().isEmpty() || request.cities().size() > batchMaximumCities) {
+			final var message = String.format("Between 1 and %d cities are required", batchMaximumCities);
+			final var body = new ErrorDTO(Instant.now(), message, null);
+			return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(body));
+		}
+
+		final Map<String, CompletableFuture<Either<String, WeatherReport>>> lookups = new HashMap<>();
+		final Map<String, CompletableFuture<Either<String, WeatherReport>>> results = new LinkedHashMap<>();
+		for (final var city : request.cities()) {
+			final var name = Objects.requireNonNullElse(city, "");
+			if (results.containsKey(name))
+				continue;
+			final var cityEither = CityName.tryCreate(name);
+			results.put(name, cityEither.isLeft()
+					? CompletableFuture.completedFuture(Either.left("INVALID_CITY_NAME"))
+					: lookups.computeIfAbsent(cityEither.right().normalized(),
+							normalized -> batchLookup(cityEither.right(), request.forecastDays())));
+		}
+
+		return CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new))
+				.thenApply(done -> {
+					final Map<String, WeatherReport> reports = new LinkedHashMap<>();
+					final Map<String, String> failures = new LinkedHashMap<>();
+					results.forEach((city, result) -> {
+						final var either = result.join();
+						if (either.isLeft())
+							failures.put(city, either.left());
+						else
+							reports.put(city, either.right());
+					});
+					return ResponseEntity.ok(new BatchForecastResponseDTO(reports, failures));
+				});
+
+	}
+
+	private CompletableFuture<Either<String, WeatherReport>> batchLookup(CityName city, Integer forecastDays) {
+		try {
+			return CompletableFuture.supplyAsync(() -> batchForecast(city, forecastDays), batchExecutor)
+					.exceptionally(e -> {
+						failureCounters.get(FailureCause.INTERNAL_ERROR).increment();
+						return Either.left(FailureCause.INTERNAL_ERROR.name());
+					});
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.completedFuture(Either.left("TOO_MANY_REQUESTS"));
+		}
+	}
+
+	private Either<String, WeatherReport> batchForecast(CityName city, Integer forecastDays) {
+
+		return getWeatherForecastUseCase.get(city, forecastDays)
+				.map(failure -> {
+					failureCounters.get(failure).increment();
+					return Either.left(failure.name());
+				}, Either::right);
+
+	}
+
+	/**
+	 * Parse the selected fields of the forecasts, or answer a bad request listing the known ones.
+	 */
+	private static Either<ResponseEntity<Object>, Set<ForecastField>> selectFields(String fields) {
+		final var selectedFields = ForecastField.tryParse(fields);
+		if (selectedFields.isLeft()) {
+			final var message = String.format("Unknown fields: %s. Known fields: %s", selectedFields.left(),
+					ForecastField.names());
+			return Either.left(ResponseEntity.badRequest().body(new ErrorDTO(Instant.now(), message, null)));
+		}
+		return Either.right(selectedFields.right());
+	}
+
+	/**
+	 * Compute a response according to the execution mode: directly, without the overhead of a future,
+	 * or on the forecast executor.
+	 */
+	private Object execute(Supplier<ResponseEntity<Object>> response) {
+		if (executionMode == ExecutionMode.BLOCKING)
+			return response.get();
+		try {
+			return CompletableFuture.supplyAsync(response, forecastExecutor);
+		} catch (RejectedExecutionException e) {
+			final var body = new ErrorDTO(Instant.now(), "Too many requests in progress", null);
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+		}
+	}
+
+	private ResponseEntity<Object> forecastResponse(String city, Integer forecastDays, HttpHeaders headers,
+			Function<WeatherReport, SerializedReport> serializer) {
 
 		final var cityEither = CityName.tryCreate(city);
 
@@ -45,15 +335,47 @@ public class WeatherWebApis {
 			return ResponseEntity.badRequest().body(body);
 		}
 
-		final var weatherForecasts = getWeatherForecastUseCase.get(cityEither.right(), forecaseDays);
+		return reportResponse(getWeatherForecastUseCase.get(cityEither.right(), forecastDays), headers, serializer);
+
+	}
+
+	private ResponseEntity<Object> reportResponse(Either<FailureCause, WeatherReport> weatherForecasts,
+			HttpHeaders headers, Function<WeatherReport, SerializedReport> serializer) {
 
 		if (weatherForecasts.isLeft()) {
-			final var body = new ErrorDTO(Instant.now(), weatherForecasts.left().toString(), null);
-			return ResponseEntity.internalServerError().body(body);
+			return failureResponse(weatherForecasts.left());
+		}
+
+		final var report = serializer.apply(weatherForecasts.right())
+				.representation(SerializedReportCache.Format.negotiate(headers.getFirst(HttpHeaders.ACCEPT)),
+						SerializedReportCache.acceptsGzip(headers.getFirst(HttpHeaders.ACCEPT_ENCODING)));
+		if (report.matches(headers.getFirst(HttpHeaders.IF_NONE_MATCH))) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+					.eTag(report.etag())
+					.cacheControl(serializedReportCache.cacheControl())
+					.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+					.build();
 		}
 
-		return ResponseEntity.ok(weatherForecasts.right());
+		final var response = ResponseEntity.ok()
+				.contentType(report.format().mediaType())
+				.eTag(report.etag())
+				.cacheControl(serializedReportCache.cacheControl())
+				.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+		if (report.gzipped())
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		return response.body(report.body());
+
+	}
 
+	private ResponseEntity<Object> failureResponse(FailureCause cause) {
+		failureCounters.get(cause).increment();
+		final var body = new ErrorDTO(Instant.now(), cause.toString(), null);
+		if (cause == FailureCause.UPSTREAM_UNAVAILABLE)
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS))
+					.body(body);
+		return ResponseEntity.internalServerError().body(body);
 	}
 
 }
@@ -1,5 +1,37 @@
 package example.weatherwebapp.core;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
 class CityNameTest {
-	
+
+	@Test
+	void whenNameIsBlank_tryCreateShouldReturnLeftEither() {
+
+		assertTrue(CityName.tryCreate("  ").isLeft());
+		assertTrue(CityName.tryCreate(null).isLeft());
+
+	}
+
+	@Test
+	void whenNamesDifferByCaseAndWhitespaces_shouldHaveSameNormalizedName() {
+
+		final var name = new CityName("  San   DON\u00c0 di Piave ");
+
+		assertEquals("san don\u00e0 di piave", name.normalized());
+
+	}
+
+	@Test
+	void whenNamesDifferByUnicodeComposition_shouldHaveSameNormalizedName() {
+
+		final var composed = new CityName("Forl\u00ec");
+		final var decomposed = new CityName("Forli\u0300");
+
+		assertEquals(composed.normalized(), decomposed.normalized());
+
+	}
+
 }
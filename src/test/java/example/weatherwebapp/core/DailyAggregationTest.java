@@ -0,0 +1,87 @@
+package example.weatherwebapp.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class DailyAggregationTest {
+
+	private static final Instant MIDNIGHT_UTC = Instant.parse("2023-06-20T00:00:00Z");
+
+	@Test
+	void whenForecastsSpanSeveralDays_shouldSummarizeEachDay() {
+
+		final var forecasts = List.of(
+				forecast(0, 10, "01n", "clear sky"),
+				forecast(6, 20, "10d", "light rain"),
+				forecast(12, 30, "10d", "light rain"),
+				forecast(24, 15, "04d", "overcast clouds"));
+
+		final var days = DailyAggregation.aggregate(new ForecastSeries(forecasts, ZoneOffset.UTC), 5);
+
+		assertEquals(List.of(
+				new DailyForecast(LocalDate.of(2023, 6, 20), 10, 30, 20, "10d", "light rain"),
+				new DailyForecast(LocalDate.of(2023, 6, 21), 15, 15, 15, "04d", "overcast clouds")), days);
+
+	}
+
+	@Test
+	void whenPlaceIsAheadOfUtc_shouldSplitTheDaysAtLocalMidnight() {
+
+		// 21:00 UTC is already the next day in UTC+3
+		final var forecasts = List.of(
+				forecast(18, 10, "01n", "clear sky"),
+				forecast(21, 12, "01n", "clear sky"));
+
+		final var days = DailyAggregation.aggregate(new ForecastSeries(forecasts, ZoneOffset.ofHours(3)), 5);
+
+		assertEquals(2, days.size());
+		assertEquals(LocalDate.of(2023, 6, 20), days.get(0).date());
+		assertEquals(LocalDate.of(2023, 6, 21), days.get(1).date());
+
+	}
+
+	@Test
+	void whenWeatherIsTied_shouldPreferTheHighestIconCode() {
+
+		final var forecasts = List.of(
+				forecast(0, 10, "02n", "few clouds"),
+				forecast(3, 10, "09n", "shower rain"));
+
+		final var day = DailyAggregation.aggregate(new ForecastSeries(forecasts, ZoneOffset.UTC), 1).get(0);
+
+		assertEquals("09d", day.weatherIcon());
+		assertEquals("shower rain", day.weatherDescription());
+
+	}
+
+	@Test
+	void whenMoreDaysThanRequested_shouldStopAtTheRequestedDays() {
+
+		final var forecasts = List.of(
+				forecast(0, 10, "01d", "clear sky"),
+				forecast(24, 10, "01d", "clear sky"),
+				forecast(48, 10, "01d", "clear sky"));
+
+		assertEquals(2, DailyAggregation.aggregate(new ForecastSeries(forecasts, ZoneOffset.UTC), 2).size());
+
+	}
+
+	@Test
+	void whenNoForecasts_shouldReturnNoDays() {
+
+		assertTrue(DailyAggregation.aggregate(new ForecastSeries(List.of(), ZoneOffset.UTC), 5).isEmpty());
+
+	}
+
+	private static WeatherForecast forecast(int hours, double temperature, String icon, String description) {
+		return new WeatherForecast(MIDNIGHT_UTC.plusSeconds(hours * 3600L), temperature, icon, description);
+	}
+
+}
@@ -0,0 +1,84 @@
+package example.weatherwebapp.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ForecastSeriesTest {
+
+	private static final Instant BASE_TS = Instant.parse("2023-06-20T00:00:00Z");
+
+	@Test
+	void whenCreatedFromForecasts_shouldViewTheSameForecasts() {
+
+		final var forecasts = List.of(
+				new WeatherForecast(BASE_TS, 21.53, 21.9, 64, 3.54, 209, 4.28, 17, 0.25, 10000, "02d", "few clouds"),
+				new WeatherForecast(BASE_TS.plusSeconds(10800), -4.1, -9.75, 93, 12.1, 355, 20.6, 100, 3.1, 800,
+						"13n", "snow"),
+				new WeatherForecast(BASE_TS.plusSeconds(21600), 18, null, null));
+
+		final var series = new ForecastSeries(forecasts, ZoneOffset.ofHours(2));
+
+		assertEquals(forecasts, series);
+		assertEquals(ZoneOffset.ofHours(2), series.utcOffset());
+		assertEquals(BASE_TS.plusSeconds(10800).getEpochSecond(), series.epochSecond(1));
+		assertEquals(-4.1, series.temperature(1));
+		assertEquals("13n", series.weatherIcon(1));
+
+	}
+
+	@Test
+	void whenMeasuresHaveMoreThanTwoDecimals_shouldRoundThemToHundredths() {
+
+		final var series = new ForecastSeries(List.of(new WeatherForecast(BASE_TS, 21.537, "01d", "clear sky")),
+				ZoneOffset.UTC);
+
+		assertEquals(21.54, series.get(0).getAvgTemperature());
+
+	}
+
+	@Test
+	void whenSeriesHaveTheSameWeather_shouldShareTheCondition() {
+
+		final var first = new ForecastSeries(List.of(new WeatherForecast(BASE_TS, 20, "01d", "clear sky")),
+				ZoneOffset.UTC);
+		final var second = new ForecastSeries(List.of(new WeatherForecast(BASE_TS, 25, "01d", new String("clear sky"))),
+				ZoneOffset.UTC);
+
+		assertSame(first.weatherDescription(0), second.weatherDescription(0));
+
+	}
+
+	@Test
+	void whenBuildingMoreForecastsThanExpected_shouldGrow() {
+
+		final var builder = ForecastSeries.builder(1);
+		final List<WeatherForecast> forecasts = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			final var forecast = new WeatherForecast(BASE_TS.plusSeconds(i * 10800L), i, i % 2 == 0 ? "01d" : "10d",
+					null);
+			forecasts.add(forecast);
+			builder.addAll(List.of(forecast));
+		}
+
+		assertEquals(forecasts, builder.build(ZoneOffset.UTC));
+
+	}
+
+	@Test
+	void whenListIsNotASeries_shouldBeInUtc() {
+
+		final var series = ForecastSeries.of(List.of(new WeatherForecast(BASE_TS, 20, "01d", "clear sky")));
+
+		assertEquals(ZoneOffset.UTC, series.utcOffset());
+		assertSame(series, ForecastSeries.of(series));
+
+	}
+
+}
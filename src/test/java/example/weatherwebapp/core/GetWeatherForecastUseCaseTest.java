@@ -20,11 +20,13 @@ class GetWeatherForecastUseCaseTest {
 
 	WeatherForecastRepository weatherForecastRepository;
 	CityGeocodingRepository cityCoordinatesRepository;
+	CityRequestTracker cityRequestTracker;
 
 	@BeforeEach
 	void setup() {
 		weatherForecastRepository = mock(WeatherForecastRepository.class);
 		cityCoordinatesRepository = mock(CityGeocodingRepository.class);
+		cityRequestTracker = mock(CityRequestTracker.class);
 	}
 
 	@Test
@@ -43,7 +45,7 @@ class GetWeatherForecastUseCaseTest {
 						createTestWF(previousDay(BASE_TS, 3)),
 						createTestWF(previousDay(BASE_TS, 4))));
 
-		final var usecase = new GetWeatherForecastUseCase(weatherForecastRepository, cityCoordinatesRepository);
+		final var usecase = useCase(c -> Optional.empty());
 
 		final var forecast = usecase.get(vicenza, null).right();
 
@@ -65,7 +67,7 @@ class GetWeatherForecastUseCaseTest {
 						createTestWF(previousDay(BASE_TS, 1)),
 						createTestWF(previousDay(BASE_TS, 2))));
 
-		final var usecase = new GetWeatherForecastUseCase(weatherForecastRepository, cityCoordinatesRepository);
+		final var usecase = useCase(c -> Optional.empty());
 
 		final var forecast = usecase.get(vicenza, 3).right();
 
@@ -76,7 +78,7 @@ class GetWeatherForecastUseCaseTest {
 	@Test
 	void whenCityIsNull_shouldThrow() {
 
-		final var usecase = new GetWeatherForecastUseCase(weatherForecastRepository, cityCoordinatesRepository);
+		final var usecase = useCase(c -> Optional.empty());
 
 		final var e = assertThrows(NullPointerException.class, () -> usecase.get(null, 3));
 
@@ -91,7 +93,7 @@ class GetWeatherForecastUseCaseTest {
 
 		when(cityCoordinatesRepository.getCity(vicenza)).thenReturn(Optional.empty());
 
-		final var usecase = new GetWeatherForecastUseCase(weatherForecastRepository, cityCoordinatesRepository);
+		final var usecase = useCase(c -> Optional.empty());
 
 		final var either = usecase.get(vicenza, null);
 
@@ -99,6 +101,120 @@ class GetWeatherForecastUseCaseTest {
 
 	}
 
+	@Test
+	void whenForecastsAreUnavailable_shouldReturnUpstreamUnavailable() {
+
+		final var vicenza = new CityName("Vicenza");
+
+		when(cityCoordinatesRepository.getCity(vicenza))
+				.thenReturn(Optional.of(VICENZA));
+		when(weatherForecastRepository.getWeatherForecastForCity(any(), anyInt()))
+				.thenThrow(new ForecastsUnavailableException("Circuit breaker open", null));
+
+		final var usecase = useCase(c -> Optional.empty());
+
+		final var either = usecase.get(vicenza, null);
+
+		assertEquals(GetWeatherForecastUseCase.FailureCause.UPSTREAM_UNAVAILABLE, either.left());
+
+	}
+
+	@Test
+	void whenGeocodingIsUnavailable_shouldReturnUpstreamUnavailable() {
+
+		final var vicenza = new CityName("Vicenza");
+
+		when(cityCoordinatesRepository.getCity(vicenza))
+				.thenThrow(new UpstreamUnavailableException("Circuit breaker open", null));
+
+		final var usecase = useCase(c -> Optional.empty());
+
+		final var either = usecase.get(vicenza, null);
+
+		assertEquals(GetWeatherForecastUseCase.FailureCause.UPSTREAM_UNAVAILABLE, either.left());
+		verifyNoInteractions(weatherForecastRepository);
+
+	}
+
+	@Test
+	void whenGeocodingFailsUnexpectedly_shouldReturnInternalError() {
+
+		final var vicenza = new CityName("Vicenza");
+
+		when(cityCoordinatesRepository.getCity(vicenza)).thenThrow(new IllegalStateException("Unexpected"));
+
+		final var usecase = useCase(c -> Optional.empty());
+
+		final var either = usecase.get(vicenza, null);
+
+		assertEquals(GetWeatherForecastUseCase.FailureCause.INTERNAL_ERROR, either.left());
+		verifyNoInteractions(weatherForecastRepository);
+
+	}
+
+	@Test
+	void whenCityIsFound_shouldTrackTheRequest() {
+
+		final var vicenza = new CityName("Vicenza");
+
+		when(cityCoordinatesRepository.getCity(vicenza))
+				.thenReturn(Optional.of(VICENZA));
+
+		final var usecase = useCase(c -> Optional.empty());
+
+		usecase.get(vicenza, null);
+
+		verify(cityRequestTracker).record(VICENZA);
+
+	}
+
+	@Test
+	void whenACityIsNearTheCoordinates_shouldGetItsForecastsWithoutGeocoding() {
+
+		final var coordinates = new Coordinates(45.52, 11.53);
+		final NearestCityRepository nearestCityRepository = c -> Optional.of(VICENZA);
+
+		final var usecase = useCase(nearestCityRepository);
+
+		final var report = usecase.getAt(coordinates, null).right();
+
+		assertEquals(VICENZA, report.getCity());
+		verify(weatherForecastRepository).getWeatherForecastForCity(VICENZA_COORDINATES, 5);
+		verifyNoInteractions(cityCoordinatesRepository);
+
+	}
+
+	@Test
+	void whenNoCityIsNearTheCoordinates_shouldGetTheForecastsOfTheSnappedCoordinates() {
+
+		final var coordinates = new Coordinates(45.52134, 11.52987);
+
+		final var usecase = useCase(c -> Optional.empty());
+
+		final var report = usecase.getAt(coordinates, null).right();
+
+		assertEquals("45.5200, 11.5300", report.getCity().displayName());
+		verify(weatherForecastRepository).getWeatherForecastForCity(coordinates.snapToGrid(0.01), 5);
+
+	}
+
+	@Test
+	void whenNearbyCoordinatesAreFarFromAnyCity_shouldShareTheSameCity() {
+
+		final var usecase = useCase(c -> Optional.empty());
+
+		final var first = usecase.getAt(new Coordinates(45.52134, 11.52987), null).right();
+		final var second = usecase.getAt(new Coordinates(45.51871, 11.53302), null).right();
+
+		assertEquals(first.getCity(), second.getCity());
+
+	}
+
+	private GetWeatherForecastUseCase useCase(NearestCityRepository nearestCityRepository) {
+		return new GetWeatherForecastUseCase(weatherForecastRepository, cityCoordinatesRepository,
+				cityRequestTracker, nearestCityRepository, 0.01);
+	}
+
 	private static WeatherForecast createTestWF(Instant ts) {
 		return new WeatherForecast(ts, 25, "test", "Test");
 	}
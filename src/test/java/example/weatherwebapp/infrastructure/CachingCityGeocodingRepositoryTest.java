@@ -0,0 +1,69 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.Coordinates;
+
+class CachingCityGeocodingRepositoryTest {
+
+	private static final City VICENZA = new City(new Coordinates(45.5, 11.5), "Vicenza (IT)");
+
+	CityGeocodingRepository delegate;
+
+	CachingCityGeocodingRepository repository;
+
+	@BeforeEach
+	void setup() {
+		delegate = mock(CityGeocodingRepository.class);
+		repository = new CachingCityGeocodingRepository(delegate, 100, Duration.ofDays(1), Duration.ofMinutes(1));
+	}
+
+	@Test
+	void whenSameCityIsRequestedWithDifferentSpelling_shouldCallDelegateOnce() {
+
+		when(delegate.getCity(any())).thenReturn(Optional.of(VICENZA));
+
+		assertEquals(Optional.of(VICENZA), repository.getCity(new CityName("Vicenza")));
+		assertEquals(Optional.of(VICENZA), repository.getCity(new CityName(" VICENZA ")));
+
+		verify(delegate, times(1)).getCity(any());
+
+	}
+
+	@Test
+	void whenCityIsNotFound_shouldCacheTheMiss() {
+
+		when(delegate.getCity(any())).thenReturn(Optional.empty());
+
+		assertEquals(Optional.empty(), repository.getCity(new CityName("Vicnza")));
+		assertEquals(Optional.empty(), repository.getCity(new CityName("Vicnza")));
+
+		verify(delegate, times(1)).getCity(any());
+
+	}
+
+	@Test
+	void whenDelegateThrows_shouldNotCacheTheFailure() {
+
+		when(delegate.getCity(any()))
+				.thenThrow(new IllegalStateException("upstream down"))
+				.thenReturn(Optional.of(VICENZA));
+
+		assertThrows(IllegalStateException.class, () -> repository.getCity(new CityName("Vicenza")));
+
+		assertEquals(Optional.of(VICENZA), repository.getCity(new CityName("Vicenza")));
+
+	}
+
+}
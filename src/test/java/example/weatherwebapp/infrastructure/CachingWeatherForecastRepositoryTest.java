@@ -0,0 +1,177 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.ForecastSlots;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+
+class CachingWeatherForecastRepositoryTest {
+
+	private static final Instant NOW = Instant.parse("2023-06-20T10:20:00Z");
+
+	private static final List<WeatherForecast> FORECASTS = List
+			.of(new WeatherForecast(Instant.parse("2023-06-20T12:00:00Z"), 25, "01d", "clear sky"));
+
+	WeatherForecastRepository delegate;
+
+	CachingWeatherForecastRepository repository;
+
+	@BeforeEach
+	void setup() {
+		delegate = mock(WeatherForecastRepository.class);
+		repository = new CachingWeatherForecastRepository(delegate, 0.01, 100, Duration.ofMinutes(10),
+				Clock.fixed(NOW, ZoneOffset.UTC));
+	}
+
+	@Test
+	void whenCoordinatesAreInTheSameGridCell_shouldCallDelegateOnce() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(FORECASTS);
+
+		repository.getWeatherForecastForCity(new Coordinates(45.5488, 11.5479), 5);
+		repository.getWeatherForecastForCity(new Coordinates(45.5469, 11.5451), 5);
+
+		verify(delegate, times(1)).getWeatherForecastForCity(new Coordinates(45.55, 11.55).snapToGrid(0.01), 5);
+		assertEquals(1, repository.stats().hitCount());
+		assertEquals(1, repository.stats().missCount());
+
+	}
+
+	@Test
+	void whenDelegateReturnsNoForecasts_shouldNotCacheThem() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(List.of());
+
+		repository.getWeatherForecastForCity(new Coordinates(45.5488, 11.5479), 5);
+		repository.getWeatherForecastForCity(new Coordinates(45.5488, 11.5479), 5);
+
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenRefreshedAfterThePublication_shouldCacheUntilTheNextOne() {
+
+		final var clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(NOW);
+		repository = new CachingWeatherForecastRepository(delegate, 0.01, 100, Duration.ofMinutes(10), clock);
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(FORECASTS);
+		final var vicenza = new Coordinates(45.55, 11.55);
+		repository.getWeatherForecastForCity(vicenza, 5);
+
+		when(clock.instant()).thenReturn(Instant.parse("2023-06-20T12:11:00Z"));
+		repository.refresh(vicenza, 5, Instant.parse("2023-06-20T12:10:00Z"));
+		// already refreshed
+		repository.refresh(vicenza, 5, Instant.parse("2023-06-20T12:10:00Z"));
+		when(clock.instant()).thenReturn(Instant.parse("2023-06-20T15:09:00Z"));
+		repository.getWeatherForecastForCity(vicenza, 5);
+		when(clock.instant()).thenReturn(Instant.parse("2023-06-20T15:11:00Z"));
+		repository.getWeatherForecastForCity(vicenza, 5);
+
+		verify(delegate, times(3)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenInvalidatedByFresherForecasts_shouldCallTheDelegateAgain() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(FORECASTS);
+		final var vicenza = new Coordinates(45.5488, 11.5479);
+
+		repository.getWeatherForecastForCity(vicenza, 5);
+		// as fresh as the cached ones
+		repository.invalidate(vicenza.snapToGrid(0.01), Instant.parse("2023-06-20T12:10:00Z"));
+		repository.getWeatherForecastForCity(vicenza, 5);
+		repository.invalidate(vicenza.snapToGrid(0.01), Instant.parse("2023-06-20T15:10:00Z"));
+		repository.getWeatherForecastForCity(vicenza, 5);
+
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenTheEntryIsStale_shouldServeItWhileRevalidating() {
+
+		final var clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(NOW);
+		final List<Runnable> revalidations = new ArrayList<>();
+		repository = new CachingWeatherForecastRepository(delegate, 0.01, 100, Duration.ofMinutes(10),
+				Duration.ofHours(6), revalidations::add, clock);
+		final var newer = List.of(new WeatherForecast(Instant.parse("2023-06-20T15:00:00Z"), 22, "10d", "light rain"));
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(FORECASTS).thenReturn(newer);
+		final var vicenza = new Coordinates(45.55, 11.55);
+		repository.getWeatherForecastForCity(vicenza, 5);
+
+		// expired at 12:10
+		when(clock.instant()).thenReturn(Instant.parse("2023-06-20T12:30:00Z"));
+
+		assertEquals(FORECASTS, repository.getWeatherForecastForCity(vicenza, 5));
+		assertEquals(FORECASTS, repository.getWeatherForecastForCity(vicenza, 5));
+		assertEquals(1, revalidations.size());
+		revalidations.get(0).run();
+		assertEquals(newer, repository.getWeatherForecastForCity(vicenza, 5));
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenRevalidationFails_shouldKeepServingTheStaleEntry() {
+
+		final var clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(NOW);
+		repository = new CachingWeatherForecastRepository(delegate, 0.01, 100, Duration.ofMinutes(10),
+				Duration.ofHours(6), Runnable::run, clock);
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(FORECASTS)
+				.thenThrow(new IllegalStateException("upstream down"));
+		final var vicenza = new Coordinates(45.55, 11.55);
+		repository.getWeatherForecastForCity(vicenza, 5);
+
+		when(clock.instant()).thenReturn(Instant.parse("2023-06-20T12:30:00Z"));
+
+		assertEquals(FORECASTS, repository.getWeatherForecastForCity(vicenza, 5));
+
+	}
+
+	@Test
+	void whenTheEntryIsStaleForTooLong_shouldCallTheDelegate() {
+
+		final var clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(NOW);
+		repository = new CachingWeatherForecastRepository(delegate, 0.01, 100, Duration.ofMinutes(10),
+				Duration.ofHours(1), task -> {
+					throw new AssertionError("Not revalidated in the background");
+				}, clock);
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(FORECASTS);
+		final var vicenza = new Coordinates(45.55, 11.55);
+		repository.getWeatherForecastForCity(vicenza, 5);
+
+		when(clock.instant()).thenReturn(Instant.parse("2023-06-20T13:10:00Z"));
+		repository.getWeatherForecastForCity(vicenza, 5);
+
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void nextBoundary_shouldBeTheStartOfTheNextThreeHoursSlot() {
+
+		assertEquals(Instant.parse("2023-06-20T12:00:00Z"), ForecastSlots.nextBoundary(NOW));
+		assertEquals(Instant.parse("2023-06-20T15:00:00Z"),
+				ForecastSlots.nextBoundary(Instant.parse("2023-06-20T12:00:00Z")));
+
+	}
+
+}
@@ -0,0 +1,116 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.CitySuggestion;
+
+class CityGazetteerTest {
+
+	static CityGazetteer gazetteer;
+
+	@BeforeAll
+	static void load() throws IOException {
+		try (InputStream in = CityGazetteerTest.class.getResourceAsStream("/gazetteer/cities.tsv")) {
+			gazetteer = CityGazetteer.load(in);
+		}
+	}
+
+	@Test
+	void whenNameIsKnown_shouldFindTheCity() {
+
+		final var city = gazetteer.find(new CityName("vicenza").normalized(), null).orElseThrow();
+
+		assertEquals("Vicenza (IT)", city.displayName());
+		assertEquals(45.54672, city.coordinates().latitude());
+
+	}
+
+	@Test
+	void whenAlternateNameIsKnown_shouldFindTheCity() {
+
+		final var city = gazetteer.find(new CityName("M\u00fcnchen").normalized(), null).orElseThrow();
+
+		assertEquals("Munich (DE)", city.displayName());
+
+	}
+
+	@Test
+	void whenSeveralCitiesHaveTheSameName_shouldFindTheMostPopulated() {
+
+		assertEquals("FR", gazetteer.find("paris", null).orElseThrow().country());
+		assertEquals("US", gazetteer.find("paris", "us").orElseThrow().country());
+
+	}
+
+	@Test
+	void suggest_shouldReturnTheMostPopulatedCitiesStartingWithThePrefix() {
+
+		final var suggestions = gazetteer.suggest("ve", 2);
+
+		assertEquals(2, suggestions.size());
+		assertEquals("Verona (IT)", suggestions.get(0).displayName());
+		assertEquals("Venice (IT)", suggestions.get(1).displayName());
+
+	}
+
+	@Test
+	void suggest_shouldReturnEachCityOnce() {
+
+		// "Milan" and "Milano" both match
+		final var suggestions = gazetteer.suggest("mil", 10);
+
+		assertEquals(1, suggestions.size());
+		assertEquals("Milan (IT)", suggestions.get(0).displayName());
+
+	}
+
+	@Test
+	void suggest_whenThePrefixIsShort_shouldReturnTheMostPopulatedCitiesOnce() {
+
+		// "Munich" and "M\u00fcnchen" both match
+		final var suggestions = gazetteer.suggest("mu", 10);
+
+		assertEquals(List.of("Mumbai (IN)", "Munich (DE)"),
+				suggestions.stream().map(CitySuggestion::displayName).toList());
+		assertEquals(List.of("Mumbai (IN)", "Mexico City (MX)", "Moscow (RU)"),
+				gazetteer.suggest("m", 3).stream().map(CitySuggestion::displayName).toList());
+
+	}
+
+	@Test
+	void suggest_whenTheLimitExceedsThePrecomputedCities_shouldScanThePrefix() {
+
+		final var suggestions = gazetteer.suggest("", CityGazetteer.PRECOMPUTED_SUGGESTIONS + 1);
+
+		assertEquals(gazetteer.size(), suggestions.size());
+		assertEquals("Istanbul (TR)", suggestions.get(0).displayName());
+
+	}
+
+	@Test
+	void estimatedSizeInBytes_shouldCountTwoBytesPerCharOfTheNonLatin1Names() {
+
+		final long latin1 = CityGazetteer.stringsSize(new String[] { "m\u00fcnchen" });
+		final long cyrillic = CityGazetteer.stringsSize(new String[] { "\u043c\u043e\u0441\u043a\u0432\u0430" });
+
+		assertEquals(latin1 - "m\u00fcnchen".length(), cyrillic - 2 * 6);
+
+	}
+
+	@Test
+	void whenNameIsUnknown_shouldReturnEmptyOptional() {
+
+		assertTrue(gazetteer.find("vicnza", null).isEmpty());
+
+	}
+
+}
@@ -0,0 +1,126 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.Coordinates;
+
+class ForecastPrewarmerTest {
+
+	private static final City VICENZA = new City(new Coordinates(45.5488, 11.5479), "Vicenza (IT)");
+	private static final City VERONA = new City(new Coordinates(45.4299, 10.98444), "Verona (IT)");
+	private static final City PADOVA = new City(new Coordinates(45.40797, 11.88586), "Padova (IT)");
+
+	// publication of the 12:00 slot, cached forecasts expire then
+	private static final Instant PUBLICATION = Instant.parse("2023-06-20T12:10:00Z");
+
+	CachingWeatherForecastRepository repository;
+
+	ScheduledExecutorService scheduler;
+
+	ForecastPrewarmer prewarmer;
+
+	@BeforeEach
+	void setup() {
+		repository = mock(CachingWeatherForecastRepository.class);
+		// run the refreshes right away
+		scheduler = mock(ScheduledExecutorService.class);
+		when(scheduler.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+			invocation.getArgument(0, Runnable.class).run();
+			return null;
+		});
+		prewarmer = prewarmer(PUBLICATION.plusSeconds(30));
+	}
+
+	@Test
+	void hotSet_shouldContainTheMostRequestedCities() {
+
+		record(VICENZA, 3);
+		record(VERONA, 1);
+		record(PADOVA, 2);
+
+		assertEquals(List.of(VICENZA.coordinates(), PADOVA.coordinates()), prewarmer.hotSet());
+
+	}
+
+	@Test
+	void whenTheSlotIsPublished_shouldRefreshTheHotSetOnce() {
+
+		when(repository.nextExpiration(any())).thenReturn(PUBLICATION.plus(Duration.ofHours(3)));
+		record(VICENZA, 3);
+
+		prewarmer.prewarmIfDue();
+		prewarmer.prewarmIfDue();
+
+		verify(repository, times(1)).refresh(VICENZA.coordinates(), 5, PUBLICATION);
+
+	}
+
+	@Test
+	void whenTheSlotIsNotPublishedYet_shouldNotRefresh() {
+
+		// a few minutes before the publication, the upstream still serves the previous slot
+		when(repository.nextExpiration(any())).thenReturn(PUBLICATION);
+		prewarmer = prewarmer(PUBLICATION.minus(Duration.ofMinutes(4)));
+		record(VICENZA, 3);
+
+		prewarmer.prewarmIfDue();
+
+		verify(repository, never()).refresh(any(), anyInt(), eq(PUBLICATION));
+
+	}
+
+	@Test
+	void whenRefreshingTheHotSet_shouldScheduleTheRefreshesApart() {
+
+		record(VICENZA, 3);
+		record(PADOVA, 2);
+
+		prewarmer.prewarm(PUBLICATION);
+
+		final var delays = ArgumentCaptor.forClass(Long.class);
+		verify(scheduler, times(2)).schedule(any(Runnable.class), delays.capture(), eq(TimeUnit.NANOSECONDS));
+		assertEquals(0, delays.getAllValues().get(0));
+		// at most 1000 calls per second
+		assertTrue(delays.getAllValues().get(1) >= Duration.ofMillis(1).toNanos());
+
+	}
+
+	@Test
+	void afterRefresh_shouldHalveTheRequestCounts() {
+
+		record(VICENZA, 1);
+		record(PADOVA, 2);
+
+		prewarmer.prewarm(PUBLICATION);
+
+		assertEquals(List.of(PADOVA.coordinates()), prewarmer.hotSet());
+
+	}
+
+	private ForecastPrewarmer prewarmer(Instant now) {
+		return new ForecastPrewarmer(repository, 0.01, 2, 100, Duration.ofMillis(1), 1000, scheduler,
+				Clock.fixed(now, ZoneOffset.UTC));
+	}
+
+	private void record(City city, int times) {
+		for (int i = 0; i < times; i++) {
+			prewarmer.record(city);
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import example.weatherwebapp.core.ForecastSeries;
+import example.weatherwebapp.core.WeatherForecast;
+
+class ForecastSeriesCodecTest {
+
+	private static final ForecastSeries SERIES = new ForecastSeries(List.of(
+			new WeatherForecast(Instant.parse("2023-06-20T12:00:00Z"), 25.5, 26.1, 48, 3.54, 209, 4.28, 17, 0, 10000,
+					"01d", "clear sky"),
+			new WeatherForecast(Instant.parse("2023-06-20T15:00:00Z"), 22, 22.4, 71, 5.1, 250, 9.8, 100, 1.75, 6000,
+					"10d", null)),
+			ZoneOffset.ofHours(2));
+
+	@Test
+	void whenDecoded_shouldBeTheEncodedSeries() {
+
+		final var decoded = ForecastSeriesCodec.decode(encoded());
+
+		assertEquals(SERIES, decoded);
+		assertEquals(ZoneOffset.ofHours(2), decoded.utcOffset());
+
+	}
+
+	@Test
+	void whenEncodedByAnotherVersion_shouldNotDecode() {
+
+		final var encoded = encoded();
+		encoded.put(0, (byte) (ForecastSeriesCodec.VERSION + 1));
+
+		assertThrows(IllegalArgumentException.class, () -> ForecastSeriesCodec.decode(encoded));
+
+	}
+
+	@Test
+	void whenCorrupted_shouldNotDecode() {
+
+		final var encoded = encoded();
+		encoded.put(20, (byte) ~encoded.get(20));
+
+		assertThrows(IllegalArgumentException.class, () -> ForecastSeriesCodec.decode(encoded));
+
+	}
+
+	private static ByteBuffer encoded() {
+		final var buffer = ByteBuffer.allocate(1024);
+		ForecastSeriesCodec.encode(SERIES, buffer);
+		return buffer.flip();
+	}
+
+}
@@ -0,0 +1,73 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.Coordinates;
+
+class GazetteerCityGeocodingRepositoryTest {
+
+	private static final City VICENZA = new City(new Coordinates(45.5467, 11.5475), "Vicenza (IT)");
+
+	static CityGazetteer gazetteer;
+
+	CityGeocodingRepository delegate;
+
+	GazetteerCityGeocodingRepository repository;
+
+	@BeforeAll
+	static void load() throws IOException {
+		try (InputStream in = GazetteerCityGeocodingRepositoryTest.class.getResourceAsStream("/gazetteer/cities.tsv")) {
+			gazetteer = CityGazetteer.load(in);
+		}
+	}
+
+	@BeforeEach
+	void setup() {
+		delegate = mock(CityGeocodingRepository.class);
+		repository = new GazetteerCityGeocodingRepository(gazetteer, delegate);
+	}
+
+	@Test
+	void whenNameHasACountryCode_shouldFindTheCityOfThatCountry() {
+
+		assertEquals("US", repository.getCity(new CityName(" Paris,  US")).orElseThrow().country());
+		assertEquals("FR", repository.getCity(new CityName("paris, fr")).orElseThrow().country());
+		verifyNoInteractions(delegate);
+
+	}
+
+	@Test
+	void whenNameWithCountryCodeIsNotInTheGazetteer_shouldAskTheDelegate() {
+
+		final var cityName = new CityName("Vicnza, IT");
+		when(delegate.getCity(cityName)).thenReturn(Optional.of(VICENZA));
+
+		assertEquals(VICENZA, repository.getCity(cityName).orElseThrow());
+		verify(delegate).getCity(cityName);
+
+	}
+
+	@Test
+	void whenTheCountryIsNotACode_shouldAskTheDelegate() {
+
+		final var cityName = new CityName("Paris, Texas");
+		when(delegate.getCity(cityName)).thenReturn(Optional.empty());
+
+		assertEquals(Optional.empty(), repository.getCity(cityName));
+		verify(delegate).getCity(cityName);
+
+	}
+
+}
@@ -0,0 +1,70 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CitySuggestion;
+import example.weatherwebapp.core.Coordinates;
+
+class InMemoryCitySuggestionRepositoryTest {
+
+	private static final City ARCUGNANO = new City(new Coordinates(45.5167, 11.5333), "Arcugnano (IT)", "Arcugnano",
+			"IT", null, Map.of("it", "Arcugnano"));
+
+	static CityGazetteer gazetteer;
+
+	@BeforeAll
+	static void load() throws IOException {
+		try (InputStream in = InMemoryCitySuggestionRepositoryTest.class
+				.getResourceAsStream("/gazetteer/cities.tsv")) {
+			gazetteer = CityGazetteer.load(in);
+		}
+	}
+
+	@Test
+	void whenACityWasGeocoded_shouldSuggestItAfterTheGazetteerCities() {
+
+		final var repository = new InMemoryCitySuggestionRepository(gazetteer, 100);
+		repository.add(ARCUGNANO);
+
+		assertEquals(List.of("Amsterdam (NL)", "Athens (GR)", "Arcugnano (IT)"),
+				displayNames(repository.suggest("a", 10)));
+		assertEquals(List.of("Amsterdam (NL)"), displayNames(repository.suggest("a", 1)));
+
+	}
+
+	@Test
+	void whenAGeocodedCityIsInTheGazetteer_shouldSuggestItOnce() {
+
+		final var repository = new InMemoryCitySuggestionRepository(gazetteer, 100);
+		repository.add(gazetteer.toCity(0));
+
+		assertEquals(List.of("Vicenza (IT)"), displayNames(repository.suggest("vicenza", 10)));
+
+	}
+
+	@Test
+	void whenTheMaximumNamesAreIndexed_shouldNotIndexMoreCities() {
+
+		final var repository = new InMemoryCitySuggestionRepository(null, 1);
+		repository.add(ARCUGNANO);
+		repository.add(new City(new Coordinates(45.5, 11.6), "Altavilla Vicentina (IT)", "Altavilla Vicentina", "IT",
+				null, Map.of()));
+
+		assertEquals(List.of("Arcugnano (IT)"), displayNames(repository.suggest("a", 10)));
+
+	}
+
+	private static List<String> displayNames(List<CitySuggestion> suggestions) {
+		return suggestions.stream().map(CitySuggestion::displayName).toList();
+	}
+
+}
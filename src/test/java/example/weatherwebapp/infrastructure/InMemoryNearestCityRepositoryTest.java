@@ -0,0 +1,85 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.Coordinates;
+
+class InMemoryNearestCityRepositoryTest {
+
+	private static final City VICENZA = new City(new Coordinates(45.5467, 11.5475), "Vicenza (IT)");
+
+	private static final City PADOVA = new City(new Coordinates(45.4064, 11.8768), "Padova (IT)");
+
+	private static final City TROMSO = new City(new Coordinates(69.6496, 18.9560), "Tromso (NO)");
+
+	private static final City WAIYEVO = new City(new Coordinates(-16.7903, 179.9794), "Waiyevo (FJ)");
+
+	@Test
+	void whenCitiesAreNear_shouldFindTheNearestOne() {
+
+		final var repository = repository(30);
+
+		assertEquals(Optional.of(VICENZA), repository.findNearest(new Coordinates(45.50, 11.60)));
+		assertEquals(Optional.of(PADOVA), repository.findNearest(new Coordinates(45.43, 11.80)));
+
+	}
+
+	@Test
+	void whenTheNearestCityIsTooFar_shouldFindNothing() {
+
+		final var repository = repository(5);
+
+		assertTrue(repository.findNearest(new Coordinates(45.47, 11.71)).isEmpty());
+
+	}
+
+	@Test
+	void whenTheCityIsAcrossACellBoundary_shouldFindIt() {
+
+		final var repository = repository(10);
+
+		// longitude degrees are shorter in the north
+		assertEquals(Optional.of(TROMSO), repository.findNearest(new Coordinates(69.65, 19.15)));
+		// across the antimeridian
+		assertEquals(Optional.of(WAIYEVO), repository.findNearest(new Coordinates(-16.79, -179.99)));
+
+	}
+
+	@Test
+	void whenTheSameCityIsAddedAgain_shouldIndexItOnce() {
+
+		final var repository = repository(5);
+		repository.add(VICENZA);
+
+		assertEquals(4, repository.size());
+
+	}
+
+	@Test
+	void whenTheIndexIsFull_shouldNotAddMoreCities() {
+
+		final var repository = new InMemoryNearestCityRepository(null, 5, 1);
+		repository.add(VICENZA);
+		repository.add(PADOVA);
+
+		assertEquals(1, repository.size());
+		assertTrue(repository.findNearest(PADOVA.coordinates()).isEmpty());
+
+	}
+
+	private static InMemoryNearestCityRepository repository(double maximumDistanceKm) {
+		final var repository = new InMemoryNearestCityRepository(null, maximumDistanceKm, 100);
+		repository.add(VICENZA);
+		repository.add(PADOVA);
+		repository.add(TROMSO);
+		repository.add(WAIYEVO);
+		return repository;
+	}
+
+}
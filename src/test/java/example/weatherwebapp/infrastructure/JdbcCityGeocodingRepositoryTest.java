@@ -0,0 +1,69 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.Coordinates;
+
+@JdbcTest
+class JdbcCityGeocodingRepositoryTest {
+
+	private static final City VICENZA = new City(new Coordinates(45.5488, 11.5479), "Vicenza (IT)", "Vicenza", "IT",
+			"Veneto", Map.of("it", "Vicenza", "de", "Vicenz"));
+
+	@Autowired
+	NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	CityGeocodingRepository delegate;
+
+	JdbcCityGeocodingRepository repository;
+
+	@BeforeEach
+	void setup() {
+		delegate = mock(CityGeocodingRepository.class);
+		repository = new JdbcCityGeocodingRepository(delegate, jdbcTemplate, transactionTemplate, Clock.systemUTC());
+	}
+
+	@Test
+	void whenCityIsStored_shouldNotCallDelegate() {
+
+		when(delegate.getCity(any())).thenReturn(Optional.of(VICENZA));
+
+		repository.getCity(new CityName("Vicenza"));
+		final var stored = repository.getCity(new CityName("VICENZA"));
+
+		assertEquals(Optional.of(VICENZA), stored);
+		verify(delegate, times(1)).getCity(any());
+
+	}
+
+	@Test
+	void whenCityIsNotFound_shouldNotStoreIt() {
+
+		when(delegate.getCity(any())).thenReturn(Optional.empty());
+
+		repository.getCity(new CityName("Vicnza"));
+		repository.getCity(new CityName("Vicnza"));
+
+		verify(delegate, times(2)).getCity(any());
+
+	}
+
+}
@@ -0,0 +1,71 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@JdbcTest
+class JdbcTokenBucketTest {
+
+	private static final Instant NOW = Instant.parse("2023-06-20T10:20:00Z");
+
+	@Autowired
+	NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	Clock clock;
+
+	@BeforeEach
+	void setup() {
+		clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(NOW);
+	}
+
+	@Test
+	void whenNodesShareTheBucket_shouldShareItsTokens() {
+
+		final var node1 = bucket();
+		final var node2 = bucket();
+
+		assertEquals(0, node1.tryTake(0));
+		assertEquals(0, node2.tryTake(0));
+		assertEquals(0, node1.tryTake(0));
+		// refilled at 1 token per second
+		assertEquals(1_000_000_000, node2.tryTake(0));
+
+		when(clock.instant()).thenReturn(NOW.plusSeconds(1));
+		assertEquals(0, node2.tryTake(0));
+
+	}
+
+	@Test
+	void whenTokensAreReserved_shouldNotTakeThem() {
+
+		final var bucket = bucket();
+
+		assertEquals(0, bucket.tryTake(1));
+		assertEquals(0, bucket.tryTake(1));
+		assertTrue(bucket.tryTake(1) > 0);
+		assertEquals(0, bucket.tryTake(0));
+
+	}
+
+	private JdbcTokenBucket bucket() {
+		return new JdbcTokenBucket("forecast", 3, 1, jdbcTemplate, transactionTemplate, clock,
+				new LocalTokenBucket(3, 1, clock));
+	}
+
+}
@@ -0,0 +1,180 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.ForecastSeries;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@JdbcTest
+class JdbcWeatherForecastRepositoryTest {
+
+	private static final Instant NOW = Instant.parse("2023-06-20T10:20:00Z");
+
+	private static final Coordinates VICENZA = new Coordinates(45.55, 11.55);
+
+	private static final List<WeatherForecast> FORECASTS = new ForecastSeries(List.of(
+			new WeatherForecast(Instant.parse("2023-06-20T12:00:00Z"), 25.5, 26.1, 48, 3.54, 209, 4.28, 17, 0, 10000,
+					"01d", "clear sky"),
+			new WeatherForecast(Instant.parse("2023-06-20T15:00:00Z"), 22, 22.4, 71, 5.1, 250, 9.8, 100, 1.75, 6000,
+					"10d", "light rain")),
+			ZoneOffset.ofHours(2));
+
+	@Autowired
+	NamedParameterJdbcTemplate jdbcTemplate;
+
+	WeatherForecastRepository delegate;
+
+	Clock clock;
+
+	List<Coordinates> stored;
+
+	@BeforeEach
+	void setup() {
+		delegate = mock(WeatherForecastRepository.class);
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(FORECASTS);
+		clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(NOW);
+		stored = new CopyOnWriteArrayList<>();
+	}
+
+	@AfterEach
+	void cleanup() {
+		// committed by the tests not running in a transaction
+		jdbcTemplate.getJdbcTemplate().update("DELETE FROM forecast_cache");
+	}
+
+	@Test
+	void whenAnotherNodeFetchedTheForecasts_shouldServeThemFromTheDatabase() {
+
+		node().getWeatherForecastForCity(VICENZA, 5);
+		final var forecasts = node().getWeatherForecastForCity(VICENZA, 5);
+
+		assertEquals(FORECASTS, forecasts);
+		assertEquals(ZoneOffset.ofHours(2), ForecastSeries.of(forecasts).utcOffset());
+		assertEquals(List.of(VICENZA), stored);
+		verify(delegate, times(1)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenTheStoredForecastsAreUnreadable_shouldCallTheDelegateAgain() {
+
+		node().getWeatherForecastForCity(VICENZA, 5);
+		// e.g. stored by a node with another encoding
+		jdbcTemplate.getJdbcTemplate().update("UPDATE forecast_cache SET forecasts = ?",
+				(Object) new byte[] { 99, 0, 0, 0, 0, 0, -1 });
+
+		assertEquals(FORECASTS, node().getWeatherForecastForCity(VICENZA, 5));
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenTheNextSlotIsPublished_shouldCallTheDelegateAgain() {
+
+		final var repository = node();
+		repository.getWeatherForecastForCity(VICENZA, 5);
+
+		// next slot at 12:00, published at 12:10
+		when(clock.instant()).thenReturn(Instant.parse("2023-06-20T12:10:00Z"));
+		repository.getWeatherForecastForCity(VICENZA, 5);
+
+		assertEquals(List.of(VICENZA, VICENZA), stored);
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenRefreshedByAnotherNode_shouldServeTheRefreshedForecasts() {
+
+		final var node = node();
+		final var otherNode = node();
+		node.getWeatherForecastForCity(VICENZA, 5);
+
+		// next slot at 12:00, published at 12:10
+		when(clock.instant()).thenReturn(Instant.parse("2023-06-20T12:11:00Z"));
+		node.refresh(VICENZA, 5, Instant.parse("2023-06-20T12:10:00Z"));
+		final var forecasts = otherNode.refresh(VICENZA, 5, Instant.parse("2023-06-20T12:10:00Z"));
+		otherNode.getWeatherForecastForCity(VICENZA, 5);
+
+		assertEquals(FORECASTS, forecasts);
+		assertEquals(List.of(VICENZA, VICENZA), stored);
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void whenRefreshedConcurrentlyByTwoNodes_shouldCallTheDelegateOnceWithoutWaiting() throws Exception {
+
+		final var fetching = new CountDownLatch(1);
+		final var fetched = new CountDownLatch(1);
+		node().getWeatherForecastForCity(VICENZA, 5);
+		doAnswer(invocation -> {
+			fetching.countDown();
+			fetched.await(5, TimeUnit.SECONDS);
+			return FORECASTS;
+		}).when(delegate).getWeatherForecastForCity(any(), anyInt());
+
+		when(clock.instant()).thenReturn(Instant.parse("2023-06-20T12:11:00Z"));
+		final var executor = Executors.newSingleThreadExecutor();
+		try {
+			final var refresh = executor.submit(() -> node().refresh(VICENZA, 5,
+					Instant.parse("2023-06-20T12:10:00Z")));
+			fetching.await(5, TimeUnit.SECONDS);
+			assertThrows(RefreshClaimedException.class, () -> node().refresh(VICENZA, 5,
+					Instant.parse("2023-06-20T12:10:00Z")));
+			fetched.countDown();
+
+			assertEquals(FORECASTS, refresh.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenPurged_shouldDeleteTheExpiredForecasts() {
+
+		node().getWeatherForecastForCity(VICENZA, 5);
+		node().getWeatherForecastForCity(new Coordinates(45.44, 12.33), 5);
+
+		when(clock.instant()).thenReturn(Instant.parse("2023-06-20T12:10:00Z"));
+		node().purgeExpired();
+
+		assertEquals(0, jdbcTemplate.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM forecast_cache",
+				Integer.class));
+
+	}
+
+	private JdbcWeatherForecastRepository node() {
+		return new JdbcWeatherForecastRepository(delegate, jdbcTemplate, Duration.ofMinutes(10), clock,
+				(coordinates, expiration) -> stored.add(coordinates), new SimpleMeterRegistry());
+	}
+
+}
@@ -0,0 +1,186 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.ForecastSeries;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MappedFileWeatherForecastRepositoryTest {
+
+	private static final Instant NOW = Instant.parse("2023-06-20T10:20:00Z");
+
+	private static final Coordinates VICENZA = new Coordinates(45.55, 11.55);
+
+	private static final List<WeatherForecast> FORECASTS = new ForecastSeries(List.of(
+			new WeatherForecast(Instant.parse("2023-06-20T12:00:00Z"), 25.5, 26.1, 48, 3.54, 209, 4.28, 17, 0, 10000,
+					"01d", "clear sky"),
+			new WeatherForecast(Instant.parse("2023-06-20T15:00:00Z"), 22, 22.4, 71, 5.1, 250, 9.8, 100, 1.75, 6000,
+					"10d", "light rain")),
+			ZoneOffset.ofHours(2));
+
+	@TempDir
+	Path directory;
+
+	WeatherForecastRepository delegate;
+
+	@BeforeEach
+	void setup() {
+		delegate = mock(WeatherForecastRepository.class);
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(FORECASTS);
+	}
+
+	@Test
+	void whenReopened_shouldServeTheForecastsFromTheFile() throws IOException {
+
+		try (var repository = repository(NOW)) {
+			repository.getWeatherForecastForCity(VICENZA, 5);
+		}
+		try (var repository = repository(NOW)) {
+			final var forecasts = repository.getWeatherForecastForCity(VICENZA, 5);
+
+			assertEquals(FORECASTS, forecasts);
+			assertEquals(ZoneOffset.ofHours(2), ForecastSeries.of(forecasts).utcOffset());
+		}
+
+		verify(delegate, times(1)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenTheFileIsInUse_shouldFailToOpenIt() throws IOException {
+
+		try (var repository = repository(NOW)) {
+			assertThrows(IOException.class, () -> repository(NOW));
+		}
+		// released once closed
+		repository(NOW).close();
+
+	}
+
+	@Test
+	void whenTheNextSlotIsPublished_shouldCallTheDelegateAgain() throws IOException {
+
+		try (var repository = repository(NOW)) {
+			repository.getWeatherForecastForCity(VICENZA, 5);
+		}
+		// next slot at 12:00, published at 12:10
+		try (var repository = repository(Instant.parse("2023-06-20T12:10:00Z"))) {
+			repository.getWeatherForecastForCity(VICENZA, 5);
+		}
+
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenRefreshingAfterThePublication_shouldCallTheDelegateAgain() throws IOException {
+
+		try (var repository = repository(NOW)) {
+			repository.getWeatherForecastForCity(VICENZA, 5);
+		}
+		// fetched before the 12:10 publication, refreshed after it: valid until the next one
+		try (var repository = repository(Instant.parse("2023-06-20T12:11:00Z"))) {
+			repository.refresh(VICENZA, 5, Instant.parse("2023-06-20T12:10:00Z"));
+		}
+		try (var repository = repository(Instant.parse("2023-06-20T15:00:00Z"))) {
+			repository.getWeatherForecastForCity(VICENZA, 5);
+		}
+
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenRefreshingForecastsFetchedAfterThePublication_shouldNotCallTheDelegate() throws IOException {
+
+		try (var repository = repository(Instant.parse("2023-06-20T12:11:00Z"))) {
+			repository.getWeatherForecastForCity(VICENZA, 5);
+			repository.refresh(VICENZA, 5, Instant.parse("2023-06-20T12:10:00Z"));
+		}
+
+		verify(delegate, times(1)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenEntriesCollide_shouldKeepThemAll() throws IOException {
+
+		try (var repository = new MappedFileWeatherForecastRepository(delegate, directory.resolve("forecasts.cache"),
+				4, 4096, Duration.ofMinutes(10), Clock.fixed(NOW, ZoneOffset.UTC), new SimpleMeterRegistry())) {
+			final List<Coordinates> coordinates = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				coordinates.add(new Coordinates(45 + i / 100.0, 11));
+				repository.getWeatherForecastForCity(coordinates.get(i), 5);
+			}
+			for (final var coordinate : coordinates) {
+				repository.getWeatherForecastForCity(coordinate, 5);
+			}
+		}
+
+		verify(delegate, times(4)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenTheFileIsCorrupted_shouldCallTheDelegateAgain() throws IOException {
+
+		final var path = directory.resolve("forecasts.cache");
+		try (var repository = repository(NOW)) {
+			repository.getWeatherForecastForCity(VICENZA, 5);
+		}
+		try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			final var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+			for (int i = 64; i < buffer.limit(); i += 4096) {
+				// payload of each entry
+				buffer.put(i + 40, (byte) ~buffer.get(i + 40));
+			}
+			buffer.force();
+		}
+		try (var repository = repository(NOW)) {
+			assertEquals(FORECASTS, repository.getWeatherForecastForCity(VICENZA, 5));
+		}
+
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenForecastsAreTooLarge_shouldNotStoreThem() throws IOException {
+
+		try (var repository = new MappedFileWeatherForecastRepository(delegate, directory.resolve("small.cache"), 16,
+				64, Duration.ofMinutes(10), Clock.fixed(NOW, ZoneOffset.UTC), new SimpleMeterRegistry())) {
+			assertFalse(repository.getWeatherForecastForCity(VICENZA, 5).isEmpty());
+			repository.getWeatherForecastForCity(VICENZA, 5);
+		}
+
+		verify(delegate, times(2)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	private MappedFileWeatherForecastRepository repository(Instant now) throws IOException {
+		return new MappedFileWeatherForecastRepository(delegate, directory.resolve("forecasts.cache"), 1024, 4096,
+				Duration.ofMinutes(10), Clock.fixed(now, ZoneOffset.UTC), new SimpleMeterRegistry());
+	}
+
+}
@@ -0,0 +1,111 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import example.weatherwebapp.core.ForecastSeries;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.infrastructure.OpenWeatherMapWeatherForecastRepository.OpenWeather5DaysForecastResponseDTO;
+
+class OpenWeatherMapForecastDecoderTest {
+
+	private static final String SAMPLE = "/static/sample-weather-forecast.json";
+
+	@Test
+	void whenResponseIsTheSample_shouldDecodeTheSameForecastsAsTheDTOs() throws IOException {
+
+		final var mapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		final OpenWeather5DaysForecastResponseDTO dto;
+		try (InputStream in = getClass().getResourceAsStream(SAMPLE)) {
+			dto = mapper.readValue(in, OpenWeather5DaysForecastResponseDTO.class);
+		}
+		final var expected = dto.list.stream().map(OpenWeatherMapWeatherForecastRepository::fromDTO).toList();
+
+		final var forecasts = OpenWeatherMapForecastDecoder.decode(getClass().getResourceAsStream(SAMPLE));
+
+		assertEquals(40, forecasts.size());
+		assertEquals(expected, forecasts);
+		assertEquals(ZoneOffset.ofHours(2), forecasts.utcOffset());
+
+	}
+
+	@Test
+	void whenForecastHasNoWeather_shouldDecodeNoIconNorDescription() throws IOException {
+
+		final var json = """
+				{"cod": "200", "list": [{"dt": 1687262400, "main": {"temp": 21.5}, "wind": {"speed": 3.5}},
+				{"dt": 1687273200, "weather": []}]}""";
+		final var dto = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+				.readValue(json, OpenWeather5DaysForecastResponseDTO.class);
+
+		final var forecasts = decode(json);
+
+		assertEquals(new WeatherForecast(Instant.ofEpochSecond(1687262400), 21.5, null, null), forecasts.get(0));
+		assertEquals(dto.list.stream().map(OpenWeatherMapWeatherForecastRepository::fromDTO).toList(), forecasts);
+
+	}
+
+	@Test
+	void whenForecastHasAllMeasures_shouldDecodeThemAndSumRainAndSnow() throws IOException {
+
+		final var forecasts = decode("""
+				{"list": [{"dt": 10, "main": {"temp": 1.5, "feels_like": -2.25, "humidity": 93, "pressure": 1012},
+				"wind": {"speed": 4.1, "deg": 250, "gust": 9.8}, "clouds": {"all": 100}, "visibility": 4200,
+				"rain": {"3h": 0.5}, "snow": {"3h": 1.25}, "weather": [{"icon": "13n", "description": "snow"}]}]}""");
+
+		assertEquals(new WeatherForecast(Instant.ofEpochSecond(10), 1.5, -2.25, 93, 4.1, 250, 9.8, 100, 1.75, 4200,
+				"13n", "snow"), forecasts.get(0));
+
+	}
+
+	@Test
+	void whenWeatherHasSeveralEntries_shouldDecodeTheFirstOne() throws IOException {
+
+		final var forecasts = decode("""
+				{"list": [{"weather": [{"icon": "01d", "description": "clear sky"}, {"icon": "10d"}], "dt": 10}]}""");
+
+		assertEquals(new WeatherForecast(Instant.ofEpochSecond(10), 0, "01d", "clear sky"), forecasts.get(0));
+
+	}
+
+	@Test
+	void whenResponseHasNoList_shouldDecodeNoForecasts() throws IOException {
+
+		assertTrue(decode("{\"cod\": \"404\", \"message\": \"city not found\"}").isEmpty());
+
+	}
+
+	@Test
+	void whenCityHasNoTimezone_shouldDecodeUtc() throws IOException {
+
+		assertEquals(ZoneOffset.UTC, decode("{\"list\": [], \"city\": {\"name\": \"Nowhere\"}}").utcOffset());
+		assertEquals(ZoneOffset.UTC, decode("{\"list\": [], \"city\": {\"timezone\": 999999}}").utcOffset());
+
+	}
+
+	@Test
+	void whenResponseIsNotAnObject_shouldThrow() {
+
+		assertThrows(JsonParseException.class, () -> decode("[]"));
+
+	}
+
+	private static ForecastSeries decode(String json) throws IOException {
+		return OpenWeatherMapForecastDecoder.decode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+	}
+
+}
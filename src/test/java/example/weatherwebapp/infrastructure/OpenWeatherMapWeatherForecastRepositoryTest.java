@@ -0,0 +1,86 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.Coordinates;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OpenWeatherMapWeatherForecastRepositoryTest {
+
+	MockRestServiceServer geocodingServer;
+
+	MockRestServiceServer forecastServer;
+
+	MeterRegistry meterRegistry;
+
+	OpenWeatherMapWeatherForecastRepository repository;
+
+	@BeforeEach
+	void setup() {
+		final var geocodingRestTemplate = new RestTemplate();
+		final var forecastRestTemplate = new RestTemplate();
+		geocodingServer = MockRestServiceServer.bindTo(geocodingRestTemplate).build();
+		forecastServer = MockRestServiceServer.bindTo(forecastRestTemplate).build();
+		meterRegistry = new SimpleMeterRegistry();
+		repository = new OpenWeatherMapWeatherForecastRepository(geocodingRestTemplate, forecastRestTemplate, "key",
+				"http://localhost:8089/", meterRegistry);
+	}
+
+	@Test
+	void whenForecastCallSucceeds_shouldDecodeTheForecastsAndTimeTheCall() {
+
+		forecastServer.expect(requestTo(startsWith("http://localhost:8089/data/2.5/forecast?lat=45.5&lon=11.5")))
+				.andRespond(withSuccess(new ClassPathResource("static/sample-weather-forecast.json"),
+						MediaType.APPLICATION_JSON));
+
+		final var forecasts = repository.getWeatherForecastForCity(new Coordinates(45.5, 11.5), 5);
+
+		assertEquals(40, forecasts.size());
+		assertEquals(1, meterRegistry.get("weather.upstream.requests")
+				.tags("api", "forecast", "outcome", "SUCCESS", "status", "200")
+				.timer().count());
+
+	}
+
+	@Test
+	void whenGeocodingCallFails_shouldRethrowTheServerErrorAndTimeTheCall() {
+
+		geocodingServer.expect(requestTo(startsWith("http://localhost:8089/geo/1.0/direct?q=Vicenza")))
+				.andRespond(withServerError());
+
+		assertThrows(HttpServerErrorException.class, () -> repository.getCity(new CityName("Vicenza")));
+		assertEquals(1, meterRegistry.get("weather.upstream.requests")
+				.tags("api", "geocoding", "outcome", "SERVER_ERROR", "status", "500")
+				.timer().count());
+
+	}
+
+	@Test
+	void whenGeocodingCallIsRejected_shouldRethrowTheClientError() {
+
+		geocodingServer.expect(requestTo(startsWith("http://localhost:8089/geo/1.0/direct?q=Vicenza")))
+				.andRespond(withStatus(HttpStatus.UNAUTHORIZED));
+
+		assertThrows(HttpClientErrorException.class, () -> repository.getCity(new CityName("Vicenza")));
+
+	}
+
+}
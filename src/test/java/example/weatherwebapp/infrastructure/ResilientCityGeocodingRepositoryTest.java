@@ -0,0 +1,84 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityGeocodingRepository;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.UpstreamUnavailableException;
+import example.weatherwebapp.shared.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResilientCityGeocodingRepositoryTest {
+
+	private static final CityName VICENZA_NAME = new CityName("Vicenza");
+
+	private static final City VICENZA = new City(new Coordinates(45.5467, 11.5475), "Vicenza (IT)");
+
+	CityGeocodingRepository delegate;
+
+	CircuitBreaker circuitBreaker;
+
+	ResilientCityGeocodingRepository repository;
+
+	@BeforeEach
+	void setup() {
+		delegate = mock(CityGeocodingRepository.class);
+		circuitBreaker = new CircuitBreaker("test", 10, 5, Duration.ofSeconds(10), Duration.ofSeconds(30),
+				Clock.systemUTC());
+		repository = new ResilientCityGeocodingRepository(delegate, circuitBreaker, null, 3, Duration.ofMillis(1),
+				Duration.ofMillis(2), new SimpleMeterRegistry());
+	}
+
+	@Test
+	void whenTheFailureIsTransient_shouldRetry() {
+
+		when(delegate.getCity(VICENZA_NAME))
+				.thenThrow(new ResourceAccessException("Read timed out"))
+				.thenReturn(Optional.of(VICENZA));
+
+		assertEquals(Optional.of(VICENZA), repository.getCity(VICENZA_NAME));
+
+	}
+
+	@Test
+	void whenTheFailureIsAClientError_shouldNotRetry() {
+
+		when(delegate.getCity(VICENZA_NAME))
+				.thenThrow(HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized", null, null, null));
+
+		assertThrows(HttpClientErrorException.class, () -> repository.getCity(VICENZA_NAME));
+		verify(delegate, times(1)).getCity(VICENZA_NAME);
+
+	}
+
+	@Test
+	void whenTheCircuitIsOpen_shouldBeUnavailableWithoutCallingTheDelegate() {
+
+		when(delegate.getCity(VICENZA_NAME))
+				.thenThrow(HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null));
+		// 3 attempts per call: the fifth failure opens the circuit during the second call
+		for (int i = 0; i < 2; i++)
+			assertThrows(UpstreamUnavailableException.class, () -> repository.getCity(VICENZA_NAME));
+		clearInvocations(delegate);
+
+		assertThrows(UpstreamUnavailableException.class, () -> repository.getCity(VICENZA_NAME));
+		verifyNoInteractions(delegate);
+
+	}
+
+}
@@ -0,0 +1,188 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.ForecastsUnavailableException;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import example.weatherwebapp.shared.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResilientWeatherForecastRepositoryTest {
+
+	private static final Coordinates VICENZA = new Coordinates(45.55, 11.55);
+
+	private static final List<WeatherForecast> FORECASTS = List
+			.of(new WeatherForecast(Instant.parse("2023-06-20T12:00:00Z"), 25, "01d", "clear sky"));
+
+	WeatherForecastRepository delegate;
+
+	CircuitBreaker circuitBreaker;
+
+	MeterRegistry meterRegistry;
+
+	ResilientWeatherForecastRepository repository;
+
+	@BeforeEach
+	void setup() {
+		delegate = mock(WeatherForecastRepository.class);
+		circuitBreaker = new CircuitBreaker("test", 10, 5, Duration.ofSeconds(10), Duration.ofSeconds(30),
+				Clock.systemUTC());
+		meterRegistry = new SimpleMeterRegistry();
+		repository = new ResilientWeatherForecastRepository(delegate, circuitBreaker, 3, Duration.ofMillis(1),
+				Duration.ofMillis(2), meterRegistry);
+	}
+
+	@Test
+	void whenTheFailureIsTransient_shouldRetry() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt()))
+				.thenThrow(new ResourceAccessException("Read timed out"))
+				.thenReturn(List.of())
+				.thenReturn(FORECASTS);
+
+		assertEquals(FORECASTS, repository.getWeatherForecastForCity(VICENZA, 5));
+		assertEquals(2, meterRegistry.get("weather.upstream.retries").counter().count());
+
+	}
+
+	@Test
+	void whenAllTheAttemptsFail_shouldBeUnavailable() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt()))
+				.thenThrow(HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null));
+
+		assertThrows(ForecastsUnavailableException.class, () -> repository.getWeatherForecastForCity(VICENZA, 5));
+		verify(delegate, times(3)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenTheFailureIsAClientError_shouldNotRetry() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt()))
+				.thenThrow(HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized", null, null, null));
+
+		assertThrows(HttpClientErrorException.class, () -> repository.getWeatherForecastForCity(VICENZA, 5));
+		verify(delegate, times(1)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenThrottled_shouldRetry() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt()))
+				.thenThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null,
+						null, null))
+				.thenReturn(FORECASTS);
+
+		assertEquals(FORECASTS, repository.getWeatherForecastForCity(VICENZA, 5));
+
+	}
+
+	@Test
+	void whenThrottledForLongerThanTheMaximumBackoff_shouldNotRetry() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenThrow(throttled("60"));
+
+		assertThrows(ForecastsUnavailableException.class, () -> repository.getWeatherForecastForCity(VICENZA, 5));
+		verify(delegate, times(1)).getWeatherForecastForCity(any(), anyInt());
+
+	}
+
+	@Test
+	void whenThrottled_shouldWaitTheRetryAfterOfTheResponse() {
+
+		assertEquals(Duration.ofSeconds(2).toNanos(), UpstreamFailures.retryAfterNanos(throttled("2")));
+		final var date = DateTimeFormatter.RFC_1123_DATE_TIME
+				.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+		final long untilDate = UpstreamFailures.retryAfterNanos(throttled(date));
+		assertTrue(untilDate > Duration.ofSeconds(28).toNanos() && untilDate <= Duration.ofSeconds(30).toNanos());
+		assertEquals(0, UpstreamFailures.retryAfterNanos(throttled("soon")));
+
+	}
+
+	@Test
+	void whenRateLimited_shouldNotRetryNorCallTheDelegate() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(FORECASTS);
+		// a single token, refilled in 1000s
+		final var rateLimiter = new UpstreamRateLimiter("forecast", new LocalTokenBucket(1, 0.001, Clock.systemUTC()),
+				0, Duration.ZERO, meterRegistry);
+		repository = new ResilientWeatherForecastRepository(delegate, circuitBreaker, rateLimiter, 3,
+				Duration.ofMillis(1), Duration.ofMillis(2), meterRegistry);
+
+		assertEquals(FORECASTS, repository.getWeatherForecastForCity(VICENZA, 5));
+		for (int i = 0; i < 10; i++)
+			assertThrows(RateLimitExceededException.class, () -> repository.getWeatherForecastForCity(VICENZA, 5));
+
+		verify(delegate, times(1)).getWeatherForecastForCity(any(), anyInt());
+		assertEquals(0, meterRegistry.get("weather.upstream.retries").counter().count());
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+
+	}
+
+	@Test
+	void whenThrottledByTheRateLimiter_shouldNotCountTheWaitAsASlowCall() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt())).thenReturn(FORECASTS);
+		// a single slow call opens the circuit; one call every 100ms
+		circuitBreaker = new CircuitBreaker("test", 1, 1, Duration.ofMillis(50), Duration.ofSeconds(30),
+				Clock.systemUTC());
+		final var rateLimiter = new UpstreamRateLimiter("forecast", new LocalTokenBucket(1, 10, Clock.systemUTC()), 0,
+				Duration.ofSeconds(1), meterRegistry);
+		repository = new ResilientWeatherForecastRepository(delegate, circuitBreaker, rateLimiter, 3,
+				Duration.ofMillis(1), Duration.ofMillis(2), meterRegistry);
+
+		for (int i = 0; i < 3; i++)
+			assertEquals(FORECASTS, repository.getWeatherForecastForCity(VICENZA, 5));
+
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+
+	}
+
+	@Test
+	void whenTheCircuitIsOpen_shouldFailFastWithoutCallingTheDelegate() {
+
+		when(delegate.getWeatherForecastForCity(any(), anyInt()))
+				.thenThrow(new ResourceAccessException("Connection refused"));
+		// 3 attempts per call: the fifth failure opens the circuit during the second call
+		for (int i = 0; i < 2; i++)
+			assertThrows(ForecastsUnavailableException.class, () -> repository.getWeatherForecastForCity(VICENZA, 5));
+		clearInvocations(delegate);
+
+		assertThrows(ForecastsUnavailableException.class, () -> repository.getWeatherForecastForCity(VICENZA, 5));
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+		verifyNoInteractions(delegate);
+
+	}
+
+	private static HttpClientErrorException throttled(String retryAfter) {
+		final var headers = new HttpHeaders();
+		headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+		return HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, null,
+				null);
+	}
+
+}
@@ -0,0 +1,91 @@
+package example.weatherwebapp.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamRateLimiterTest {
+
+	private static final Instant NOW = Instant.parse("2023-06-20T10:20:00Z");
+
+	Clock clock;
+
+	MeterRegistry meterRegistry;
+
+	UpstreamRateLimiter rateLimiter;
+
+	@BeforeEach
+	void setup() {
+		clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(NOW);
+		meterRegistry = new SimpleMeterRegistry();
+		// 4 calls in a burst, then one per second; 2 calls reserved for the users
+		rateLimiter = new UpstreamRateLimiter("forecast", new LocalTokenBucket(4, 1, clock), 2, Duration.ZERO,
+				meterRegistry);
+	}
+
+	@Test
+	void whenTheBurstIsExhausted_shouldRejectTheCalls() {
+
+		for (int i = 0; i < 4; i++)
+			rateLimiter.acquire();
+
+		assertThrows(RateLimitExceededException.class, rateLimiter::acquire);
+		assertEquals(1, meterRegistry.get("weather.upstream.rate-limit.rejections")
+				.tags("api", "forecast", "priority", "USER")
+				.counter().count());
+
+	}
+
+	@Test
+	void whenTimePasses_shouldRefillTheBucket() {
+
+		for (int i = 0; i < 4; i++)
+			rateLimiter.acquire();
+		when(clock.instant()).thenReturn(NOW.plusSeconds(2));
+
+		rateLimiter.acquire();
+		rateLimiter.acquire();
+		assertThrows(RateLimitExceededException.class, rateLimiter::acquire);
+
+	}
+
+	@Test
+	void backgroundCalls_shouldNotTakeTheReservedTokens() {
+
+		UpstreamCallPriority.BACKGROUND.call(() -> {
+			rateLimiter.acquire();
+			rateLimiter.acquire();
+			assertThrows(RateLimitExceededException.class, rateLimiter::acquire);
+			return null;
+		});
+
+		rateLimiter.acquire();
+		rateLimiter.acquire();
+
+	}
+
+	@Test
+	void whenATokenIsRefilledWithinTheMaximumWait_shouldWaitForIt() {
+
+		final var bucket = new LocalTokenBucket(1, 100, Clock.systemUTC());
+		final var waitingRateLimiter = new UpstreamRateLimiter("forecast", bucket, 0, Duration.ofSeconds(1),
+				meterRegistry);
+
+		for (int i = 0; i < 5; i++)
+			waitingRateLimiter.acquire();
+
+	}
+
+}
@@ -0,0 +1,130 @@
+package example.weatherwebapp.shared;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import example.weatherwebapp.shared.CircuitBreaker.CallNotPermittedException;
+import example.weatherwebapp.shared.CircuitBreaker.State;
+
+class CircuitBreakerTest {
+
+	private static final Instant NOW = Instant.parse("2023-06-20T10:20:00Z");
+
+	Clock clock;
+
+	CircuitBreaker circuitBreaker;
+
+	@BeforeEach
+	void setup() {
+		clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(NOW);
+		circuitBreaker = new CircuitBreaker("test", 4, 2, Duration.ofSeconds(10), Duration.ofSeconds(30), clock);
+	}
+
+	@Test
+	void whenFailuresReachTheThreshold_shouldRejectTheCalls() {
+
+		fail();
+		circuitBreaker.execute(() -> "ok");
+		fail();
+
+		assertEquals(State.OPEN, circuitBreaker.state());
+		assertThrows(CallNotPermittedException.class, () -> circuitBreaker.execute(() -> "ok"));
+		assertEquals(1, circuitBreaker.snapshot().rejectedCalls());
+
+	}
+
+	@Test
+	void whenFailuresLeaveTheWindow_shouldNotCountThem() {
+
+		fail();
+		for (int i = 0; i < 4; i++)
+			circuitBreaker.execute(() -> "ok");
+		fail();
+
+		assertEquals(State.CLOSED, circuitBreaker.state());
+		assertEquals(1, circuitBreaker.snapshot().failures());
+
+	}
+
+	@Test
+	void whenTheOpenDurationElapsed_shouldCloseAfterASuccessfulTrialCall() {
+
+		fail();
+		fail();
+		when(clock.instant()).thenReturn(NOW.plusSeconds(30));
+
+		assertEquals(State.HALF_OPEN, circuitBreaker.state());
+		assertEquals("ok", circuitBreaker.execute(() -> "ok"));
+		assertEquals(State.CLOSED, circuitBreaker.state());
+		assertEquals(0, circuitBreaker.snapshot().failures());
+
+	}
+
+	@Test
+	void whenTheTrialCallFails_shouldOpenAgain() {
+
+		fail();
+		fail();
+		when(clock.instant()).thenReturn(NOW.plusSeconds(30));
+		fail();
+
+		assertEquals(State.OPEN, circuitBreaker.state());
+		assertEquals(NOW.plusSeconds(30), circuitBreaker.snapshot().openedAt());
+
+	}
+
+	@Test
+	void whileTheTrialCallIsInFlight_shouldRejectTheOtherCalls() {
+
+		fail();
+		fail();
+		when(clock.instant()).thenReturn(NOW.plusSeconds(30));
+
+		final var result = circuitBreaker.execute(() -> {
+			assertThrows(CallNotPermittedException.class, () -> circuitBreaker.execute(() -> "other"));
+			return "trial";
+		});
+
+		assertEquals("trial", result);
+		assertEquals(State.CLOSED, circuitBreaker.state());
+
+	}
+
+	@Test
+	void whenCallsAreSlow_shouldCountThemAsFailures() {
+
+		final var slowBreaker = new CircuitBreaker("slow", 4, 1, Duration.ZERO, Duration.ofSeconds(30), clock);
+
+		assertEquals("ok", slowBreaker.execute(() -> {
+			sleep(2);
+			return "ok";
+		}));
+		assertEquals(State.OPEN, slowBreaker.state());
+
+	}
+
+	private void fail() {
+		assertThrows(IllegalStateException.class, () -> circuitBreaker.execute(() -> {
+			throw new IllegalStateException("failure");
+		}));
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+package example.weatherwebapp.shared;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+	private static final int CALLERS = 64;
+
+	ExecutorService executor;
+
+	@BeforeEach
+	void setup() {
+		executor = Executors.newFixedThreadPool(CALLERS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void whenManyCallersUseTheSameKey_shouldCallUpstreamOnce() throws Exception {
+
+		final var singleFlight = new SingleFlight<String, String>();
+		final var upstreamCalls = new AtomicInteger();
+		final var callersStarted = new CountDownLatch(CALLERS);
+
+		final var results = submitCallers(callersStarted, () -> singleFlight.execute("vicenza", () -> {
+			upstreamCalls.incrementAndGet();
+			awaitOtherCallers(callersStarted);
+			return "Vicenza (IT)";
+		}));
+
+		for (final var result : results) {
+			assertEquals("Vicenza (IT)", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, upstreamCalls.get());
+
+	}
+
+	@Test
+	void whenUpstreamFails_shouldPropagateTheFailureToEveryCaller() throws Exception {
+
+		final var singleFlight = new SingleFlight<String, String>();
+		final var upstreamCalls = new AtomicInteger();
+		final var callersStarted = new CountDownLatch(CALLERS);
+		final var failure = new IllegalStateException("upstream down");
+
+		final var results = submitCallers(callersStarted, () -> {
+			try {
+				return singleFlight.execute("vicenza", () -> {
+					upstreamCalls.incrementAndGet();
+					awaitOtherCallers(callersStarted);
+					throw failure;
+				});
+			} catch (IllegalStateException e) {
+				return e.getMessage();
+			}
+		});
+
+		for (final var result : results) {
+			assertEquals(failure.getMessage(), result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, upstreamCalls.get());
+
+	}
+
+	@Test
+	void whenCallCompleted_shouldCallUpstreamAgain() {
+
+		final var singleFlight = new SingleFlight<String, Integer>();
+		final var upstreamCalls = new AtomicInteger();
+
+		singleFlight.execute("vicenza", upstreamCalls::incrementAndGet);
+		final var second = singleFlight.execute("vicenza", upstreamCalls::incrementAndGet);
+
+		assertEquals(2, second);
+
+	}
+
+	private List<Future<String>> submitCallers(CountDownLatch callersStarted, Callable<String> call) {
+		final List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(executor.submit(() -> {
+				callersStarted.countDown();
+				return call.call();
+			}));
+		}
+		return results;
+	}
+
+	private static void awaitOtherCallers(CountDownLatch callersStarted) {
+		try {
+			callersStarted.await(5, TimeUnit.SECONDS);
+			// leave the other callers the time to reach the in-flight call
+			Thread.sleep(100);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
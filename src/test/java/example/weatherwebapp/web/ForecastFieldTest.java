@@ -0,0 +1,44 @@
+package example.weatherwebapp.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ForecastFieldTest {
+
+	@Test
+	void whenFieldsAreMissing_shouldSelectAllTheFields() {
+
+		assertEquals(ForecastField.ALL, ForecastField.tryParse(null).right());
+		assertEquals(ForecastField.ALL, ForecastField.tryParse(" ").right());
+
+	}
+
+	@Test
+	void whenFieldsAreListed_shouldSelectThemIgnoringCaseAndSpaces() {
+
+		assertEquals(Set.of(ForecastField.TEMP, ForecastField.WIND), ForecastField.tryParse("temp, WIND,").right());
+
+	}
+
+	@Test
+	void whenFieldsAreUnknown_shouldReturnTheirNames() {
+
+		final var fields = ForecastField.tryParse("temp,pressure,uv");
+
+		assertTrue(fields.isLeft());
+		assertEquals("pressure, uv", fields.left());
+
+	}
+
+	@Test
+	void whenComputingProperties_shouldAlwaysIncludeTheTimestamp() {
+
+		assertEquals(Set.of("timestamp", "cloudiness"), ForecastField.properties(Set.of(ForecastField.CLOUDS)));
+
+	}
+
+}
@@ -0,0 +1,176 @@
+package example.weatherwebapp.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.GetWeatherForecastUseCase;
+import example.weatherwebapp.core.GetWeatherForecastUseCase.FailureCause;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import example.weatherwebapp.core.WeatherReport;
+import example.weatherwebapp.shared.Either;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ForecastStreamsTest {
+
+	private static final City VICENZA = new City(new Coordinates(45.5467, 11.5475), "Vicenza (IT)");
+
+	private static final WeatherReport REPORT = new WeatherReport(
+			List.of(new WeatherForecast(Instant.parse("2023-06-20T12:00:00Z"), 25, "01d", "clear sky")), VICENZA);
+
+	GetWeatherForecastUseCase getWeatherForecastUseCase;
+
+	WeatherForecastRepository weatherForecastRepository;
+
+	SerializedReportCache serializedReportCache;
+
+	MeterRegistry meterRegistry;
+
+	ForecastStreams forecastStreams;
+
+	@BeforeEach
+	void setup() {
+		getWeatherForecastUseCase = mock(GetWeatherForecastUseCase.class);
+		when(getWeatherForecastUseCase.get(any(), any())).thenReturn(Either.right(REPORT));
+		weatherForecastRepository = mock(WeatherForecastRepository.class);
+		when(weatherForecastRepository.getWeatherForecastForCity(any(), anyInt())).thenReturn(REPORT.getForecasts());
+		serializedReportCache = new SerializedReportCache(Jackson2ObjectMapperBuilder.json().build(), 100,
+				Duration.ofMinutes(10), Clock.fixed(Instant.parse("2023-06-20T10:20:00Z"), ZoneOffset.UTC));
+		meterRegistry = new SimpleMeterRegistry();
+		forecastStreams = forecastStreams(Runnable::run);
+	}
+
+	@Test
+	void whenManySubscribeToTheSameCity_shouldGetTheForecastsOncePerCheckWithoutGeocoding() {
+
+		forecastStreams.subscribe(new CityName("Vicenza"), ForecastField.ALL, null);
+		forecastStreams.subscribe(new CityName("vicenza"), ForecastField.ALL, null);
+		clearInvocations(getWeatherForecastUseCase);
+
+		forecastStreams.publish();
+
+		assertEquals(2, forecastStreams.subscribers());
+		assertEquals(1, forecastStreams.streams());
+		verify(weatherForecastRepository, times(1)).getWeatherForecastForCity(VICENZA.coordinates(),
+				GetWeatherForecastUseCase.DEFAULT_FORECAST_DAYS);
+		verifyNoInteractions(getWeatherForecastUseCase);
+
+	}
+
+	@Test
+	void whenFieldsDiffer_shouldNotShareTheStream() {
+
+		forecastStreams.subscribe(new CityName("Vicenza"), ForecastField.ALL, null);
+		forecastStreams.subscribe(new CityName("Vicenza"), ForecastField.tryParse("temp").right(), null);
+
+		assertEquals(2, forecastStreams.streams());
+
+	}
+
+	@Test
+	void whenTheCityIsNotFound_shouldNotSubscribe() {
+
+		when(getWeatherForecastUseCase.get(any(), any())).thenReturn(Either.left(FailureCause.CITY_NOT_FOUND));
+
+		final var subscription = forecastStreams.subscribe(new CityName("Vicnza"), ForecastField.ALL, null);
+
+		assertTrue(subscription.isLeft());
+		assertEquals(0, forecastStreams.subscribers());
+
+	}
+
+	@Test
+	void whenTheReportFails_shouldNotCountTheSubscriber() {
+
+		when(getWeatherForecastUseCase.get(any(), any())).thenThrow(new IllegalStateException("Unexpected"));
+
+		assertThrows(IllegalStateException.class,
+				() -> forecastStreams.subscribe(new CityName("Vicenza"), ForecastField.ALL, null));
+		assertEquals(0, forecastStreams.subscribers());
+
+	}
+
+	@Test
+	void whenTheSenderIsSaturated_shouldDropTheEvents() {
+
+		forecastStreams = forecastStreams(command -> {
+			throw new RejectedExecutionException();
+		});
+		forecastStreams.subscribe(new CityName("Vicenza"), ForecastField.ALL, null);
+
+		forecastStreams.publish();
+
+		assertEquals(1, forecastStreams.subscribers());
+		assertEquals(1, meterRegistry.get("weather.stream.dropped").tag("what", "event").counter().count());
+
+	}
+
+	@Test
+	void whenEventsWaitToBeSent_shouldSendTheLatestOnly() {
+
+		final List<Runnable> tasks = new ArrayList<>();
+		forecastStreams = forecastStreams(tasks::add);
+		forecastStreams.subscribe(new CityName("Vicenza"), ForecastField.ALL, null);
+
+		// each check schedules a send, the sends are left waiting
+		forecastStreams.publish();
+		tasks.remove(0).run();
+		forecastStreams.publish();
+		tasks.remove(1).run();
+
+		assertEquals(1, tasks.size());
+		assertEquals(1, meterRegistry.get("weather.stream.dropped").tag("what", "event").counter().count());
+
+	}
+
+	@Test
+	void whenACheckIsRunning_shouldNotStartAnother() {
+
+		final List<Runnable> tasks = new ArrayList<>();
+		forecastStreams = forecastStreams(tasks::add);
+		forecastStreams.subscribe(new CityName("Vicenza"), ForecastField.ALL, null);
+
+		forecastStreams.publish();
+		forecastStreams.publish();
+
+		assertEquals(1, tasks.size());
+
+	}
+
+	@Test
+	void whenThereAreTooManySubscribers_shouldReject() {
+
+		for (int i = 0; i < 3; i++)
+			forecastStreams.subscribe(new CityName("Vicenza"), ForecastField.ALL, null);
+
+		assertThrows(RejectedExecutionException.class,
+				() -> forecastStreams.subscribe(new CityName("Vicenza"), ForecastField.ALL, null));
+		assertEquals(3, forecastStreams.subscribers());
+
+	}
+
+	private ForecastStreams forecastStreams(Executor sendExecutor) {
+		return new ForecastStreams(getWeatherForecastUseCase, weatherForecastRepository, serializedReportCache,
+				meterRegistry, sendExecutor, 3, Duration.ofMinutes(30), Duration.ofSeconds(10));
+	}
+
+}
@@ -0,0 +1,161 @@
+package example.weatherwebapp.web;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherReport;
+import example.weatherwebapp.web.SerializedReportCache.Format;
+import example.weatherwebapp.web.SerializedReportCache.Representation;
+import example.weatherwebapp.web.SerializedReportCache.SerializedReport;
+
+class SerializedReportCacheTest {
+
+	static final City CITY = new City(new Coordinates(45.5467, 11.5475), "Vicenza (IT)");
+
+	final SerializedReportCache cache = new SerializedReportCache(Jackson2ObjectMapperBuilder.json().build(), 100,
+			Duration.ofMinutes(10), Clock.fixed(Instant.parse("2023-06-20T01:00:00Z"), ZoneOffset.UTC));
+
+	@Test
+	void whenForecastsAreTheSame_shouldReuseTheSerializedReport() {
+
+		final var forecasts = forecasts(21.5);
+
+		final var first = cache.serialize(new WeatherReport(forecasts, CITY));
+		final var second = cache.serialize(new WeatherReport(forecasts, CITY));
+
+		assertSame(first, second);
+
+	}
+
+	@Test
+	void whenForecastsChange_shouldSerializeTheReportAgain() {
+
+		final var first = cache.serialize(new WeatherReport(forecasts(21.5), CITY));
+		final var sameContent = cache.serialize(new WeatherReport(forecasts(21.5), CITY));
+		final var newContent = cache.serialize(new WeatherReport(forecasts(23), CITY));
+
+		assertNotSame(first, sameContent);
+		assertEquals(json(first).etag(), json(sameContent).etag());
+		assertNotEquals(json(first).etag(), json(newContent).etag());
+
+	}
+
+	@Test
+	void whenFieldsAreSelected_shouldSerializeOnlyThemWithTheirOwnEtag() {
+
+		final var report = new WeatherReport(forecasts(21.5), CITY);
+
+		final var all = json(cache.serialize(report));
+		final var temperatures = json(cache.serialize(report, Set.of(ForecastField.TEMP)));
+
+		final var body = new String(temperatures.body(), StandardCharsets.UTF_8);
+		assertTrue(body.contains("\"timestamp\"") && body.contains("\"avgTemperature\""));
+		assertFalse(body.contains("\"windSpeed\"") || body.contains("\"weatherIcon\""));
+		assertTrue(new String(all.body(), StandardCharsets.UTF_8).contains("\"windSpeed\""));
+		assertNotEquals(all.etag(), temperatures.etag());
+
+	}
+
+	@Test
+	void whenIfNoneMatchHasTheEtag_shouldMatch() {
+
+		final var report = json(cache.serialize(new WeatherReport(forecasts(21.5), CITY)));
+
+		assertTrue(report.matches(report.etag()));
+		assertTrue(report.matches("\"other\", W/" + report.etag()));
+		assertTrue(report.matches("*"));
+		assertFalse(report.matches("\"other\""));
+		assertFalse(report.matches(null));
+
+	}
+
+	@Test
+	void whenComputingCacheControl_shouldExpireWhenTheNextSlotIsPublished() {
+
+		// next slot at 03:00, published at 03:10
+		assertEquals("max-age=7800, public", cache.cacheControl().getHeaderValue());
+
+	}
+
+	@Test
+	void whenGzipIsRequested_shouldCompressTheJsonWithItsOwnEtag() throws IOException {
+
+		final var report = cache.serialize(new WeatherReport(forecasts(21.5), CITY));
+
+		final var gzipped = report.representation(Format.JSON, true);
+
+		assertTrue(gzipped.gzipped());
+		assertNotEquals(json(report).etag(), gzipped.etag());
+		try (var in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+			assertArrayEquals(json(report).body(), in.readAllBytes());
+		}
+
+	}
+
+	@Test
+	void whenCborIsRequested_shouldSerializeTheReportInCbor() {
+
+		final var report = cache.serialize(new WeatherReport(forecasts(21.5), CITY));
+
+		final var cbor = report.representation(Format.CBOR, false);
+
+		assertEquals(Format.CBOR, cbor.format());
+		assertNotEquals(json(report).etag(), cbor.etag());
+		assertTrue(cbor.body().length < json(report).body().length);
+
+	}
+
+	@Test
+	void whenNegotiatingTheFormat_shouldPreferCborOnlyIfExplicitlyAccepted() {
+
+		assertEquals(Format.JSON, Format.negotiate(null));
+		assertEquals(Format.JSON, Format.negotiate("*/*"));
+		assertEquals(Format.CBOR, Format.negotiate("application/cbor"));
+		assertEquals(Format.CBOR, Format.negotiate("application/json;q=0.5, application/cbor"));
+		assertEquals(Format.JSON, Format.negotiate("application/json, application/cbor"));
+		assertEquals(Format.JSON, Format.negotiate("application/cbor;q=0"));
+
+	}
+
+	@Test
+	void whenParsingAcceptEncoding_shouldAcceptGzipUnlessRefused() {
+
+		assertTrue(SerializedReportCache.acceptsGzip("gzip, deflate, br"));
+		assertTrue(SerializedReportCache.acceptsGzip("br;q=1.0, *;q=0.5"));
+		assertFalse(SerializedReportCache.acceptsGzip("gzip;q=0, *"));
+		assertFalse(SerializedReportCache.acceptsGzip("br"));
+		assertFalse(SerializedReportCache.acceptsGzip(null));
+
+	}
+
+	private static Representation json(SerializedReport report) {
+		return report.representation(Format.JSON, false);
+	}
+
+	private static List<WeatherForecast> forecasts(double temperature) {
+		return List.of(new WeatherForecast(Instant.parse("2023-06-20T03:00:00Z"), temperature, "02d", "few clouds"));
+	}
+
+}
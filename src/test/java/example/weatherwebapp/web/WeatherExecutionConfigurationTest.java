@@ -0,0 +1,57 @@
+package example.weatherwebapp.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Test;
+
+import example.weatherwebapp.web.WeatherExecutionConfiguration.ExecutionMode;
+
+class WeatherExecutionConfigurationTest {
+
+	@Test
+	void whenBlocking_shouldRunOnTheCallingThread() {
+
+		final var executor = new WeatherExecutionConfiguration().forecastExecutor(ExecutionMode.BLOCKING, 64, 1000);
+		final var thread = new Thread[1];
+		executor.execute(() -> thread[0] = Thread.currentThread());
+
+		assertEquals(Thread.currentThread(), thread[0]);
+
+	}
+
+	@Test
+	void whenVirtual_shouldRunOnAVirtualThread() throws Exception {
+
+		assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21");
+
+		final var executor = (ExecutorService) new WeatherExecutionConfiguration()
+				.forecastExecutor(ExecutionMode.VIRTUAL, 64, 1000);
+		try {
+			final var thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).join();
+
+			assertNotEquals(Thread.currentThread(), thread);
+			assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+		} finally {
+			executor.shutdown();
+		}
+
+	}
+
+	@Test
+	void whenVirtualBeforeJava21_shouldFailAtStartup() {
+
+		assumeTrue(Runtime.version().feature() < 21, "Virtual threads are supported");
+
+		assertThrows(IllegalStateException.class,
+				() -> new WeatherExecutionConfiguration().forecastExecutor(ExecutionMode.VIRTUAL, 64, 1000));
+
+	}
+
+}
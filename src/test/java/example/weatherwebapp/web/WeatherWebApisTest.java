@@ -0,0 +1,223 @@
+package example.weatherwebapp.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import example.weatherwebapp.core.City;
+import example.weatherwebapp.core.CityName;
+import example.weatherwebapp.core.CitySuggestion;
+import example.weatherwebapp.core.CitySuggestionRepository;
+import example.weatherwebapp.core.Coordinates;
+import example.weatherwebapp.core.GetWeatherForecastUseCase;
+import example.weatherwebapp.core.GetWeatherForecastUseCase.FailureCause;
+import example.weatherwebapp.core.SuggestCitiesUseCase;
+import example.weatherwebapp.core.WeatherForecast;
+import example.weatherwebapp.core.WeatherForecastRepository;
+import example.weatherwebapp.core.WeatherReport;
+import example.weatherwebapp.shared.Either;
+import example.weatherwebapp.web.WeatherExecutionConfiguration.ExecutionMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WeatherWebApisTest {
+
+	private static final City VICENZA = new City(new Coordinates(45.5467, 11.5475), "Vicenza (IT)");
+
+	private static final WeatherReport REPORT = new WeatherReport(
+			List.of(new WeatherForecast(Instant.parse("2023-06-20T12:00:00Z"), 25, "01d", "clear sky")), VICENZA);
+
+	GetWeatherForecastUseCase getWeatherForecastUseCase;
+
+	CitySuggestionRepository citySuggestionRepository;
+
+	SerializedReportCache serializedReportCache;
+
+	@BeforeEach
+	void setup() {
+		getWeatherForecastUseCase = mock(GetWeatherForecastUseCase.class);
+		when(getWeatherForecastUseCase.get(any(), any())).thenReturn(Either.right(REPORT));
+		citySuggestionRepository = mock(CitySuggestionRepository.class);
+		serializedReportCache = new SerializedReportCache(Jackson2ObjectMapperBuilder.json().build(), 100,
+				Duration.ofMinutes(10), Clock.fixed(Instant.parse("2023-06-20T10:20:00Z"), ZoneOffset.UTC));
+	}
+
+	@Test
+	void whenBlocking_shouldReturnTheResponse() {
+
+		final var response = apis(ExecutionMode.BLOCKING, Runnable::run)
+				.getWeatherForecast("Vicenza", null, null, false, new HttpHeaders());
+
+		assertEquals(HttpStatus.OK, assertInstanceOf(ResponseEntity.class, response).getStatusCode());
+
+	}
+
+	@Test
+	void whenAsync_shouldReturnTheFutureResponse() {
+
+		final var response = apis(ExecutionMode.ASYNC, Runnable::run)
+				.getWeatherForecast("Vicenza", null, null, false, new HttpHeaders());
+
+		final var future = assertInstanceOf(CompletableFuture.class, response);
+		assertEquals(HttpStatus.OK, assertInstanceOf(ResponseEntity.class, future.join()).getStatusCode());
+
+	}
+
+	@Test
+	void whenTheForecastExecutorIsSaturated_shouldBeUnavailable() {
+
+		final var response = apis(ExecutionMode.ASYNC, command -> {
+			throw new RejectedExecutionException();
+		}).getWeatherForecast("Vicenza", null, null, false, new HttpHeaders());
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, assertInstanceOf(ResponseEntity.class, response).getStatusCode());
+		verifyNoInteractions(getWeatherForecastUseCase);
+
+	}
+
+	@Test
+	void whenTheDailySummariesAreNotModified_shouldAnswerNotModified() {
+
+		final var apis = apis(ExecutionMode.BLOCKING, Runnable::run);
+		final var response = assertInstanceOf(ResponseEntity.class,
+				apis.getWeatherForecast("Vicenza", 3, null, true, new HttpHeaders()));
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), response.getHeaders().getVary());
+
+		final var headers = new HttpHeaders();
+		headers.setIfNoneMatch(response.getHeaders().getETag());
+		final var revalidated = apis.getWeatherForecast("Vicenza", 3, null, true, headers);
+
+		assertEquals(HttpStatus.NOT_MODIFIED, assertInstanceOf(ResponseEntity.class, revalidated).getStatusCode());
+		// the summaries are not the full report
+		assertNotEquals(response.getHeaders().getETag(), serializedReportCache.serialize(REPORT)
+				.representation(SerializedReportCache.Format.JSON, false).etag());
+
+	}
+
+	@Test
+	void whenSelectingFieldsOfTheDailySummaries_shouldBeABadRequest() {
+
+		final var response = apis(ExecutionMode.BLOCKING, Runnable::run)
+				.getWeatherForecast("Vicenza", null, "temp", true, new HttpHeaders());
+
+		assertEquals(HttpStatus.BAD_REQUEST, assertInstanceOf(ResponseEntity.class, response).getStatusCode());
+		verifyNoInteractions(getWeatherForecastUseCase);
+
+	}
+
+	@Test
+	void whenSuggestingCities_shouldServeTheSuggestionsOfTheNormalizedPrefix() throws Exception {
+
+		when(citySuggestionRepository.suggest("vi", 2)).thenReturn(List.of(
+				new CitySuggestion("Vienna", "Vienna (AT)", "AT", 1691468),
+				new CitySuggestion("Vicenza", "Vicenza (IT)", "IT", 111500)));
+		final var mockMvc = MockMvcBuilders.standaloneSetup(apis(ExecutionMode.BLOCKING, Runnable::run)).build();
+
+		mockMvc.perform(get("/weather/cities/suggest").param("prefix", " VI").param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[1].displayName").value("Vicenza (IT)"));
+		mockMvc.perform(get("/weather/cities/suggest"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(0));
+
+	}
+
+	@Test
+	void whenBatchNamesDifferByCaseOrSpacing_shouldLookTheCityUpOnce() {
+
+		final var response = batch(Runnable::run, "Vicenza", " vicenza", "VICENZA", "Vicenza");
+
+		assertEquals(List.of("Vicenza", " vicenza", "VICENZA"), List.copyOf(response.reports().keySet()));
+		verify(getWeatherForecastUseCase, times(1)).get(any(), any());
+
+	}
+
+	@Test
+	void whenBatchHasTooManyCities_shouldBeABadRequest() {
+
+		final var cities = Collections.nCopies(101, "Vicenza");
+
+		final var response = apis(ExecutionMode.BLOCKING, Runnable::run, Runnable::run)
+				.getWeatherForecastBatch(new BatchForecastRequestDTO(cities, null)).join();
+
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		verifyNoInteractions(getWeatherForecastUseCase);
+
+	}
+
+	@Test
+	void whenSomeBatchCitiesFail_shouldReportTheirFailures() {
+
+		when(getWeatherForecastUseCase.get(eq(new CityName("Vicnza")), any()))
+				.thenReturn(Either.left(FailureCause.CITY_NOT_FOUND));
+		when(getWeatherForecastUseCase.get(eq(new CityName("Verona")), any()))
+				.thenThrow(new IllegalStateException("Unexpected"));
+
+		final var response = batch(Runnable::run, "Vicenza", "Vicnza", " ", "Verona");
+
+		assertEquals(Set.of("Vicenza"), response.reports().keySet());
+		assertEquals(Map.of("Vicnza", "CITY_NOT_FOUND", " ", "INVALID_CITY_NAME", "Verona", "INTERNAL_ERROR"),
+				response.failures());
+
+	}
+
+	@Test
+	void whenTheBatchExecutorIsSaturated_shouldFailTheRejectedCities() {
+
+		final var response = batch(command -> {
+			throw new RejectedExecutionException();
+		}, "Vicenza", "Verona");
+
+		assertEquals(Map.of("Vicenza", "TOO_MANY_REQUESTS", "Verona", "TOO_MANY_REQUESTS"), response.failures());
+		verifyNoInteractions(getWeatherForecastUseCase);
+
+	}
+
+	private BatchForecastResponseDTO batch(Executor batchExecutor, String... cities) {
+		final var response = apis(ExecutionMode.BLOCKING, Runnable::run, batchExecutor)
+				.getWeatherForecastBatch(new BatchForecastRequestDTO(Arrays.asList(cities), null)).join();
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		return (BatchForecastResponseDTO) response.getBody();
+	}
+
+	private WeatherWebApis apis(ExecutionMode executionMode, Executor forecastExecutor) {
+		return apis(executionMode, forecastExecutor, Runnable::run);
+	}
+
+	private WeatherWebApis apis(ExecutionMode executionMode, Executor forecastExecutor, Executor batchExecutor) {
+		final var meterRegistry = new SimpleMeterRegistry();
+		return new WeatherWebApis(getWeatherForecastUseCase, new SuggestCitiesUseCase(citySuggestionRepository),
+				forecastExecutor, executionMode, batchExecutor, 100, serializedReportCache,
+				new ForecastStreams(getWeatherForecastUseCase, mock(WeatherForecastRepository.class),
+						serializedReportCache, meterRegistry, Runnable::run, 100, Duration.ofMinutes(30),
+						Duration.ofSeconds(10)),
+				meterRegistry);
+	}
+
+}